@@ -0,0 +1,61 @@
+package com.tedtalks.api.benchmark;
+
+import com.tedtalks.api.service.TedTalkService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end CSV import into an empty service. Each invocation imports a whole file,
+ * so the score is the time per import; divide {@code rows} by it for rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class ImportBenchmark {
+
+    @Param({"5000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private Path csv;
+    private TedTalkService service;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        csv = Files.createTempFile("tedtalks-bench-", ".csv");
+        new TalkDataGenerator().writeCsv(rows, 42, csv);
+    }
+
+    @Setup(Level.Invocation)
+    public void newService() {
+        service = new TedTalkService();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    public int importFromCsv() throws IOException {
+        return service.importFromCsv(csv.toString());
+    }
+}
@@ -0,0 +1,73 @@
+package com.tedtalks.api.benchmark;
+
+import com.tedtalks.api.model.TedTalk;
+import com.tedtalks.api.service.SpeakerAnalysisService;
+import com.tedtalks.api.service.TedTalkService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Influence scoring and top-N ranking, both over a plain list of talks and from the
+ * rankings TedTalkService maintains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class SpeakerAnalysisBenchmark {
+
+    @Param({"5000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"10"})
+    public int topN;
+
+    private SpeakerAnalysisService analysis;
+    private List<TedTalk> talks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        talks = new TalkDataGenerator().generate(size, 42);
+        TedTalkService service = new TedTalkService();
+        for (int from = 0; from < talks.size(); from += 10_000) {
+            service.addAll(talks.subList(from, Math.min(from + 10_000, talks.size())));
+        }
+        analysis = new SpeakerAnalysisService(service);
+    }
+
+    @Benchmark
+    public Map<String, Double> computeInfluenceScores() {
+        return analysis.computeInfluenceScores(talks);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> getTopNTitlesFromList() {
+        return analysis.getTopNTitles(talks, topN);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> getTopNTitlesFromRanking() {
+        return analysis.getTopNTitles(topN);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> getTopNTitlesForYear() {
+        return analysis.getTopNTitlesForYear(2019, topN);
+    }
+}
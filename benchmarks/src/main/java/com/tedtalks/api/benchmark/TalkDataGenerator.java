@@ -0,0 +1,149 @@
+package com.tedtalks.api.benchmark;
+
+import com.tedtalks.api.model.TedTalk;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic talk data sets of any size with the shape of the bundled data.csv.
+ * <p>
+ * Title words, author names, dates and view/like pairs are sampled from data.csv, so
+ * token frequencies, the date distribution and the views-to-likes ratio stay realistic.
+ * Titles are made unique with a numeric suffix, and authors are drawn from a pool sized
+ * to keep roughly the talks-per-speaker ratio of the original data. Generation is
+ * deterministic for a given seed.
+ * </p>
+ */
+public final class TalkDataGenerator {
+
+    private static final String HEADER = "title,author,date,views,likes,link";
+
+    private final List<String> titleWords = new ArrayList<>();
+    private final List<String> firstNames = new ArrayList<>();
+    private final List<String> lastNames = new ArrayList<>();
+    private final List<String> dates = new ArrayList<>();
+    private final List<long[]> viewsAndLikes = new ArrayList<>();
+
+    public TalkDataGenerator() {
+        try (Reader in = new InputStreamReader(Objects.requireNonNull(
+                getClass().getClassLoader().getResourceAsStream("data.csv"), "data.csv not on classpath"),
+                StandardCharsets.UTF_8);
+             CSVParser parser = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build().parse(in)) {
+            for (CSVRecord r : parser) {
+                for (String word : r.get("title").split("[^\\p{L}\\p{N}']+")) {
+                    if (!word.isEmpty()) titleWords.add(word);
+                }
+                String[] names = r.get("author").split(" ");
+                firstNames.add(names[0]);
+                lastNames.add(names[names.length - 1]);
+                dates.add(r.get("date"));
+                viewsAndLikes.add(new long[]{parseLong(r.get("views")), parseLong(r.get("likes"))});
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generates talks in memory.
+     *
+     * @param rows number of talks
+     * @param seed random seed
+     * @return the generated talks, each with a unique title
+     */
+    public List<TedTalk> generate(int rows, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int authors = Math.max(1, rows * 4 / 5);
+        List<TedTalk> talks = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            talks.add(next(random, i, authors));
+        }
+        return talks;
+    }
+
+    /**
+     * Writes generated talks to a CSV file in the import format.
+     *
+     * @param rows number of talks
+     * @param seed random seed
+     * @param file target file, overwritten
+     */
+    public void writeCsv(int rows, long seed, Path file) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        int authors = Math.max(1, rows * 4 / 5);
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            out.write(HEADER);
+            out.write('\n');
+            for (int i = 0; i < rows; i++) {
+                TedTalk t = next(random, i, authors);
+                out.write(quote(t.getTitle()));
+                out.write(',');
+                out.write(quote(t.getAuthor()));
+                out.write(',');
+                out.write(t.getDate());
+                out.write(',');
+                out.write(Long.toString(t.getViews()));
+                out.write(',');
+                out.write(Long.toString(t.getLikes()));
+                out.write(',');
+                out.write(t.getLink());
+                out.write('\n');
+            }
+        }
+    }
+
+    private TedTalk next(SplittableRandom random, int i, int authors) {
+        int wordCount = 3 + random.nextInt(6);
+        StringBuilder title = new StringBuilder();
+        for (int w = 0; w < wordCount; w++) {
+            if (w > 0) title.append(' ');
+            title.append(pick(titleWords, random));
+        }
+        title.append(' ').append(i);
+
+        // the same author index always maps to the same name
+        SplittableRandom authorRandom = new SplittableRandom(random.nextInt(authors));
+        String author = pick(firstNames, authorRandom) + " " + pick(lastNames, authorRandom);
+
+        long[] stats = pick(viewsAndLikes, random);
+        double jitter = 0.8 + random.nextDouble() * 0.4;
+        long views = (long) (stats[0] * jitter);
+        long likes = (long) (stats[1] * jitter);
+
+        String link = "https://ted.com/talks/" + slug(author) + "_" + slug(title.toString());
+        return new TedTalk(title.toString(), author, pick(dates, random), views, likes, link);
+    }
+
+    private static <T> T pick(List<T> values, SplittableRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static String slug(String s) {
+        return s.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_");
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+
+    private static long parseLong(String s) {
+        String digits = s.replaceAll("[^0-9]", "");
+        return digits.isEmpty() ? 0 : Long.parseLong(digits);
+    }
+}
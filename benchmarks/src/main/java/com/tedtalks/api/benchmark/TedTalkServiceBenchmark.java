@@ -0,0 +1,82 @@
+package com.tedtalks.api.benchmark;
+
+import com.tedtalks.api.model.TedTalk;
+import com.tedtalks.api.service.TedTalkService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-operation latency of the TedTalkService lookups and mutations against a store
+ * pre-filled with {@code size} synthetic talks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class TedTalkServiceBenchmark {
+
+    @Param({"5000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private TedTalkService service;
+    private List<TedTalk> talks;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        talks = new TalkDataGenerator().generate(size, 42);
+        service = new TedTalkService();
+        for (int from = 0; from < talks.size(); from += 10_000) {
+            service.addAll(talks.subList(from, Math.min(from + 10_000, talks.size())));
+        }
+        random = new SplittableRandom(7);
+    }
+
+    private TedTalk randomTalk() {
+        return talks.get(random.nextInt(talks.size()));
+    }
+
+    @Benchmark
+    public Optional<TedTalk> findByTitle() {
+        return service.findByTitle(randomTalk().getTitle());
+    }
+
+    @Benchmark
+    public List<TedTalk> getTedTalksByYear() {
+        return service.getTedTalksByYear(2006 + random.nextInt(17));
+    }
+
+    @Benchmark
+    public boolean update() {
+        TedTalk t = randomTalk();
+        return service.update(t.getTitle(), new TedTalk(null, null, null, random.nextInt(5_000_000), random.nextInt(150_000), null));
+    }
+
+    /**
+     * Deletes a talk and adds it back, so the store keeps its size across invocations.
+     */
+    @Benchmark
+    public boolean deleteAndAdd() {
+        TedTalk t = randomTalk();
+        boolean deleted = service.delete(t.getTitle());
+        service.add(t);
+        return deleted;
+    }
+}
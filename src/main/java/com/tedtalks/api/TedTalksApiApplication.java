@@ -2,8 +2,10 @@ package com.tedtalks.api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TedTalksApiApplication {
     public static void main(String[] args) {
         SpringApplication.run(TedTalksApiApplication.class, args);
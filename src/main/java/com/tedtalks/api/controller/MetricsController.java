@@ -0,0 +1,32 @@
+package com.tedtalks.api.controller;
+
+import com.tedtalks.api.metrics.MetricRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes the in-process metrics for Prometheus to scrape.
+ *
+ * <ul>
+ *     <li>GET /metrics - Latency histograms, counters and gauges in the Prometheus text format</li>
+ * </ul>
+ */
+@RestController
+public class MetricsController {
+
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    /**
+     * Renders all registered metrics.
+     *
+     * @return the metrics in the Prometheus text exposition format
+     */
+    @GetMapping(value = "/metrics", produces = PROMETHEUS_TEXT)
+    public String metrics() {
+        return metricRegistry.scrape();
+    }
+}
@@ -1,14 +1,57 @@
 package com.tedtalks.api.controller;
 
+import com.tedtalks.api.model.BatchOperation;
+import com.tedtalks.api.model.BatchReport;
+import com.tedtalks.api.model.ImportJobStatus;
+import com.tedtalks.api.model.ImportReport;
+import com.tedtalks.api.model.SearchHit;
+import com.tedtalks.api.model.SpeakerStats;
+import com.tedtalks.api.model.TalkDistribution;
+import com.tedtalks.api.model.TalkPage;
+import com.tedtalks.api.model.TalkStats;
+import com.tedtalks.api.model.TalkTrend;
 import com.tedtalks.api.model.TedTalk;
+import com.tedtalks.api.repository.TalkSnapshot;
+import com.tedtalks.api.service.ChangeStreamService;
+import com.tedtalks.api.service.ImportJobService;
 import com.tedtalks.api.service.SpeakerAnalysisService;
+import com.tedtalks.api.service.TalkPersistence;
 import com.tedtalks.api.service.TedTalkService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
 
 /**
  * REST controller for managing TedTalk resources.
@@ -20,14 +63,30 @@ import java.util.Objects;
  * </p>
  *
  * <ul>
- *     <li>GET /             - Retrieve all TedTalks</li>
- *     <li>GET /analysis     - Retrieve top N speaker titles</li>
- *     <li>GET /tedTalkPerYear?year=YEAR - Retrieve top speaker for a given year</li>
+ *     <li>GET /             - Retrieve all TedTalks (streamed as NDJSON for Accept: application/x-ndjson)</li>
+ *     <li>GET /page?limit=N&amp;cursor=CURSOR - Retrieve TedTalks one page at a time</li>
+ *     <li>GET /analysis?topNumber=N&amp;score=EXPR - Retrieve top N speaker titles, optionally by a custom score</li>
+ *     <li>GET /tedTalkPerYear?year=YEAR&amp;score=EXPR - Retrieve top speaker for a given year, optionally by a custom score</li>
+ *     <li>GET /speakers?topNumber=N - Retrieve the top N speakers by total influence</li>
+ *     <li>GET /speakers/{author} - Retrieve the aggregated figures of one speaker</li>
+ *     <li>GET /stats?year=YEAR&amp;author=AUTHOR - Retrieve view, like and influence totals</li>
+ *     <li>GET /distribution?year=YEAR&amp;month=MONTH&amp;q=0.5,0.99 - Retrieve view/like percentiles and distinct speakers</li>
+ *     <li>GET /byMonth?from=YYYY-MM&amp;to=YYYY-MM - Retrieve TedTalks within a month range</li>
+ *     <li>GET /trend?from=YYYY-MM&amp;to=YYYY-MM&amp;window=N - Retrieve monthly views/likes with moving averages and growth</li>
+ *     <li>GET /range?field=views|likes&amp;min=X&amp;max=Y&amp;order=asc|desc&amp;limit=N - Retrieve TedTalks within a views or likes range</li>
  *     <li>GET /getByTitle?title=TITLE - Retrieve a TedTalk by title</li>
+ *     <li>GET /search?q=KEYWORDS&amp;limit=N&amp;weighted=BOOL - Search TedTalks by title keywords</li>
  *     <li>POST /            - Add a new TedTalk</li>
  *     <li>PUT /{title}      - Update a TedTalk by title</li>
  *     <li>DELETE /{title}   - Delete a TedTalk by title</li>
- *     <li>POST /import      - To Import TedTalk data CSV file </li>
+ *     <li>POST /batch       - Apply a batch of adds, updates and deletes</li>
+ *     <li>POST /import      - To Import TedTalk data from a CSV/NDJSON file or the request body, optionally gzipped</li>
+ *     <li>POST /imports?path=PATH - Start a background import of a CSV file</li>
+ *     <li>GET /imports      - List background imports</li>
+ *     <li>GET /imports/{id} - Retrieve the progress of a background import</li>
+ *     <li>DELETE /imports/{id} - Cancel a background import</li>
+ *     <li>GET /changes?after=SEQ&amp;batch=N - Follow every add, update, delete and import as server-sent events</li>
+ *     <li>POST /snapshot    - Write the talks to the configured binary snapshot file</li>
  *
  * </ul>
  *
@@ -38,43 +97,239 @@ import java.util.Objects;
 @RequestMapping("/tedTalks")
 public class TedTalkController {
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
+    /** Number of talks written between two flushes of a streamed response. */
+    private static final int NDJSON_FLUSH_INTERVAL = 1000;
+
     @Autowired
     private TedTalkService service;
 
     @Autowired
     private SpeakerAnalysisService speakerAnalysisService;
 
+    @Autowired
+    private TalkPersistence talkPersistence;
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private ChangeStreamService changeStreamService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Retrieves all TedTalk objects.
      *
      * @return a list of all TedTalks
      */
-    @GetMapping
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public List<TedTalk> getAll() {
         return service.getAll();
     }
 
+    /**
+     * Streams all TedTalk objects as newline-delimited JSON, one talk per line.
+     * Talks are written straight from a store snapshot and flushed in chunks,
+     * so memory use does not depend on the number of talks.
+     *
+     * @return the streaming response body
+     */
+    @GetMapping(produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        List<TedTalk> snapshot = service.getSnapshot().getTalks();
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writerFor(TedTalk.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                int written = 0;
+                for (TedTalk t : snapshot) {
+                    writer.writeValue(generator, t);
+                    generator.writeRaw('\n');
+                    if (++written % NDJSON_FLUSH_INTERVAL == 0) generator.flush();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_VALUE)).body(body);
+    }
+
+    /**
+     * Retrieves TedTalks one page at a time.
+     * The first request, without a cursor, pins the current data set; following
+     * requests pass the returned cursor and keep reading that same data set, so
+     * concurrent changes never cause talks to be skipped or repeated.
+     *
+     * @param limit  the page size, at most 1000
+     * @param cursor the nextCursor of the previous page, omitted for the first page
+     * @return the page of talks and the cursor of the next page
+     */
+    @GetMapping("/page")
+    public TalkPage getPage(@RequestParam(value = "limit", defaultValue = "100") int limit,
+                            @RequestParam(value = "cursor", required = false) String cursor) {
+        try {
+            return service.getPage(cursor, limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.GONE, e.getMessage());
+        }
+    }
+
     /**
      * Performs analysis to get the top N speaker titles.
+     * Example: GET /tedTalks/analysis?topNumber=10&amp;score=likes%20/%20views
      *
      * @param topNumber the number of top titles to retrieve
-     * @return a list of maps containing speaker analysis results
+     * @param score     a score expression over views, likes, year, month and age, optional;
+     *                  the influence score by default
+     * @return a list of maps containing speaker analysis results, 400 for a malformed expression
      */
     @GetMapping("/analysis")
-    public List<Map<String, String>> speakerAnalysis(@RequestParam("topNumber") int topNumber) {
-        return speakerAnalysisService.getTopNTitles(getAll(), topNumber);
+    public List<Map<String, String>> speakerAnalysis(@RequestParam("topNumber") int topNumber,
+                                                     @RequestParam(value = "score", required = false) String score) {
+        try {
+            return speakerAnalysisService.getTopNTitles(null, topNumber, score);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     /**
      * Retrieves the top speaker/talk for a specific year.
      *
-     * @param year the year to filter TedTalks by
-     * @return a map containing the top talk information for the given year
+     * @param year  the year to filter TedTalks by
+     * @param score a score expression as for {@code /analysis}, optional
+     * @return a map containing the top talk information for the given year, 400 for a
+     *         malformed expression
      */
     @GetMapping("/tedTalkPerYear")
-    public Map<String, String> speakerAnalysisPerYear(@RequestParam("year") Integer year) {
-        List<TedTalk> tedTalkListPerYear = service.getTedTalksByYear(year);
-        return speakerAnalysisService.getTopNTitles(tedTalkListPerYear, 1).get(0);
+    public Map<String, String> speakerAnalysisPerYear(@RequestParam("year") Integer year,
+                                                      @RequestParam(value = "score", required = false) String score) {
+        try {
+            return speakerAnalysisService.getTopNTitles(year, 1, score).get(0);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the speaker leaderboard, ordered by the total influence of each
+     * speaker's talks.
+     *
+     * @param topNumber the number of speakers to retrieve
+     * @return per-speaker talk count, totals, mean influence and best talk
+     */
+    @GetMapping("/speakers")
+    public List<SpeakerStats> speakerLeaderboard(@RequestParam(value = "topNumber", defaultValue = "10") int topNumber) {
+        return speakerAnalysisService.getSpeakerLeaderboard(topNumber);
+    }
+
+    /**
+     * Retrieves the aggregated figures of one speaker.
+     *
+     * @param author the exact name of the speaker
+     * @return the speaker's figures, or {@code null} if the speaker has no talks
+     */
+    @GetMapping("/speakers/{author}")
+    public SpeakerStats speaker(@PathVariable("author") String author) {
+        return speakerAnalysisService.getSpeakerStats(author);
+    }
+
+    /**
+     * Retrieves the number of talks, total views and likes and the average influence
+     * score, optionally restricted to one year and/or one author.
+     *
+     * @param year   the year to restrict to, optional
+     * @param author the author to restrict to, optional
+     * @return the aggregated statistics
+     */
+    @GetMapping("/stats")
+    public TalkStats stats(@RequestParam(value = "year", required = false) Integer year,
+                           @RequestParam(value = "author", required = false) String author) {
+        return speakerAnalysisService.getStats(year, author);
+    }
+
+    /**
+     * Retrieves estimated percentiles of views and likes and the estimated number of
+     * distinct speakers, over all talks, one year or one month. Percentiles are within 1%
+     * of the exact value and the speaker count within a few percent.
+     *
+     * @param year      the year to restrict to, optional
+     * @param month     the month 1-12 to restrict to, optional and only with a year
+     * @param quantiles the quantiles to estimate, each between 0 and 1
+     * @return the count, percentiles and distinct speakers, 400 for invalid parameters
+     */
+    @GetMapping("/distribution")
+    public TalkDistribution distribution(@RequestParam(value = "year", required = false) Integer year,
+                                         @RequestParam(value = "month", required = false) Integer month,
+                                         @RequestParam(value = "q", defaultValue = "0.5,0.9,0.99") double[] quantiles) {
+        try {
+            return speakerAnalysisService.getDistribution(year, month, quantiles);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the views and likes of every month between two months, both inclusive,
+     * with moving averages and the growth from the first month to the last.
+     * Example: GET /tedTalks/trend?from=2019-01&amp;to=2021-12&amp;window=3
+     *
+     * @param from   the first month, formatted as {@code YYYY-MM}
+     * @param to     the last month, formatted as {@code YYYY-MM}
+     * @param window the number of months each moving average covers
+     * @return the range totals and monthly figures, 400 for an invalid range or window
+     */
+    @GetMapping("/trend")
+    public TalkTrend trend(@RequestParam("from") YearMonth from, @RequestParam("to") YearMonth to,
+                           @RequestParam(value = "window", defaultValue = "3") int window) {
+        try {
+            return speakerAnalysisService.getTrend(from, to, window);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the TedTalks held between two months, both inclusive.
+     *
+     * @param from the first month, formatted as {@code YYYY-MM}
+     * @param to   the last month, formatted as {@code YYYY-MM}
+     * @return the matching TedTalks ordered by month
+     */
+    @GetMapping("/byMonth")
+    public List<TedTalk> getByMonth(@RequestParam("from") YearMonth from, @RequestParam("to") YearMonth to) {
+        return service.getTedTalksBetween(from, to);
+    }
+
+    /**
+     * Retrieves the TedTalks whose views or likes lie within a range, sorted by that field.
+     * Example: GET /tedTalks/range?field=likes&amp;min=100000&amp;order=desc&amp;limit=10
+     *
+     * @param field the field to filter and sort by, views or likes
+     * @param min   the lowest value, inclusive, 0 if omitted
+     * @param max   the highest value, inclusive, unbounded if omitted
+     * @param order asc or desc
+     * @param limit the maximum number of talks, at most 1000
+     * @return the matching TedTalks, 400 for an unknown field or order
+     */
+    @GetMapping("/range")
+    public List<TedTalk> getByRange(@RequestParam("field") String field,
+                                    @RequestParam(value = "min", defaultValue = "0") long min,
+                                    @RequestParam(value = "max", defaultValue = "" + Long.MAX_VALUE) long max,
+                                    @RequestParam(value = "order", defaultValue = "asc") String order,
+                                    @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (!order.equals("asc") && !order.equals("desc")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "order must be asc or desc");
+        }
+        try {
+            return service.getTedTalksInRange(field, min, max, order.equals("desc"), limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     /**
@@ -88,6 +343,21 @@ public class TedTalkController {
         return service.findByTitle(title).orElse(null);
     }
 
+    /**
+     * Searches TedTalks by keywords in their title.
+     *
+     * @param query    the keywords, e.g. {@code climate leadership}
+     * @param limit    the maximum number of results
+     * @param weighted whether to favour talks with a higher influence score
+     * @return the matching talks with their relevance score, best first
+     */
+    @GetMapping("/search")
+    public List<SearchHit> search(@RequestParam("q") String query,
+                                  @RequestParam(value = "limit", defaultValue = "10") int limit,
+                                  @RequestParam(value = "weighted", defaultValue = "false") boolean weighted) {
+        return service.search(query, limit, weighted);
+    }
+
     /**
      * Adds a new TedTalk to the system.
      *
@@ -125,24 +395,220 @@ public class TedTalkController {
         return ok ? "Deleted" : "Not found";
     }
 
+    /**
+     * Applies a batch of adds, updates and deletes in one step, e.g.
+     * {@code [{"op":"add","talk":{...}},{"op":"update","title":"T","talk":{...}},{"op":"delete","title":"T"}]}.
+     * The body is either a JSON array or newline-delimited JSON with one entry per line.
+     * All changes become visible together, so the entries are parsed into memory before
+     * any is applied; a batch holds at most {@value TedTalkService#MAX_BATCH_SIZE} entries
+     * and reading stops once a body exceeds that.
+     *
+     * @param body the request body
+     * @return one result per entry in request order, 400 if the body is not valid JSON or
+     *         holds too many entries
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON_VALUE})
+    public BatchReport batch(InputStream body) {
+        List<BatchOperation> operations = new ArrayList<>();
+        try (MappingIterator<BatchOperation> entries = objectMapper.readerFor(BatchOperation.class).readValues(body)) {
+            // one entry past the limit is enough for applyBatch to reject the batch
+            while (operations.size() <= TedTalkService.MAX_BATCH_SIZE && entries.hasNextValue()) {
+                operations.add(entries.nextValue());
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed batch: " + e.getMessage());
+        }
+        try {
+            return service.applyBatch(operations);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 
     /**
-     * Import CSV file located on server filesystem (path parameter).
-     * Example: POST /api/talks/import?path=/path/to/file.csv
+     * Imports talks, either from a file located on the server filesystem (path parameter)
+     * or from the request body.
+     * Example: POST /tedTalks/import?path=/path/to/file.csv
      * Also supports importing the packaged resource 'data.csv' by passing path=classpath:data.csv
+     * <p>
+     * Without a path the body is imported as it arrives, so an upload of any size needs
+     * neither a temporary file nor memory beyond two batches. A body sent as
+     * {@code application/x-ndjson} is read as one JSON talk per line, any other as CSV.
+     * Files named *.ndjson or *.jsonl are read as NDJSON. Gzip-compressed bodies and files
+     * are recognized by their content and decompressed on the fly.
+     * </p>
+     * <p>
+     * Rows are upserted by title and rows identical to the stored talk are skipped, so
+     * importing the same dump again changes nothing. With removeMissing=true the input is
+     * taken as the full data set and stored talks it does not contain are deleted.
+     * </p>
+     *
+     * @return a summary of the import; 400 if the path or the data is malformed, 404 if
+     * the file does not exist, 500 if it cannot be read
      */
     @PostMapping("/import")
-    public String importCsv(@RequestParam("path") String path) {
+    public String importCsv(@RequestParam(value = "path", required = false) String path,
+                            @RequestParam(value = "removeMissing", defaultValue = "false") boolean removeMissing,
+                            HttpServletRequest request) {
         try {
-            String actualPath = path;
-            if (path.startsWith("classpath:")) {
-                String resource = path.substring("classpath:".length());
-                actualPath = new java.io.File(Objects.requireNonNull(getClass().getClassLoader().getResource(resource)).getFile()).getAbsolutePath();
+            ImportReport report;
+            String source;
+            if (path == null || path.isEmpty()) {
+                source = "request body";
+                report = importStream(request.getInputStream(), isNdjson(request.getContentType()), removeMissing);
+            } else {
+                source = path;
+                report = importStream(openCsv(path), isNdjsonFile(path), removeMissing);
             }
-            int imported = service.importFromCsv(actualPath);
-            return "Imported " + imported + " records from " + path;
+            return "Imported " + report.getImported() + " records from " + source
+                    + " (" + report.getInserted() + " inserted, " + report.getUpdated() + " updated, "
+                    + report.getUnchanged() + " unchanged, " + report.getRemoved() + " removed, "
+                    + report.getRejected() + " rejected, " + report.getRowsPerSecond() + " rows/s)";
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No such file: " + path);
+        } catch (IllegalArgumentException | ZipException | EOFException e) {
+            // EOF here means a truncated gzip stream
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Import failed: " + e.getMessage());
+        } catch (IOException | UncheckedIOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Import failed: " + e.getMessage());
+        }
+    }
+
+    private ImportReport importStream(InputStream in, boolean ndjson, boolean removeMissing) throws IOException {
+        InputStreamReader reader = new InputStreamReader(decompress(in), StandardCharsets.UTF_8);
+        return ndjson ? service.importFromNdjson(reader, removeMissing) : service.importFromCsv(reader, removeMissing);
+    }
+
+    private static boolean isNdjson(String contentType) {
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(NDJSON_VALUE);
+    }
+
+    private static boolean isNdjsonFile(String path) {
+        String name = path.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl");
+    }
+
+    /**
+     * Wraps a stream that starts with the gzip magic bytes into a decompressing stream.
+     */
+    private static InputStream decompress(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, 1 << 16);
+        buffered.mark(2);
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        buffered.reset();
+        return b1 == 0x1f && b2 == 0x8b ? new GZIPInputStream(buffered, 1 << 16) : buffered;
+    }
+
+    /**
+     * Starts importing a CSV or NDJSON file in the background and returns at once.
+     * The file is read as by {@link #importCsv}. Poll the returned job for progress;
+     * path=classpath:data.csv imports the packaged data.
+     *
+     * @param path the server-side path of the file
+     * @return 202 with the queued job, or 429 if too many imports are waiting
+     */
+    @PostMapping("/imports")
+    public ResponseEntity<ImportJobStatus> submitImport(@RequestParam("path") String path) {
+        try {
+            ImportJobStatus job = importJobService.submit(path, isNdjsonFile(path), () -> decompress(openCsv(path)));
+            return ResponseEntity.accepted().header("Location", "/tedTalks/imports/" + job.getId()).body(job);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many imports queued, retry later");
+        }
+    }
+
+    /**
+     * Lists the recent background imports, oldest first.
+     */
+    @GetMapping("/imports")
+    public List<ImportJobStatus> importJobs() {
+        return importJobService.list();
+    }
+
+    /**
+     * Retrieves the state and progress of a background import: rows read, imported
+     * and rejected so far, and the rate.
+     *
+     * @param id the job id returned when the import was submitted
+     * @return the job status, 404 if the job is unknown
+     */
+    @GetMapping("/imports/{id}")
+    public ImportJobStatus importJob(@PathVariable("id") String id) {
+        return importJobService.get(id).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown import " + id));
+    }
+
+    /**
+     * Cancels a background import. A running import stops after its current batch;
+     * talks it already stored are kept.
+     *
+     * @param id the job id
+     * @return the job status, 404 if the job is unknown
+     */
+    @DeleteMapping("/imports/{id}")
+    public ImportJobStatus cancelImport(@PathVariable("id") String id) {
+        return importJobService.cancel(id).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown import " + id));
+    }
+
+    /**
+     * Opens a classpath resource or a file.
+     *
+     * @throws FileNotFoundException    if the resource does not exist
+     * @throws NoSuchFileException      if the file does not exist
+     * @throws IllegalArgumentException if the path is invalid or names a directory
+     */
+    private InputStream openCsv(String path) throws IOException {
+        if (path.startsWith("classpath:")) {
+            String resource = path.substring("classpath:".length());
+            InputStream in = getClass().getClassLoader().getResourceAsStream(resource);
+            if (in == null) throw new FileNotFoundException(path);
+            return in;
+        }
+        Path file = Paths.get(path);
+        if (Files.isDirectory(file)) throw new IllegalArgumentException("Not a file: " + path);
+        return Files.newInputStream(file);
+    }
+
+    /**
+     * Streams every change to the stored talks as server-sent events, in order.
+     * Each {@code changes} event holds a JSON array of consecutive changes and has the
+     * sequence number of the last one as its id; a {@code reset} event means changes
+     * were missed and the client should reload the talks and subscribe again after the
+     * sequence number it carries.
+     * Example: curl -N http://localhost:8080/tedTalks/changes?after=0
+     *
+     * @param after       the last sequence number already seen; without it only new changes are sent
+     * @param lastEventId sent by reconnecting EventSource clients, takes precedence over after
+     * @param batch       the maximum number of changes per event
+     * @return the event stream, 400 for an invalid batch size, 429 if too many clients are subscribed
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestParam(value = "after", required = false) Long after,
+                              @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                              @RequestParam(value = "batch", defaultValue = "500") int batch) {
+        try {
+            return changeStreamService.subscribe(lastEventId != null ? lastEventId : after, batch);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes all TedTalks to the snapshot file configured with tedtalks.snapshot.path,
+     * which is loaded again on the next start.
+     */
+    @PostMapping("/snapshot")
+    public String snapshot() {
+        try {
+            TalkSnapshot snapshot = talkPersistence.save();
+            return "Wrote " + snapshot.size() + " records to " + talkPersistence.file();
         } catch (Exception e) {
-            return "Import failed: " + e.getMessage();
+            return "Snapshot failed: " + e.getMessage();
         }
     }
 }
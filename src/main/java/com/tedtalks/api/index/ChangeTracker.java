@@ -0,0 +1,52 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.TedTalk;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts changes to the talks, overall and per year, for tagging derived results.
+ * <p>
+ * A result computed after reading {@link #version(int)} for a year stays valid as long
+ * as that version is unchanged, whatever happens to other years. TedTalkService notifies
+ * this tracker after all other indexes, so a reader that sees a new version also sees
+ * the indexes in the state that version stands for.
+ * </p>
+ */
+public class ChangeTracker implements TalkIndex {
+
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Integer, AtomicLong> yearVersions = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(TedTalk talk) {
+        changed(talk);
+    }
+
+    @Override
+    public void remove(TedTalk talk) {
+        changed(talk);
+    }
+
+    /**
+     * Returns the number of changes to any talk.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Returns the number of changes to talks of the given year, see {@link TedTalk#getYear()}.
+     */
+    public long version(int year) {
+        AtomicLong v = yearVersions.get(year);
+        return v == null ? 0 : v.get();
+    }
+
+    private void changed(TedTalk talk) {
+        yearVersions.computeIfAbsent(talk.getYear(), y -> new AtomicLong()).incrementAndGet();
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,79 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.TalkDates;
+import com.tedtalks.api.model.TedTalk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Buckets talks by the year and month parsed from their date.
+ * <p>
+ * Year buckets answer {@code getTedTalksByYear}; month buckets are kept in an ordered
+ * map keyed by {@link TalkDates#epochMonth(int, int)} so that a month range only visits
+ * the buckets inside the range. Talks whose date carries a year but no month are only
+ * present in the year bucket; talks with an unparseable date are in neither.
+ * </p>
+ */
+public class DateIndex implements TalkIndex {
+
+    private final Map<Integer, Set<TedTalk>> byYear = new ConcurrentHashMap<>();
+    private final NavigableMap<Integer, Set<TedTalk>> byMonth = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void add(TedTalk talk) {
+        int year = talk.getYear();
+        if (year == 0) return;
+        byYear.computeIfAbsent(year, y -> ConcurrentHashMap.newKeySet()).add(talk);
+        int month = talk.getMonth();
+        if (month != 0) {
+            byMonth.computeIfAbsent(TalkDates.epochMonth(year, month), m -> ConcurrentHashMap.newKeySet()).add(talk);
+        }
+    }
+
+    @Override
+    public void remove(TedTalk talk) {
+        int year = talk.getYear();
+        if (year == 0) return;
+        Set<TedTalk> yearBucket = byYear.get(year);
+        if (yearBucket != null) yearBucket.remove(talk);
+        int month = talk.getMonth();
+        if (month != 0) {
+            Set<TedTalk> monthBucket = byMonth.get(TalkDates.epochMonth(year, month));
+            if (monthBucket != null) monthBucket.remove(talk);
+        }
+    }
+
+    /**
+     * Returns the talks of the given year.
+     *
+     * @param year the four digit year
+     * @return the talks of that year, empty if there are none
+     */
+    public List<TedTalk> byYear(int year) {
+        Set<TedTalk> bucket = byYear.get(year);
+        return bucket == null ? Collections.emptyList() : new ArrayList<>(bucket);
+    }
+
+    /**
+     * Returns the talks whose month lies in the given inclusive range.
+     *
+     * @param fromEpochMonth first month of the range, see {@link TalkDates#epochMonth(int, int)}
+     * @param toEpochMonth   last month of the range, inclusive
+     * @return the matching talks, ordered by month
+     */
+    public List<TedTalk> between(int fromEpochMonth, int toEpochMonth) {
+        List<TedTalk> result = new ArrayList<>();
+        if (fromEpochMonth > toEpochMonth) return result;
+        for (Set<TedTalk> bucket : byMonth.subMap(fromEpochMonth, true, toEpochMonth, true).values()) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+}
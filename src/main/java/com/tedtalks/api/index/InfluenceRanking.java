@@ -0,0 +1,84 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.TedTalk;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live ranking of all stored talks by influence score, highest first.
+ * <p>
+ * Every stored talk has exactly one entry, so talks sharing a title are never merged.
+ * Ties are broken by insertion order. Reading the top N walks the head of a skip list
+ * and costs O(N), independent of the number of stored talks.
+ * </p>
+ */
+public class InfluenceRanking implements TalkIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingDouble((Entry e) -> e.score).reversed()
+            .thenComparingLong(e -> e.sequence);
+
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<TedTalk, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Computes the influence score of a talk:
+     * score = likes + (views / 1000)
+     *
+     * @param talk the talk to score
+     * @return the influence score
+     */
+    public static double scoreOf(TedTalk talk) {
+        return talk.getLikes() + (talk.getViews() / 1000.0);
+    }
+
+    @Override
+    public void add(TedTalk talk) {
+        Entry entry = new Entry(talk, scoreOf(talk), sequence.incrementAndGet());
+        Entry previous = entries.put(talk, entry);
+        if (previous != null) ranking.remove(previous);
+        ranking.add(entry);
+    }
+
+    @Override
+    public void remove(TedTalk talk) {
+        Entry entry = entries.remove(talk);
+        if (entry != null) ranking.remove(entry);
+    }
+
+    /**
+     * Returns the N most influential talks, highest score first.
+     *
+     * @param n the maximum number of talks to return
+     * @return up to N talks in ranking order
+     */
+    public List<TedTalk> top(int n) {
+        List<TedTalk> result = new ArrayList<>(Math.max(0, Math.min(n, entries.size())));
+        Iterator<Entry> it = ranking.iterator();
+        while (result.size() < n && it.hasNext()) {
+            result.add(it.next().talk);
+        }
+        return result;
+    }
+
+    private static final class Entry {
+        private final TedTalk talk;
+        private final double score;
+        private final long sequence;
+
+        private Entry(TedTalk talk, double score, long sequence) {
+            this.talk = talk;
+            this.score = score;
+            this.sequence = sequence;
+        }
+    }
+}
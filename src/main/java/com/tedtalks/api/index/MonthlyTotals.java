@@ -0,0 +1,173 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.MonthlyTotal;
+import com.tedtalks.api.model.TalkDates;
+import com.tedtalks.api.model.TalkStats;
+import com.tedtalks.api.model.TedTalk;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Talk count, views and likes per month, kept up to date as talks are stored and dropped.
+ * <p>
+ * The monthly figures are held in plain arrays indexed by month, each paired with a
+ * Fenwick tree over the same months. A change touches O(log m) tree nodes and the totals
+ * of any month range are the difference of two prefix sums, also O(log m), where m is the
+ * number of months covered. The covered span starts at the first stored month and doubles
+ * whenever a talk falls outside it, rebuilding the trees in O(m). Talks whose date has no
+ * month are not counted.
+ * </p>
+ */
+public class MonthlyTotals implements TalkIndex {
+
+    private static final int INITIAL_MONTHS = 12 * 64;
+
+    /** Epoch month of slot 0, see {@link TalkDates#epochMonth(int, int)}. */
+    private int base;
+    private long[] counts = new long[0];
+    private long[] views = new long[0];
+    private long[] likes = new long[0];
+    private Fenwick countTree = new Fenwick(counts);
+    private Fenwick viewTree = new Fenwick(views);
+    private Fenwick likeTree = new Fenwick(likes);
+
+    @Override
+    public synchronized void add(TedTalk talk) {
+        update(talk, 1);
+    }
+
+    @Override
+    public synchronized void remove(TedTalk talk) {
+        update(talk, -1);
+    }
+
+    /**
+     * Returns the totals of the talks between two months, both inclusive.
+     *
+     * @param from the first epoch month
+     * @param to   the last epoch month
+     */
+    public synchronized TalkStats between(int from, int to) {
+        int lo = Math.max(from, base) - base;
+        int hi = Math.min(to, base + counts.length - 1) - base;
+        if (lo > hi) return new TalkStats(0, 0, 0);
+        return new TalkStats(countTree.sum(lo, hi), viewTree.sum(lo, hi), likeTree.sum(lo, hi));
+    }
+
+    /**
+     * Returns the figures of every month between two months, both inclusive, each with
+     * the mean views and likes per month over the window of months ending at it.
+     * Costs O(log m) for the first window plus O(1) per month.
+     *
+     * @param from   the first epoch month
+     * @param to     the last epoch month
+     * @param window the number of months averaged, at least 1
+     */
+    public synchronized List<MonthlyTotal> series(int from, int to, int window) {
+        List<MonthlyTotal> months = new ArrayList<>(Math.max(0, to - from + 1));
+        if (from > to) return months;
+        // running sums over the window ending before the first month; the loop adds the
+        // current month and drops the one that falls out of the window
+        TalkStats before = between(from - window, from - 1);
+        long windowViews = before.getTotalViews();
+        long windowLikes = before.getTotalLikes();
+        for (int m = from; m <= to; m++) {
+            windowViews += at(views, m) - at(views, m - window);
+            windowLikes += at(likes, m) - at(likes, m - window);
+            months.add(new MonthlyTotal(label(m), at(counts, m), at(views, m), at(likes, m),
+                    (double) windowViews / window, (double) windowLikes / window));
+        }
+        return months;
+    }
+
+    private long at(long[] values, int month) {
+        int i = month - base;
+        return i < 0 || i >= values.length ? 0 : values[i];
+    }
+
+    private void update(TedTalk talk, int sign) {
+        if (talk.getYear() == 0 || talk.getMonth() == 0) return;
+        int i = cover(TalkDates.epochMonth(talk.getYear(), talk.getMonth()));
+        counts[i] += sign;
+        views[i] += sign * talk.getViews();
+        likes[i] += sign * talk.getLikes();
+        countTree.add(i, sign);
+        viewTree.add(i, sign * talk.getViews());
+        likeTree.add(i, sign * talk.getLikes());
+    }
+
+    /**
+     * Grows the covered span to include the given month.
+     *
+     * @return the slot of the month
+     */
+    private int cover(int month) {
+        int size = counts.length;
+        if (size == 0) {
+            base = month - month % 12 - INITIAL_MONTHS / 2;
+            size = INITIAL_MONTHS;
+        }
+        int newBase = base;
+        while (month < newBase) {
+            newBase -= size;
+            size *= 2;
+        }
+        while (month >= newBase + size) size *= 2;
+        if (newBase != base || size != counts.length) {
+            int shift = base - newBase;
+            counts = grow(counts, shift, size);
+            views = grow(views, shift, size);
+            likes = grow(likes, shift, size);
+            countTree = new Fenwick(counts);
+            viewTree = new Fenwick(views);
+            likeTree = new Fenwick(likes);
+            base = newBase;
+        }
+        return month - base;
+    }
+
+    private static long[] grow(long[] values, int shift, int size) {
+        long[] grown = new long[size];
+        System.arraycopy(values, 0, grown, shift, values.length);
+        return grown;
+    }
+
+    private static String label(int epochMonth) {
+        return YearMonth.of(Math.floorDiv(epochMonth, 12), Math.floorMod(epochMonth, 12) + 1).toString();
+    }
+
+    /**
+     * Binary indexed tree of prefix sums over a fixed number of slots.
+     */
+    private static final class Fenwick {
+
+        private final long[] tree;
+
+        /** Builds the tree over the given values in O(n). */
+        Fenwick(long[] values) {
+            tree = new long[values.length + 1];
+            for (int i = 1; i < tree.length; i++) {
+                tree[i] += values[i - 1];
+                int parent = i + (i & -i);
+                if (parent < tree.length) tree[parent] += tree[i];
+            }
+        }
+
+        void add(int slot, long delta) {
+            for (int i = slot + 1; i < tree.length; i += i & -i) tree[i] += delta;
+        }
+
+        /** Sum of slots 0 to slot, inclusive. */
+        long prefix(int slot) {
+            long sum = 0;
+            for (int i = slot + 1; i > 0; i -= i & -i) sum += tree[i];
+            return sum;
+        }
+
+        long sum(int from, int to) {
+            return prefix(to) - prefix(from - 1);
+        }
+    }
+}
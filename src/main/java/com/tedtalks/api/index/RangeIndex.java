@@ -0,0 +1,89 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.TedTalk;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Stored talks sorted by one numeric field, for range queries.
+ * <p>
+ * Every stored talk has one entry ordered by the field's value, ties broken by insertion
+ * order. A query locates the lower or upper bound in the skip list in O(log n) and then
+ * walks only the returned talks, so it costs O(log n + k) for k results. An update moves
+ * the talk's entry to its new value.
+ * </p>
+ */
+public class RangeIndex implements TalkIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingLong((Entry e) -> e.value)
+            .thenComparingLong(e -> e.sequence);
+
+    private final ToLongFunction<TedTalk> field;
+    private final NavigableSet<Entry> sorted = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<TedTalk, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param field the value a talk is sorted by, e.g. {@code TedTalk::getViews}
+     */
+    public RangeIndex(ToLongFunction<TedTalk> field) {
+        this.field = field;
+    }
+
+    @Override
+    public void add(TedTalk talk) {
+        Entry entry = new Entry(talk, field.applyAsLong(talk), sequence.incrementAndGet());
+        Entry previous = entries.put(talk, entry);
+        if (previous != null) sorted.remove(previous);
+        sorted.add(entry);
+    }
+
+    @Override
+    public void remove(TedTalk talk) {
+        Entry entry = entries.remove(talk);
+        if (entry != null) sorted.remove(entry);
+    }
+
+    /**
+     * Returns the talks whose value lies between two bounds, both inclusive.
+     *
+     * @param min        the lowest value
+     * @param max        the highest value
+     * @param descending whether to return the highest values first
+     * @param limit      the maximum number of talks to return
+     * @return up to limit talks, ordered by value
+     */
+    public List<TedTalk> range(long min, long max, boolean descending, int limit) {
+        if (min > max || limit <= 0) return new ArrayList<>();
+        NavigableSet<Entry> matching = sorted.subSet(
+                new Entry(null, min, Long.MIN_VALUE), true, new Entry(null, max, Long.MAX_VALUE), true);
+        Iterator<Entry> it = descending ? matching.descendingIterator() : matching.iterator();
+        List<TedTalk> result = new ArrayList<>(Math.min(limit, 1024));
+        while (result.size() < limit && it.hasNext()) {
+            result.add(it.next().talk);
+        }
+        return result;
+    }
+
+    private static final class Entry {
+        private final TedTalk talk;
+        private final long value;
+        private final long sequence;
+
+        private Entry(TedTalk talk, long value, long sequence) {
+            this.talk = talk;
+            this.value = value;
+            this.sequence = sequence;
+        }
+    }
+}
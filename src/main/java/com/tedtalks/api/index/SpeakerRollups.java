@@ -0,0 +1,143 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.SpeakerStats;
+import com.tedtalks.api.model.TedTalk;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Per-speaker aggregates kept up to date as talks are stored and dropped.
+ * <p>
+ * Each change only touches the rollup of the talk's author: counts and totals are adjusted
+ * and an immutable {@link SpeakerStats} is republished. A leaderboard of all speakers ordered
+ * by total influence is maintained alongside, so reading one speaker is O(1) and reading the
+ * top N speakers is O(N). Talks without an author are not rolled up.
+ * </p>
+ */
+public class SpeakerRollups implements TalkIndex {
+
+    private static final Comparator<SpeakerStats> LEADERBOARD_ORDER = Comparator
+            .comparingDouble(SpeakerStats::getTotalInfluence).reversed()
+            .thenComparing(SpeakerStats::getAuthor);
+
+    private final Map<String, Rollup> rollups = new ConcurrentHashMap<>();
+    private final Map<String, SpeakerStats> published = new ConcurrentHashMap<>();
+    private final NavigableSet<SpeakerStats> leaderboard = new ConcurrentSkipListSet<>(LEADERBOARD_ORDER);
+
+    @Override
+    public synchronized void add(TedTalk talk) {
+        String author = talk.getAuthor();
+        if (author == null || author.isBlank()) return;
+        Rollup rollup = rollups.computeIfAbsent(author, a -> new Rollup());
+        rollup.add(talk);
+        publish(author, rollup);
+    }
+
+    @Override
+    public synchronized void remove(TedTalk talk) {
+        String author = talk.getAuthor();
+        if (author == null) return;
+        Rollup rollup = rollups.get(author);
+        if (rollup == null || !rollup.remove(talk)) return;
+        if (rollup.talks.isEmpty()) {
+            rollups.remove(author);
+            SpeakerStats previous = published.remove(author);
+            if (previous != null) leaderboard.remove(previous);
+        } else {
+            publish(author, rollup);
+        }
+    }
+
+    /**
+     * Returns the rollup of one speaker.
+     *
+     * @param author the exact author name
+     * @return the speaker's figures, or null if the speaker has no stored talks
+     */
+    public SpeakerStats get(String author) {
+        return author == null ? null : published.get(author);
+    }
+
+    /**
+     * Returns the number of speakers with at least one stored talk.
+     */
+    public int size() {
+        return published.size();
+    }
+
+    /**
+     * Returns the N speakers with the highest total influence.
+     *
+     * @param n the maximum number of speakers
+     * @return up to N speakers, highest total influence first
+     */
+    public List<SpeakerStats> top(int n) {
+        List<SpeakerStats> result = new ArrayList<>(Math.max(0, Math.min(n, published.size())));
+        Iterator<SpeakerStats> it = leaderboard.iterator();
+        while (result.size() < n && it.hasNext()) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    private void publish(String author, Rollup rollup) {
+        SpeakerStats stats = rollup.toStats(author);
+        SpeakerStats previous = published.put(author, stats);
+        if (previous != null) leaderboard.remove(previous);
+        leaderboard.add(stats);
+    }
+
+    /**
+     * Mutable running totals of one speaker, only touched while holding the rollups lock.
+     */
+    private static final class Rollup {
+        private final List<TedTalk> talks = new ArrayList<>(2);
+        private long views;
+        private long likes;
+        private TedTalk best;
+
+        private void add(TedTalk talk) {
+            talks.add(talk);
+            views += talk.getViews();
+            likes += talk.getLikes();
+            if (best == null || InfluenceRanking.scoreOf(talk) > InfluenceRanking.scoreOf(best)) best = talk;
+        }
+
+        private boolean remove(TedTalk talk) {
+            int i = indexOf(talk);
+            if (i < 0) return false;
+            talks.set(i, talks.get(talks.size() - 1));
+            talks.remove(talks.size() - 1);
+            views -= talk.getViews();
+            likes -= talk.getLikes();
+            if (best == talk) {
+                best = null;
+                for (TedTalk t : talks) {
+                    if (best == null || InfluenceRanking.scoreOf(t) > InfluenceRanking.scoreOf(best)) best = t;
+                }
+            }
+            return true;
+        }
+
+        private int indexOf(TedTalk talk) {
+            for (int i = 0; i < talks.size(); i++) {
+                if (talks.get(i) == talk) return i;
+            }
+            return -1;
+        }
+
+        private SpeakerStats toStats(String author) {
+            // likes + views / 1000 summed over all talks, computed from the exact integer totals
+            double influence = likes + views / 1000.0;
+            return new SpeakerStats(author, talks.size(), views, likes, influence,
+                    best == null ? null : best.getTitle());
+        }
+    }
+}
@@ -0,0 +1,659 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.TalkDates;
+import com.tedtalks.api.model.TalkStats;
+import com.tedtalks.api.model.TedTalk;
+import com.tedtalks.api.score.ScoreExpression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Column-oriented copy of the numeric and categorical talk fields used by analytics.
+ * <p>
+ * Views and likes are kept in {@code long[]} columns, the author as an int code into a
+ * dictionary, and the date as a year column plus an epoch-month column
+ * ({@link TalkDates#epochMonth(int, int)}, or -1 if the date has no month). Scans run as
+ * plain loops over these arrays, without boxing and without allocating per row. Each
+ * shard also keeps the rows of every year in a list of row numbers, so queries for one
+ * year only visit that year's rows. A row costs about 48 bytes in the columns and year
+ * lists plus 16 to 32 in the identity map from talk to row, so 64 to 80 bytes in total
+ * before the slack of the doubling arrays, and nothing is boxed.
+ * </p>
+ * <p>
+ * Rows are hash-partitioned by title into independent shards, one per core by default,
+ * so that scans run in parallel. Sharding does not parallelize writes: TedTalkService
+ * serializes every mutation before it reaches a shard, so a shard's lock is uncontended
+ * there and only publishes the shard's rows safely to the lock-free readers. Scans over
+ * more than {@value #PARALLEL_ROWS} rows scatter one task per shard to the common
+ * fork-join pool and gather the partial results: sums are added up, and
+ * each shard keeps its own N best rows, which are merged into the overall N best. A shard
+ * only exchanges such partial results with the rest, so shards can later be moved into
+ * separate processes without changing the merge. Every row carries an insertion sequence
+ * number, so ties are broken the same way however the rows are partitioned.
+ * </p>
+ * <p>
+ * Writers of a shard are serialized; a removed row is filled with the last row of its
+ * shard. Readers do not lock: they read the published row count first and only look at
+ * rows below it, so a scan that overlaps a write may miss or double count the rows moved
+ * by that write.
+ * </p>
+ */
+public class TalkColumns implements TalkIndex {
+
+    /** Sentinel year used by {@link #topByInfluence(int, int)} and {@link #summarize(int, String)} to select all rows. */
+    public static final int ALL_YEARS = 0;
+
+    /** Scans over fewer rows run on the calling thread. */
+    static final int PARALLEL_ROWS = 1 << 15;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Shard[] shards;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<String, Integer> authorCodes = new ConcurrentHashMap<>();
+    private volatile String[] authorNames = new String[INITIAL_CAPACITY];
+    private int authorCount;
+
+    /**
+     * Creates columns with one shard per available processor.
+     */
+    public TalkColumns() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param shards the number of shards, rounded up to a power of two
+     */
+    public TalkColumns(int shards) {
+        if (shards < 1) throw new IllegalArgumentException("shards must be at least 1: " + shards);
+        int n = 1;
+        while (n < shards) n <<= 1;
+        this.shards = new Shard[n];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard();
+        }
+    }
+
+    @Override
+    public void add(TedTalk talk) {
+        shardOf(talk).add(talk, encodeAuthor(talk.getAuthor()), sequence.incrementAndGet());
+    }
+
+    @Override
+    public void remove(TedTalk talk) {
+        shardOf(talk).remove(talk);
+    }
+
+    /** Number of rows. */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) size += shard.size;
+        return size;
+    }
+
+    /** Number of shards. */
+    public int shards() {
+        return shards.length;
+    }
+
+    /** Dictionary code of an author, or -1 if no stored talk has ever had that author. */
+    public int authorCode(String author) {
+        Integer code = author == null ? null : authorCodes.get(author);
+        return code == null ? -1 : code;
+    }
+
+    /** Author for a dictionary code. */
+    public String authorName(int code) {
+        return authorNames[code];
+    }
+
+    /**
+     * Returns the N talks with the highest influence score (likes + views / 1000),
+     * optionally restricted to one year.
+     *
+     * @param n    the maximum number of talks to return
+     * @param year the year to restrict to, or {@link #ALL_YEARS}
+     * @return up to N talks, highest score first
+     */
+    public List<TedTalk> topByInfluence(int n, int year) {
+        return merge(n, scatter(shard -> shard.topByInfluence(n, year)));
+    }
+
+    /**
+     * Merges the best rows of every shard into the overall N best.
+     */
+    private static List<TedTalk> merge(int n, List<Candidates> partial) {
+        int total = 0;
+        for (Candidates c : partial) total += c.talks.length;
+        TedTalk[] talks = new TedTalk[total];
+        TopK top = new TopK(Math.min(n, total));
+        int slot = 0;
+        for (Candidates c : partial) {
+            for (int i = 0; i < c.talks.length; i++, slot++) {
+                talks[slot] = c.talks[i];
+                top.offer(c.scores[i], c.sequences[i], slot);
+            }
+        }
+        return top.drain(talks);
+    }
+
+    /**
+     * Returns the N talks with the highest score under a custom expression, optionally
+     * restricted to one year. Talks the expression scores as not-a-number are left out.
+     *
+     * @param score         the compiled score expression
+     * @param n             the maximum number of talks to return
+     * @param year          the year to restrict to, or {@link #ALL_YEARS}
+     * @param nowEpochMonth the current month, the reference point of {@code age}
+     * @return up to N talks, highest score first
+     */
+    public List<TedTalk> topByScore(ScoreExpression score, int n, int year, int nowEpochMonth) {
+        return merge(n, scatter(shard -> shard.topByScore(score.evaluator(nowEpochMonth), n, year)));
+    }
+
+    /**
+     * Aggregates the talks of one year, or of all years, optionally for a single author.
+     *
+     * @param year   the year to restrict to, or {@link #ALL_YEARS}
+     * @param author the author to restrict to, or null for all authors
+     * @return count, totals and average influence of the matching rows
+     */
+    public TalkStats summarize(int year, String author) {
+        int authorCode = author == null ? -1 : authorCode(author);
+        if (author != null && authorCode < 0) return new TalkStats(0, 0, 0);
+        long matched = 0;
+        long views = 0;
+        long likes = 0;
+        for (long[] sums : scatter(shard -> shard.summarize(year, authorCode))) {
+            matched += sums[0];
+            views += sums[1];
+            likes += sums[2];
+        }
+        return new TalkStats(matched, views, likes);
+    }
+
+    /**
+     * Runs a task on every shard, in parallel once the columns are large enough.
+     */
+    private <R> List<R> scatter(Function<Shard, R> task) {
+        Stream<Shard> stream = Arrays.stream(shards);
+        if (shards.length > 1 && size() >= PARALLEL_ROWS) stream = stream.parallel();
+        return stream.map(task).collect(Collectors.toList());
+    }
+
+    private Shard shardOf(TedTalk talk) {
+        int h = Objects.hashCode(talk.getTitle());
+        return shards[(h ^ (h >>> 16)) & (shards.length - 1)];
+    }
+
+    private int encodeAuthor(String author) {
+        if (author == null) return -1;
+        Integer code = authorCodes.get(author);
+        if (code != null) return code;
+        synchronized (authorCodes) {
+            code = authorCodes.get(author);
+            if (code != null) return code;
+            String[] names = authorNames;
+            if (authorCount == names.length) {
+                names = Arrays.copyOf(names, names.length * 2);
+            }
+            names[authorCount] = author;
+            authorNames = names;
+            authorCodes.put(author, authorCount);
+            return authorCount++;
+        }
+    }
+
+    /**
+     * The rows of one partition.
+     */
+    private static final class Shard {
+
+        private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+        private volatile int size;
+
+        private final RowMap rows = new RowMap();
+        private final Map<Integer, YearRows> yearRows = new ConcurrentHashMap<>();
+
+        synchronized void add(TedTalk talk, int author, long sequence) {
+            if (rows.get(talk) >= 0) return;
+            int row = size;
+            Columns c = columns;
+            if (row == c.views.length) {
+                c = c.grow();
+                columns = c;
+            }
+            c.talks[row] = talk;
+            c.views[row] = talk.getViews();
+            c.likes[row] = talk.getLikes();
+            c.authors[row] = author;
+            c.years[row] = talk.getYear();
+            c.epochMonths[row] = talk.getMonth() == 0 ? -1 : TalkDates.epochMonth(talk.getYear(), talk.getMonth());
+            c.sequences[row] = sequence;
+            YearRows year = yearRows.computeIfAbsent(talk.getYear(), y -> new YearRows());
+            c.yearSlots[row] = year.size;
+            year.append(row);
+            rows.put(talk, row);
+            size = row + 1;
+        }
+
+        synchronized void remove(TedTalk talk) {
+            int row = rows.remove(talk);
+            if (row < 0) return;
+            int last = size - 1;
+            Columns c = columns;
+            YearRows year = yearRows.get(c.years[row]);
+            int moved = year.removeAt(c.yearSlots[row]);
+            c.yearSlots[moved] = c.yearSlots[row];
+            if (row != last) {
+                c.move(last, row);
+                rows.put(c.talks[row], row);
+                yearRows.get(c.years[row]).rows[c.yearSlots[row]] = row;
+            }
+            c.talks[last] = null;
+            size = last;
+        }
+
+        Candidates topByScore(ScoreExpression.Evaluator evaluator, int n, int year) {
+            int count = size;
+            Columns c = columns;
+            // a shard never holds more than its rows, however large N is
+            TopK top = new TopK(Math.min(n, count));
+            double[] scores = new double[ScoreExpression.BLOCK_SIZE];
+            long[] sequences = c.sequences;
+            if (year != ALL_YEARS) {
+                // gather the year's rows block by block into contiguous buffers
+                YearRows matching = yearRows.get(year);
+                int matchCount = matching == null ? 0 : matching.size;
+                int[] ids = matching == null ? null : matching.rows;
+                int blockSize = Math.min(ScoreExpression.BLOCK_SIZE, matchCount);
+                int[] blockRows = new int[blockSize];
+                long[] views = new long[blockSize];
+                long[] likes = new long[blockSize];
+                int[] years = new int[blockSize];
+                int[] epochMonths = new int[blockSize];
+                int i = 0;
+                while (i < matchCount) {
+                    int length = 0;
+                    for (; i < matchCount && length < blockSize; i++) {
+                        int row = ids[i];
+                        if (row >= count || c.years[row] != year) continue;
+                        blockRows[length] = row;
+                        views[length] = c.views[row];
+                        likes[length] = c.likes[row];
+                        years[length] = year;
+                        epochMonths[length] = c.epochMonths[row];
+                        length++;
+                    }
+                    evaluator.evaluate(views, likes, years, epochMonths, 0, length, scores);
+                    for (int j = 0; j < length; j++) {
+                        double score = scores[j];
+                        if (score != score) continue;
+                        long key = orderedBits(score);
+                        if (top.accepts(key)) top.offer(key, sequences[blockRows[j]], blockRows[j]);
+                    }
+                }
+                return top.drainCandidates(c.talks);
+            }
+            for (int from = 0; from < count; from += ScoreExpression.BLOCK_SIZE) {
+                int length = Math.min(ScoreExpression.BLOCK_SIZE, count - from);
+                evaluator.evaluate(c.views, c.likes, c.years, c.epochMonths, from, length, scores);
+                for (int i = 0; i < length; i++) {
+                    double score = scores[i];
+                    if (score != score) continue;
+                    long key = orderedBits(score);
+                    if (top.accepts(key)) top.offer(key, sequences[from + i], from + i);
+                }
+            }
+            return top.drainCandidates(c.talks);
+        }
+
+        Candidates topByInfluence(int n, int year) {
+            int count = size;
+            Columns c = columns;
+            TopK top = new TopK(Math.min(n, count));
+            long[] views = c.views;
+            long[] likes = c.likes;
+            int[] years = c.years;
+            long[] sequences = c.sequences;
+            if (year != ALL_YEARS) {
+                YearRows matching = yearRows.get(year);
+                int matchCount = matching == null ? 0 : matching.size;
+                int[] ids = matching == null ? null : matching.rows;
+                for (int i = 0; i < matchCount; i++) {
+                    int row = ids[i];
+                    if (row >= count || years[row] != year) continue;
+                    long score = likes[row] * 1000 + views[row];
+                    if (top.accepts(score)) top.offer(score, sequences[row], row);
+                }
+                return top.drainCandidates(c.talks);
+            }
+            for (int row = 0; row < count; row++) {
+                // likes * 1000 + views orders rows exactly like likes + views / 1000, without division
+                long score = likes[row] * 1000 + views[row];
+                if (top.accepts(score)) top.offer(score, sequences[row], row);
+            }
+            return top.drainCandidates(c.talks);
+        }
+
+        long[] summarize(int year, int authorCode) {
+            int count = size;
+            Columns c = columns;
+            long matched = 0;
+            long views = 0;
+            long likes = 0;
+            if (year != ALL_YEARS) {
+                YearRows matching = yearRows.get(year);
+                int matchCount = matching == null ? 0 : matching.size;
+                int[] ids = matching == null ? null : matching.rows;
+                for (int i = 0; i < matchCount; i++) {
+                    int row = ids[i];
+                    if (row >= count || c.years[row] != year) continue;
+                    if (authorCode >= 0 && c.authors[row] != authorCode) continue;
+                    matched++;
+                    views += c.views[row];
+                    likes += c.likes[row];
+                }
+                return new long[] {matched, views, likes};
+            }
+            for (int row = 0; row < count; row++) {
+                if (authorCode >= 0 && c.authors[row] != authorCode) continue;
+                matched++;
+                views += c.views[row];
+                likes += c.likes[row];
+            }
+            return new long[] {matched, views, likes};
+        }
+    }
+
+    /**
+     * Row number of every talk of a shard, by identity: linear probing over parallel
+     * key and row arrays, kept at most half full, with backward-shift deletion so no
+     * tombstones build up. Costs 16 to 32 bytes per row and allocates only to grow.
+     * Only used by writers.
+     */
+    private static final class RowMap {
+        private Object[] keys = new Object[INITIAL_CAPACITY * 2];
+        private int[] rows = new int[INITIAL_CAPACITY * 2];
+        private int size;
+
+        /** The row of a talk, or -1. */
+        int get(TedTalk talk) {
+            int i = indexOf(talk);
+            return keys[i] == null ? -1 : rows[i];
+        }
+
+        void put(TedTalk talk, int row) {
+            int i = indexOf(talk);
+            if (keys[i] == null) {
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                    i = indexOf(talk);
+                }
+                keys[i] = talk;
+                size++;
+            }
+            rows[i] = row;
+        }
+
+        /** Removes a talk and returns its row, or -1 if it is not mapped. */
+        int remove(TedTalk talk) {
+            int i = indexOf(talk);
+            if (keys[i] == null) return -1;
+            int row = rows[i];
+            int mask = keys.length - 1;
+            // move back later entries of the probe run that may no longer be reached
+            for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+                int home = slot(keys[j], mask);
+                boolean reachable = i <= j ? i < home && home <= j : i < home || home <= j;
+                if (!reachable) {
+                    keys[i] = keys[j];
+                    rows[i] = rows[j];
+                    i = j;
+                }
+            }
+            keys[i] = null;
+            size--;
+            return row;
+        }
+
+        private int indexOf(Object talk) {
+            int mask = keys.length - 1;
+            int i = slot(talk, mask);
+            while (keys[i] != null && keys[i] != talk) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        private static int slot(Object talk, int mask) {
+            int h = System.identityHashCode(talk) * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void grow() {
+            Object[] oldKeys = keys;
+            int[] oldRows = rows;
+            keys = new Object[oldKeys.length * 2];
+            rows = new int[oldKeys.length * 2];
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == null) continue;
+                int i = indexOf(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                rows[i] = oldRows[j];
+            }
+        }
+    }
+
+    /**
+     * Row numbers of the rows of one year within a shard, in no particular order. Each
+     * row's position in the list is kept in {@code Columns.yearSlots}, so a row is
+     * removed in O(1) by moving the last entry into its place. Readers read the size
+     * before the array and skip entries that no longer hold a row of the year.
+     */
+    private static final class YearRows {
+        private volatile int[] rows = new int[16];
+        private volatile int size;
+
+        void append(int row) {
+            int[] r = rows;
+            if (size == r.length) {
+                r = Arrays.copyOf(r, r.length * 2);
+                rows = r;
+            }
+            r[size] = row;
+            size = size + 1;
+        }
+
+        /** Removes the entry at a position and returns the row moved into it. */
+        int removeAt(int slot) {
+            int last = size - 1;
+            int moved = rows[last];
+            rows[slot] = moved;
+            size = last;
+            return moved;
+        }
+    }
+
+    private static final class Columns {
+        private final TedTalk[] talks;
+        private final long[] views;
+        private final long[] likes;
+        private final int[] authors;
+        private final int[] years;
+        private final int[] epochMonths;
+        private final long[] sequences;
+        private final int[] yearSlots;
+
+        private Columns(int capacity) {
+            this(new TedTalk[capacity], new long[capacity], new long[capacity], new int[capacity],
+                    new int[capacity], new int[capacity], new long[capacity], new int[capacity]);
+        }
+
+        private Columns(TedTalk[] talks, long[] views, long[] likes, int[] authors, int[] years, int[] epochMonths,
+                        long[] sequences, int[] yearSlots) {
+            this.talks = talks;
+            this.views = views;
+            this.likes = likes;
+            this.authors = authors;
+            this.years = years;
+            this.epochMonths = epochMonths;
+            this.sequences = sequences;
+            this.yearSlots = yearSlots;
+        }
+
+        private void move(int from, int to) {
+            talks[to] = talks[from];
+            views[to] = views[from];
+            likes[to] = likes[from];
+            authors[to] = authors[from];
+            years[to] = years[from];
+            epochMonths[to] = epochMonths[from];
+            sequences[to] = sequences[from];
+            yearSlots[to] = yearSlots[from];
+        }
+
+        private Columns grow() {
+            int capacity = views.length * 2;
+            return new Columns(Arrays.copyOf(talks, capacity), Arrays.copyOf(views, capacity),
+                    Arrays.copyOf(likes, capacity), Arrays.copyOf(authors, capacity),
+                    Arrays.copyOf(years, capacity), Arrays.copyOf(epochMonths, capacity),
+                    Arrays.copyOf(sequences, capacity), Arrays.copyOf(yearSlots, capacity));
+        }
+    }
+
+    /**
+     * Maps a double that is not NaN to a long with the same order.
+     */
+    static long orderedBits(double d) {
+        // adding 0.0 turns -0.0 into 0.0, so both compare equal
+        long bits = Double.doubleToRawLongBits(d + 0.0);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * The best rows of one shard, highest score first, as exchanged with the merge.
+     */
+    private static final class Candidates {
+        private final TedTalk[] talks;
+        private final long[] scores;
+        private final long[] sequences;
+
+        private Candidates(TedTalk[] talks, long[] scores, long[] sequences) {
+            this.talks = talks;
+            this.scores = scores;
+            this.sequences = sequences;
+        }
+    }
+
+    /**
+     * Bounded min-heap of (score, sequence, slot) triples over primitive arrays.
+     */
+    static final class TopK {
+        private final long[] scores;
+        private final long[] sequences;
+        private final int[] slots;
+        private int size;
+
+        TopK(int capacity) {
+            int n = Math.max(0, capacity);
+            scores = new long[n];
+            sequences = new long[n];
+            slots = new int[n];
+        }
+
+        /** Cheap pre-check: false if offering the score cannot change the heap. */
+        boolean accepts(long score) {
+            return size < scores.length || (size > 0 && score >= scores[0]);
+        }
+
+        void offer(long score, long sequence, int slot) {
+            if (size < scores.length) {
+                scores[size] = score;
+                sequences[size] = sequence;
+                slots[size] = slot;
+                siftUp(size++);
+            } else if (size > 0 && (score > scores[0] || (score == scores[0] && sequence < sequences[0]))) {
+                scores[0] = score;
+                sequences[0] = sequence;
+                slots[0] = slot;
+                siftDown(0);
+            }
+        }
+
+        /** Empties the heap and returns the talks of the kept slots, highest score first. */
+        List<TedTalk> drain(TedTalk[] talks) {
+            Candidates kept = drainCandidates(talks);
+            List<TedTalk> result = new ArrayList<>(kept.talks.length);
+            for (TedTalk t : kept.talks) {
+                if (t != null) result.add(t);
+            }
+            return result;
+        }
+
+        /** Empties the heap and returns the kept slots with their scores, highest score first. */
+        Candidates drainCandidates(TedTalk[] talks) {
+            int n = size;
+            Candidates kept = new Candidates(new TedTalk[n], new long[n], new long[n]);
+            while (size > 0) {
+                int i = size - 1;
+                kept.talks[i] = talks[slots[0]];
+                kept.scores[i] = scores[0];
+                kept.sequences[i] = sequences[0];
+                size--;
+                scores[0] = scores[size];
+                sequences[0] = sequences[size];
+                slots[0] = slots[size];
+                siftDown(0);
+            }
+            return kept;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(i, parent)) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) break;
+                int smallest = left + 1 < size && less(left + 1, left) ? left + 1 : left;
+                if (!less(smallest, i)) break;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        /** Lower score first; on equal scores the later sequence counts as lower so earlier rows win ties. */
+        private boolean less(int a, int b) {
+            return scores[a] < scores[b] || (scores[a] == scores[b] && sequences[a] > sequences[b]);
+        }
+
+        private void swap(int a, int b) {
+            long s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+            long q = sequences[a];
+            sequences[a] = sequences[b];
+            sequences[b] = q;
+            int r = slots[a];
+            slots[a] = slots[b];
+            slots[b] = r;
+        }
+    }
+}
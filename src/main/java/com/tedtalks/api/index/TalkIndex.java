@@ -0,0 +1,53 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.TedTalk;
+
+import java.util.Collection;
+
+/**
+ * A secondary structure derived from the talk store.
+ * <p>
+ * TedTalkService notifies every index of each talk it stores or drops, so that
+ * queries can be answered from the index instead of scanning all talks.
+ * An update is reported through {@link #replace(TedTalk, TedTalk)}, which by default
+ * is a removal of the old state followed by an addition of the new one.
+ * </p>
+ */
+public interface TalkIndex {
+
+    /**
+     * Called after a talk has been stored.
+     *
+     * @param talk the stored talk
+     */
+    void add(TedTalk talk);
+
+    /**
+     * Called after a talk has been removed, or before it is modified.
+     *
+     * @param talk the removed talk
+     */
+    void remove(TedTalk talk);
+
+    /**
+     * Called after many talks have been removed at once. Indexes whose removal cost
+     * grows with their size override this to remove the talks in one pass.
+     *
+     * @param talks the removed talks
+     */
+    default void removeAll(Collection<TedTalk> talks) {
+        talks.forEach(this::remove);
+    }
+
+    /**
+     * Called after a stored talk has been replaced by a new state with the same title.
+     * Indexes that can update an entry in place override this.
+     *
+     * @param previous the replaced talk
+     * @param talk     the stored talk
+     */
+    default void replace(TedTalk previous, TedTalk talk) {
+        remove(previous);
+        add(talk);
+    }
+}
@@ -0,0 +1,148 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.TalkDates;
+import com.tedtalks.api.model.TalkDistribution;
+import com.tedtalks.api.model.TedTalk;
+import com.tedtalks.api.sketch.HyperLogLog;
+import com.tedtalks.api.sketch.QuantileSketch;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Views and likes quantile sketches and a distinct speaker sketch per year and per month,
+ * kept up to date as talks are stored and dropped.
+ * <p>
+ * Each bucket holds a {@link QuantileSketch} for views and for likes (1% relative error)
+ * and a {@link HyperLogLog} over the authors (about 3% error). Their memory does not grow
+ * with the number of talks and a query reads one bucket, so answering a percentile or
+ * distinct count costs the same for ten talks as for ten million. The distribution over
+ * all talks merges the year buckets. Talks whose date could not be parsed are only
+ * counted there, talks whose date has no month are not part of any month bucket.
+ * </p>
+ */
+public class TalkSketches implements TalkIndex {
+
+    static final double RELATIVE_ACCURACY = 0.01;
+    static final int HLL_PRECISION = 10;
+
+    /** Bucket of the talks without a parsed date. */
+    private static final int UNDATED = 0;
+
+    private final Map<Integer, Bucket> byYear = new ConcurrentHashMap<>();
+    private final Map<Integer, Bucket> byMonth = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(TedTalk talk) {
+        byYear.computeIfAbsent(talk.getYear(), y -> new Bucket()).add(talk);
+        if (talk.getYear() != 0 && talk.getMonth() != 0) {
+            byMonth.computeIfAbsent(TalkDates.epochMonth(talk.getYear(), talk.getMonth()), m -> new Bucket()).add(talk);
+        }
+    }
+
+    @Override
+    public void remove(TedTalk talk) {
+        Bucket year = byYear.get(talk.getYear());
+        if (year != null) year.remove(talk);
+        if (talk.getYear() != 0 && talk.getMonth() != 0) {
+            Bucket month = byMonth.get(TalkDates.epochMonth(talk.getYear(), talk.getMonth()));
+            if (month != null) month.remove(talk);
+        }
+    }
+
+    /**
+     * Returns the distribution of the talks of one year.
+     *
+     * @param year      the four digit year
+     * @param quantiles the quantiles to estimate, each between 0 and 1
+     */
+    public TalkDistribution year(int year, double... quantiles) {
+        return describe(year == UNDATED ? null : byYear.get(year), quantiles);
+    }
+
+    /**
+     * Returns the distribution of the talks of one month.
+     *
+     * @param year      the four digit year
+     * @param month     the month, 1-12
+     * @param quantiles the quantiles to estimate, each between 0 and 1
+     */
+    public TalkDistribution month(int year, int month, double... quantiles) {
+        return describe(byMonth.get(TalkDates.epochMonth(year, month)), quantiles);
+    }
+
+    /**
+     * Returns the distribution of all talks, merged from the year buckets.
+     *
+     * @param quantiles the quantiles to estimate, each between 0 and 1
+     */
+    public TalkDistribution all(double... quantiles) {
+        Bucket merged = new Bucket();
+        for (Bucket bucket : new ArrayList<>(byYear.values())) {
+            bucket.mergeInto(merged);
+        }
+        return describe(merged, quantiles);
+    }
+
+    private static TalkDistribution describe(Bucket bucket, double[] quantiles) {
+        for (double q : quantiles) {
+            if (!(q >= 0 && q <= 1)) throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+        }
+        if (bucket == null) bucket = new Bucket();
+        return bucket.describe(quantiles);
+    }
+
+    /**
+     * Label of a quantile as a percentile, e.g. p50 for 0.5 and p99.9 for 0.999.
+     */
+    static String label(double q) {
+        return "p" + BigDecimal.valueOf(q).movePointRight(2).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Sketches of one year or month. Readers and writers synchronize on the bucket;
+     * both only touch fixed-size state.
+     */
+    private static final class Bucket {
+        private final QuantileSketch views = new QuantileSketch(RELATIVE_ACCURACY);
+        private final QuantileSketch likes = new QuantileSketch(RELATIVE_ACCURACY);
+        private final HyperLogLog speakers = new HyperLogLog(HLL_PRECISION);
+
+        synchronized void add(TedTalk talk) {
+            views.add(talk.getViews());
+            likes.add(talk.getLikes());
+            if (hasAuthor(talk)) speakers.add(HyperLogLog.hash(talk.getAuthor()));
+        }
+
+        synchronized void remove(TedTalk talk) {
+            if (!views.remove(talk.getViews())) return;
+            likes.remove(talk.getLikes());
+            if (hasAuthor(talk)) speakers.remove(HyperLogLog.hash(talk.getAuthor()));
+        }
+
+        synchronized void mergeInto(Bucket target) {
+            target.views.merge(views);
+            target.likes.merge(likes);
+            target.speakers.merge(speakers);
+        }
+
+        synchronized TalkDistribution describe(double[] quantiles) {
+            Map<String, Long> viewQuantiles = new LinkedHashMap<>();
+            Map<String, Long> likeQuantiles = new LinkedHashMap<>();
+            if (views.count() > 0) {
+                for (double q : quantiles) {
+                    viewQuantiles.put(label(q), views.quantile(q));
+                    likeQuantiles.put(label(q), likes.quantile(q));
+                }
+            }
+            return new TalkDistribution(views.count(), speakers.estimate(), viewQuantiles, likeQuantiles);
+        }
+
+        private static boolean hasAuthor(TedTalk talk) {
+            return talk.getAuthor() != null && !talk.getAuthor().isBlank();
+        }
+    }
+}
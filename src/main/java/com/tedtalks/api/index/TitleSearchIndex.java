@@ -0,0 +1,503 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.SearchHit;
+import com.tedtalks.api.model.TedTalk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index over talk titles with BM25 ranking.
+ * <p>
+ * Titles are split into lower-case alphanumeric tokens; very common English words are
+ * skipped. Every indexed talk gets a small int document id, and each token maps to a
+ * posting list of {@code long}s packing the document id, the token frequency and the title
+ * length. A query only walks the postings of its own tokens, as plain array loops, so its
+ * cost depends on how many talks match rather than on how many are stored. Every document
+ * also records where its entry sits in each of its postings, so removing a talk costs
+ * O(1) per title token, however common the token is.
+ * </p>
+ * <p>
+ * Matches are ranked with BM25. Optionally the relevance is multiplied by
+ * {@code log10(10 + influence)}, precomputed per document, which favours influential
+ * talks among similarly relevant ones without letting popularity override relevance.
+ * </p>
+ * <p>
+ * Writers are serialized. Readers do not lock; like {@link TalkColumns}, they only look at
+ * entries below the sizes they read once per posting, so a query overlapping a write may
+ * not see it yet. Document ids of removed talks are reused, so a query drops hits whose
+ * talk no longer contains any query term.
+ * </p>
+ */
+public class TitleSearchIndex implements TalkIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_LENGTH = 0x7FFF;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "can", "do", "for", "from", "how",
+            "i", "in", "is", "it", "its", "me", "my", "of", "on", "or", "our", "s", "that", "the",
+            "this", "to", "we", "what", "why", "with", "you", "your");
+
+    private final Map<String, Posting> postings = new ConcurrentHashMap<>();
+
+    /** Document id of every indexed talk. Only touched by writers. */
+    private final Map<TedTalk, Integer> documentIds = new IdentityHashMap<>();
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int nextId;
+
+    private volatile Documents documents = new Documents(1024);
+    private volatile long documentCount;
+    private volatile long totalLength;
+
+    @Override
+    public synchronized void add(TedTalk talk) {
+        List<String> tokens = tokenize(talk.getTitle());
+        if (tokens.isEmpty() || documentIds.containsKey(talk)) return;
+        int id = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+        Documents docs = documents;
+        if (id >= docs.talks.length) {
+            docs = docs.grow();
+            documents = docs;
+        }
+        docs.boosts[id] = (float) Math.log10(10 + InfluenceRanking.scoreOf(talk));
+        docs.talks[id] = talk;
+        documentIds.put(talk, id);
+
+        int length = Math.min(tokens.size(), MAX_LENGTH);
+        Map<String, Integer> frequencies = frequencies(tokens);
+        int[] positions = new int[frequencies.size()];
+        int token = 0;
+        for (Map.Entry<String, Integer> e : frequencies.entrySet()) {
+            int tf = Math.min(e.getValue(), 0xFFFF);
+            positions[token] = postings.computeIfAbsent(e.getKey(), k -> new Posting())
+                    .append((long) id << 32 | length << 16 | tf, token);
+            token++;
+        }
+        docs.positions[id] = positions;
+        documentCount++;
+        totalLength += length;
+    }
+
+    @Override
+    public synchronized void remove(TedTalk talk) {
+        Integer id = documentIds.remove(talk);
+        if (id == null) return;
+        List<String> tokens = tokenize(talk.getTitle());
+        Documents docs = documents;
+        int[] positions = docs.positions[id];
+        // distinct tokens in title order, as numbered by add
+        int index = 0;
+        for (String token : new LinkedHashSet<>(tokens)) {
+            Posting posting = postings.get(token);
+            if (posting != null) {
+                posting.remove(positions[index], docs);
+                if (posting.size == 0) postings.remove(token);
+            }
+            index++;
+        }
+        release(id, tokens.size());
+    }
+
+    /**
+     * Removes the talks and then filters each affected posting list once, which is cheaper
+     * than removing entries one by one when many talks go at once.
+     */
+    @Override
+    public synchronized void removeAll(Collection<TedTalk> talks) {
+        BitSet removed = new BitSet();
+        Set<String> affected = new HashSet<>();
+        for (TedTalk talk : talks) {
+            Integer id = documentIds.remove(talk);
+            if (id == null) continue;
+            List<String> tokens = tokenize(talk.getTitle());
+            affected.addAll(tokens);
+            removed.set(id);
+            release(id, tokens.size());
+        }
+        for (String token : affected) {
+            Posting posting = postings.get(token);
+            if (posting != null) {
+                posting.removeAll(removed, documents);
+                if (posting.size == 0) postings.remove(token);
+            }
+        }
+    }
+
+    private void release(int id, int length) {
+        documents.talks[id] = null;
+        documents.positions[id] = null;
+        if (freeCount == freeIds.length) freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        freeIds[freeCount++] = id;
+        documentCount--;
+        totalLength -= Math.min(length, MAX_LENGTH);
+    }
+
+    /**
+     * Keeps the document id and postings of the previous talk when the title tokens are
+     * unchanged, as for every update by title, so such an update only replaces the talk
+     * and its boost.
+     */
+    @Override
+    public synchronized void replace(TedTalk previous, TedTalk talk) {
+        Integer id = documentIds.get(previous);
+        if (id == null || previous == talk || documentIds.containsKey(talk)
+                || !tokenize(previous.getTitle()).equals(tokenize(talk.getTitle()))) {
+            remove(previous);
+            add(talk);
+            return;
+        }
+        documentIds.remove(previous);
+        documentIds.put(talk, id);
+        Documents docs = documents;
+        docs.boosts[id] = (float) Math.log10(10 + InfluenceRanking.scoreOf(talk));
+        docs.talks[id] = talk;
+    }
+
+    /**
+     * Searches the titles for the tokens of a query. A talk matches if its title contains
+     * at least one query token; talks containing more and rarer tokens rank higher.
+     *
+     * @param query    free text
+     * @param limit    the maximum number of hits
+     * @param weighted whether to boost the relevance of influential talks
+     * @return up to limit hits, best first
+     */
+    public List<SearchHit> search(String query, int limit, boolean weighted) {
+        long n = documentCount;
+        if (n <= 0 || limit <= 0) return Collections.emptyList();
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        // each posting's size is read once, then its array, and both are used throughout,
+        // so entries appended by a concurrent writer are never half seen
+        int[] sizes = new int[terms.size()];
+        long[][] lists = new long[terms.size()][];
+        int matched = 0;
+        int expected = 0;
+        for (String term : terms) {
+            Posting posting = postings.get(term);
+            if (posting == null) continue;
+            sizes[matched] = posting.size;
+            lists[matched] = posting.entries;
+            expected += sizes[matched];
+            matched++;
+        }
+        if (matched == 0) return Collections.emptyList();
+
+        double averageLength = (double) totalLength / n;
+        // read after the postings, so it covers the documents of the entries appended
+        // before; an entry a concurrent remove moved into the part read may be newer, and
+        // is skipped if its id lies beyond this array
+        Documents docs = documents;
+        int documentSlots = docs.talks.length;
+        // never more hits than postings, however large the limit
+        HitHeap top = new HitHeap(Math.min(limit, expected));
+
+        if (matched == 1) {
+            // single term: score postings straight into the heap, no accumulation needed
+            int size = sizes[0];
+            long[] entries = lists[0];
+            double idf = idf(n, size);
+            for (int i = 0; i < size; i++) {
+                long entry = entries[i];
+                int id = (int) (entry >>> 32);
+                if (id >= documentSlots) continue;
+                double score = idf * termWeight((int) entry, averageLength);
+                top.offer(weighted ? score * docs.boosts[id] : score, id);
+            }
+            return top.drain(docs, terms);
+        }
+
+        Accumulator scores = new Accumulator(expected);
+        for (int t = 0; t < matched; t++) {
+            int size = sizes[t];
+            long[] entries = lists[t];
+            double idf = idf(n, size);
+            for (int i = 0; i < size; i++) {
+                long entry = entries[i];
+                scores.add((int) (entry >>> 32), idf * termWeight((int) entry, averageLength));
+            }
+        }
+        for (int slot = 0; slot < scores.ids.length; slot++) {
+            int id = scores.ids[slot] - 1;
+            if (id < 0 || id >= documentSlots) continue;
+            double score = scores.sums[slot];
+            top.offer(weighted ? score * docs.boosts[id] : score, id);
+        }
+        return top.drain(docs, terms);
+    }
+
+    /**
+     * Splits text into lower-case alphanumeric tokens, skipping stop words.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                String token = current.toString();
+                if (!STOP_WORDS.contains(token)) tokens.add(token);
+                current.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    private static double idf(long documents, int documentFrequency) {
+        return Math.log(1 + (documents - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    /** BM25 term weight from the low half of a posting entry (title length << 16 | term frequency). */
+    private static double termWeight(int packed, double averageLength) {
+        int tf = packed & 0xFFFF;
+        int length = packed >>> 16;
+        return tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+    }
+
+    /** Token counts, in order of first occurrence. */
+    private static Map<String, Integer> frequencies(List<String> tokens) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String token : tokens) {
+            counts.merge(token, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Per-document data addressed by document id. {@code positions} holds, for each
+     * distinct title token in order of first occurrence, the index of the document's entry
+     * in that token's posting list; only writers use it.
+     */
+    private static final class Documents {
+        private final TedTalk[] talks;
+        private final float[] boosts;
+        private final int[][] positions;
+
+        private Documents(int capacity) {
+            this(new TedTalk[capacity], new float[capacity], new int[capacity][]);
+        }
+
+        private Documents(TedTalk[] talks, float[] boosts, int[][] positions) {
+            this.talks = talks;
+            this.boosts = boosts;
+            this.positions = positions;
+        }
+
+        private Documents grow() {
+            int capacity = talks.length * 2;
+            return new Documents(Arrays.copyOf(talks, capacity), Arrays.copyOf(boosts, capacity),
+                    Arrays.copyOf(positions, capacity));
+        }
+    }
+
+    /**
+     * Growable posting list. The entries array is published before the size grows,
+     * so readers that read the size first never index past the array they see.
+     * Alongside each entry, writers keep the number of the token within its document's
+     * title, to update {@code Documents.positions} when the entry moves.
+     */
+    private static final class Posting {
+        private volatile long[] entries = new long[4];
+        private volatile int size;
+        private int[] tokens = new int[4];
+
+        /** Appends an entry and returns its index. */
+        private int append(long entry, int token) {
+            long[] current = entries;
+            int index = size;
+            if (index == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                tokens = Arrays.copyOf(tokens, current.length);
+                entries = current;
+            }
+            current[index] = entry;
+            tokens[index] = token;
+            size = index + 1;
+            return index;
+        }
+
+        /** Removes the entry at an index by moving the last entry into its place. */
+        private void remove(int index, Documents docs) {
+            long[] current = entries;
+            int last = size - 1;
+            if (index != last) {
+                long moved = current[last];
+                current[index] = moved;
+                tokens[index] = tokens[last];
+                docs.positions[(int) (moved >>> 32)][tokens[index]] = index;
+            }
+            size = last;
+        }
+
+        /**
+         * Drops the entries of the given documents. The kept entries are copied into a new
+         * array of the same length, so a reader that still sees the old size stays in bounds.
+         */
+        private void removeAll(BitSet ids, Documents docs) {
+            long[] current = entries;
+            long[] kept = new long[current.length];
+            int[] keptTokens = new int[current.length];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                long entry = current[i];
+                int id = (int) (entry >>> 32);
+                if (ids.get(id)) continue;
+                kept[count] = entry;
+                keptTokens[count] = tokens[i];
+                docs.positions[id][tokens[i]] = count;
+                count++;
+            }
+            tokens = keptTokens;
+            size = count;
+            entries = kept;
+        }
+    }
+
+    /**
+     * Open-addressing map from document id to summed score, sized for the expected matches.
+     * It doubles once half full, so a probe always reaches a free slot.
+     */
+    private static final class Accumulator {
+        /** document id + 1, 0 marks a free slot */
+        private int[] ids;
+        private double[] sums;
+        private int mask;
+        private int count;
+
+        private Accumulator(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(2, expected) * 2 - 1) << 1;
+            ids = new int[capacity];
+            sums = new double[capacity];
+            mask = capacity - 1;
+        }
+
+        private void add(int id, double score) {
+            int slot = slotOf(id);
+            if (ids[slot] == 0) {
+                if (2 * (count + 1) > ids.length) {
+                    grow();
+                    slot = slotOf(id);
+                }
+                ids[slot] = id + 1;
+                count++;
+            }
+            sums[slot] += score;
+        }
+
+        /** The slot holding the id, or the free slot where it belongs. */
+        private int slotOf(int id) {
+            int slot = (id * 0x9E3779B9) >>> 1 & mask;
+            while (ids[slot] != 0 && ids[slot] != id + 1) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldIds = ids;
+            double[] oldSums = sums;
+            ids = new int[oldIds.length * 2];
+            sums = new double[oldIds.length * 2];
+            mask = ids.length - 1;
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldIds[i] == 0) continue;
+                int slot = slotOf(oldIds[i] - 1);
+                ids[slot] = oldIds[i];
+                sums[slot] = oldSums[i];
+            }
+        }
+    }
+
+    /**
+     * Bounded min-heap of (score, document id) pairs; hits are only created for the kept talks.
+     */
+    private static final class HitHeap {
+        private final double[] scores;
+        private final int[] ids;
+        private int size;
+
+        private HitHeap(int capacity) {
+            scores = new double[capacity];
+            ids = new int[capacity];
+        }
+
+        private void offer(double score, int id) {
+            if (size < scores.length) {
+                scores[size] = score;
+                ids[size] = id;
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (scores[i] >= scores[parent]) break;
+                    swap(i, parent);
+                    i = parent;
+                }
+            } else if (score > scores[0]) {
+                scores[0] = score;
+                ids[0] = id;
+                siftDown();
+            }
+        }
+
+        /**
+         * Empties the heap into hits, best first. Document ids are reused, so a posting
+         * read before a concurrent remove may name an id that now belongs to another talk;
+         * hits whose talk no longer contains any query term are dropped.
+         */
+        private List<SearchHit> drain(Documents docs, Set<String> terms) {
+            SearchHit[] hits = new SearchHit[size];
+            int count = size;
+            while (size > 0) {
+                hits[size - 1] = new SearchHit(docs.talks[ids[0]], scores[0]);
+                size--;
+                scores[0] = scores[size];
+                ids[0] = ids[size];
+                siftDown();
+            }
+            List<SearchHit> result = new ArrayList<>(count);
+            for (SearchHit hit : hits) {
+                // a talk removed while the query ran has no document any more
+                TedTalk talk = hit.getTalk();
+                if (talk != null && !Collections.disjoint(tokenize(talk.getTitle()), terms)) result.add(hit);
+            }
+            return result;
+        }
+
+        private void siftDown() {
+            int i = 0;
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) break;
+                int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+                if (scores[smallest] >= scores[i]) break;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+            int id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+        }
+    }
+}
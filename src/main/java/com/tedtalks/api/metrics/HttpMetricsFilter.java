@@ -0,0 +1,61 @@
+package com.tedtalks.api.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every request handled by a controller method and counts its server errors,
+ * labelled with the name of that method. Requests that match no handler are not timed.
+ * For streamed responses the time until the handler returned is recorded.
+ */
+@Component
+public class HttpMetricsFilter extends OncePerRequestFilter {
+
+    private static final String REQUEST_SECONDS = "tedtalks_http_request_seconds";
+    private static final String ERRORS = "tedtalks_http_errors_total";
+
+    private final MetricRegistry registry;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<Method, Counter> errors = new ConcurrentHashMap<>();
+
+    public HttpMetricsFilter(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+            if (handler instanceof HandlerMethod) {
+                Method method = ((HandlerMethod) handler).getMethod();
+                Timer timer = timers.get(method);
+                if (timer == null) timer = register(method);
+                timer.recordSince(start);
+                if (failed || response.getStatus() >= 500) errors.get(method).increment();
+            }
+        }
+    }
+
+    private synchronized Timer register(Method method) {
+        String labels = "endpoint=\"" + method.getName() + "\"";
+        errors.computeIfAbsent(method, m -> registry.counter(ERRORS, "Requests that failed with a server error", labels));
+        return timers.computeIfAbsent(method, m -> registry.timer(REQUEST_SECONDS, "Latency of HTTP requests", labels));
+    }
+}
@@ -0,0 +1,108 @@
+package com.tedtalks.api.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * In-process metrics exported in the Prometheus text format.
+ * <p>
+ * Metrics are registered once, typically when the owning component is built, and the
+ * returned {@link Timer} or {@link Counter} is kept in a field; only registration and
+ * export synchronize. Gauges are read from a supplier at export time. Registering the
+ * same name and labels again returns the existing metric, or replaces the gauge.
+ * </p>
+ */
+@Component
+public class MetricRegistry {
+
+    private static final String COUNTER = "counter";
+    private static final String GAUGE = "gauge";
+    private static final String HISTOGRAM = "histogram";
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * Returns the timer of the given name and labels, registering it if needed.
+     *
+     * @param name   metric name, in seconds by convention, e.g. {@code tedtalks_service_seconds}
+     * @param help   description of the metric family
+     * @param labels label pairs formatted as {@code key="value",...}, or empty
+     */
+    public synchronized Timer timer(String name, String help, String labels) {
+        return (Timer) family(name, help, HISTOGRAM).metrics.computeIfAbsent(labels, l -> new Timer());
+    }
+
+    /**
+     * Registers one timer per constant of an enum, see {@link TimerSet}.
+     */
+    public <E extends Enum<E>> TimerSet<E> timers(String name, String help, String label, Class<E> operations) {
+        return new TimerSet<>(this, name, help, label, operations);
+    }
+
+    /**
+     * Returns the counter of the given name and labels, registering it if needed.
+     */
+    public synchronized Counter counter(String name, String help, String labels) {
+        return (Counter) family(name, help, COUNTER).metrics.computeIfAbsent(labels, l -> new Counter());
+    }
+
+    /**
+     * Registers a gauge whose value is read when the metrics are exported.
+     */
+    public synchronized void gauge(String name, String help, String labels, DoubleSupplier value) {
+        family(name, help, GAUGE).metrics.put(labels, value);
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format, version 0.0.4.
+     */
+    public synchronized String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, Family> e : families.entrySet()) {
+            String name = e.getKey();
+            Family family = e.getValue();
+            out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> m : family.metrics.entrySet()) {
+                String labels = m.getKey();
+                Object metric = m.getValue();
+                if (metric instanceof Timer) {
+                    ((Timer) metric).writeTo(out, name, labels);
+                    continue;
+                }
+                out.append(name);
+                if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+                out.append(' ');
+                if (metric instanceof Counter) {
+                    out.append(((Counter) metric).get());
+                } else {
+                    out.append(((DoubleSupplier) metric).getAsDouble());
+                }
+                out.append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException(name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    private static final class Family {
+        private final String help;
+        private final String type;
+        private final Map<String, Object> metrics = new LinkedHashMap<>();
+
+        private Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
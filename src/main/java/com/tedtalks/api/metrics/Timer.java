@@ -0,0 +1,82 @@
+package com.tedtalks.api.metrics;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed buckets from 1 µs to 10 s in 1-2-5 steps.
+ * <p>
+ * Recording finds the bucket by a binary search over a constant array and increments
+ * striped counters, so it neither locks nor allocates. Counts are kept per bucket and
+ * only accumulated when the histogram is exported.
+ * </p>
+ */
+public final class Timer {
+
+    /** Upper bucket bounds in nanoseconds, the last bucket is unbounded. */
+    private static final long[] BOUNDS;
+
+    /** {@link #BOUNDS} in seconds, formatted for export. */
+    private static final String[] BOUND_LABELS;
+
+    static {
+        long[] steps = {1, 2, 5};
+        BOUNDS = new long[22];
+        BOUND_LABELS = new String[BOUNDS.length];
+        long decade = 1_000;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS[i] = steps[i % 3] * decade;
+            if (i % 3 == 2) decade *= 10;
+            BOUND_LABELS[i] = BigDecimal.valueOf(BOUNDS[i]).movePointLeft(9).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    Timer() {
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    /**
+     * Records the time elapsed since a {@link System#nanoTime()} reading.
+     *
+     * @param startNanos the reading taken when the timed operation started
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        int i = Arrays.binarySearch(BOUNDS, nanos);
+        buckets[i >= 0 ? i : -i - 1].increment();
+        sumNanos.add(nanos);
+    }
+
+    /** Number of recorded durations. */
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) count += bucket.sum();
+        return count;
+    }
+
+    void writeTo(StringBuilder out, String name, String labels) {
+        long cumulative = 0;
+        String prefix = labels.isEmpty() ? "{" : "{" + labels + ",";
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            out.append(name).append("_bucket").append(prefix).append("le=\"")
+                    .append(i < BOUNDS.length ? BOUND_LABELS[i] : "+Inf").append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(suffix).append(' ').append(sumNanos.sum() / 1e9).append('\n');
+        out.append(name).append("_count").append(suffix).append(' ').append(cumulative).append('\n');
+    }
+}
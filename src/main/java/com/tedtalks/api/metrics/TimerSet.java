@@ -0,0 +1,49 @@
+package com.tedtalks.api.metrics;
+
+/**
+ * One {@link Timer} per constant of an enum, all in one metric family and told apart by
+ * a label. The label value is the constant name in lower camel case, so
+ * {@code FIND_BY_TITLE} is exported as {@code findByTitle}.
+ *
+ * @param <E> the enum of timed operations
+ */
+public final class TimerSet<E extends Enum<E>> {
+
+    private final Timer[] timers;
+
+    TimerSet(MetricRegistry registry, String name, String help, String label, Class<E> operations) {
+        E[] constants = operations.getEnumConstants();
+        timers = new Timer[constants.length];
+        for (E op : constants) {
+            timers[op.ordinal()] = registry.timer(name, help, label + "=\"" + camelCase(op.name()) + "\"");
+        }
+    }
+
+    /**
+     * Records the time elapsed since a {@link System#nanoTime()} reading.
+     *
+     * @param op         the timed operation
+     * @param startNanos the reading taken when the operation started
+     */
+    public void recordSince(E op, long startNanos) {
+        timers[op.ordinal()].recordSince(startNanos);
+    }
+
+    public Timer get(E op) {
+        return timers[op.ordinal()];
+    }
+
+    private static String camelCase(String constant) {
+        StringBuilder sb = new StringBuilder(constant.length());
+        boolean upper = false;
+        for (char c : constant.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                sb.append(upper ? c : Character.toLowerCase(c));
+                upper = false;
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.tedtalks.api.model;
+
+/**
+ * One entry of a bulk mutation: {@code add} stores {@link #talk} (replacing a talk
+ * with the same title), {@code update} applies {@link #talk} to the talk named by
+ * {@link #title} as a PUT does, and {@code delete} removes the talk named by
+ * {@link #title}.
+ */
+public class BatchOperation {
+    public static final String ADD = "add";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    private String op;
+    private String title;
+    private TedTalk talk;
+
+    public BatchOperation() {}
+
+    public BatchOperation(String op, String title, TedTalk talk) {
+        this.op = op;
+        this.title = title;
+        this.talk = talk;
+    }
+
+    public static BatchOperation add(TedTalk talk) { return new BatchOperation(ADD, null, talk); }
+
+    public static BatchOperation update(String title, TedTalk talk) { return new BatchOperation(UPDATE, title, talk); }
+
+    public static BatchOperation delete(String title) { return new BatchOperation(DELETE, title, null); }
+
+    public String getOp() { return op; }
+    public void setOp(String op) { this.op = op; }
+
+    /** Title of the talk to update or delete; an add takes the title of its talk. */
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public TedTalk getTalk() { return talk; }
+    public void setTalk(TedTalk talk) { this.talk = talk; }
+}
@@ -0,0 +1,34 @@
+package com.tedtalks.api.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk mutation: one result per entry, in request order, and the store
+ * version all changes were published at.
+ */
+public class BatchReport {
+    private final List<BatchResult> results;
+    private final long applied;
+    private final long version;
+    private final long elapsedNanos;
+
+    public BatchReport(List<BatchResult> results, long applied, long version, long elapsedNanos) {
+        this.results = results;
+        this.applied = applied;
+        this.version = version;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public List<BatchResult> getResults() { return results; }
+
+    /** Entries that changed the store. */
+    public long getApplied() { return applied; }
+
+    /** Entries that were skipped, because they were invalid, named an unknown talk or changed nothing. */
+    public long getSkipped() { return results.size() - applied; }
+
+    /** Store version after the batch; unchanged if no entry was applied. */
+    public long getVersion() { return version; }
+
+    public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+}
@@ -0,0 +1,39 @@
+package com.tedtalks.api.model;
+
+/**
+ * Outcome of one entry of a bulk mutation, at the same position as the entry.
+ */
+public class BatchResult {
+
+    public enum Status {
+        /** An add stored a new talk. */
+        CREATED,
+        /** An add replaced the talk with the same title. */
+        REPLACED,
+        /** An add matched the stored talk with the same title in every field and changed nothing. */
+        UNCHANGED,
+        UPDATED,
+        DELETED,
+        /** An update or delete named a title that is not stored. */
+        NOT_FOUND,
+        /** The entry was malformed and skipped, see {@link #getError()}. */
+        INVALID
+    }
+
+    private final String title;
+    private final Status status;
+    private final String error;
+
+    public BatchResult(String title, Status status, String error) {
+        this.title = title;
+        this.status = status;
+        this.error = error;
+    }
+
+    public String getTitle() { return title; }
+
+    public Status getStatus() { return status; }
+
+    /** Why an entry was skipped, null unless the status is INVALID. */
+    public String getError() { return error; }
+}
@@ -0,0 +1,65 @@
+package com.tedtalks.api.model;
+
+/**
+ * State and progress of a background CSV import at one point in time.
+ */
+public class ImportJobStatus {
+
+    /** Lifecycle of an import job. */
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        /** Whether the job has ended and will not change any more. */
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    private final String id;
+    private final String source;
+    private final State state;
+    private final long rowsRead;
+    private final long imported;
+    private final long rejected;
+    private final long elapsedMillis;
+    private final String error;
+
+    public ImportJobStatus(String id, String source, State state, long rowsRead, long imported, long rejected,
+                           long elapsedMillis, String error) {
+        this.id = id;
+        this.source = source;
+        this.state = state;
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.elapsedMillis = elapsedMillis;
+        this.error = error;
+    }
+
+    public String getId() { return id; }
+
+    /** The path the CSV is read from. */
+    public String getSource() { return source; }
+
+    public State getState() { return state; }
+
+    /** CSV records processed so far, including rejected ones. */
+    public long getRowsRead() { return rowsRead; }
+
+    /** Talks stored so far. */
+    public long getImported() { return imported; }
+
+    /** Rows that failed validation so far, e.g. a blank title. */
+    public long getRejected() { return rejected; }
+
+    /** Time spent running, zero while queued. */
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    /** Rows read per second while running. */
+    public long getRowsPerSecond() {
+        return elapsedMillis <= 0 ? 0 : rowsRead * 1000 / elapsedMillis;
+    }
+
+    /** Why the job failed, null unless the state is FAILED. */
+    public String getError() { return error; }
+}
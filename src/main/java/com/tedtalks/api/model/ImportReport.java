@@ -0,0 +1,74 @@
+package com.tedtalks.api.model;
+
+/**
+ * Outcome of a bulk import: how many rows were stored or rejected, and how fast.
+ * <p>
+ * An import is an upsert by title, so the stored rows are further split into inserted,
+ * updated and unchanged ones. An import that replaces the whole data set also reports
+ * the talks it removed because they were missing from the input.
+ * </p>
+ */
+public class ImportReport {
+    private final long imported;
+    private final long rejected;
+    private final long elapsedNanos;
+    private final long inserted;
+    private final long updated;
+    private final long unchanged;
+    private final long removed;
+
+    public ImportReport(long imported, long rejected, long elapsedNanos) {
+        this(imported, rejected, elapsedNanos, 0, 0, 0, 0);
+    }
+
+    public ImportReport(long imported, long rejected, long elapsedNanos,
+                        long inserted, long updated, long unchanged, long removed) {
+        this.imported = imported;
+        this.rejected = rejected;
+        this.elapsedNanos = elapsedNanos;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.removed = removed;
+    }
+
+    /** Rows that were stored. */
+    public long getImported() { return imported; }
+
+    /** Rows that were skipped because they failed validation, e.g. a blank title. */
+    public long getRejected() { return rejected; }
+
+    /** Rows whose title was not stored yet. */
+    public long getInserted() { return inserted; }
+
+    /** Rows that replaced a stored talk with different content. */
+    public long getUpdated() { return updated; }
+
+    /** Rows identical to the stored talk, which were skipped without a write. */
+    public long getUnchanged() { return unchanged; }
+
+    /** Stored talks deleted because the input did not contain them. */
+    public long getRemoved() { return removed; }
+
+    public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+
+    /** Import throughput over all rows read, accepted or not. */
+    public long getRowsPerSecond() {
+        if (elapsedNanos <= 0) return 0;
+        return (long) ((imported + rejected) * 1_000_000_000.0 / elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{" +
+                "imported=" + imported +
+                ", rejected=" + rejected +
+                ", inserted=" + inserted +
+                ", updated=" + updated +
+                ", unchanged=" + unchanged +
+                ", removed=" + removed +
+                ", elapsedMillis=" + getElapsedMillis() +
+                ", rowsPerSecond=" + getRowsPerSecond() +
+                '}';
+    }
+}
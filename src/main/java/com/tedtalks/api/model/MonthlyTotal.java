@@ -0,0 +1,36 @@
+package com.tedtalks.api.model;
+
+/**
+ * Talk count, views and likes of one month, with moving averages over the months
+ * ending at it.
+ */
+public class MonthlyTotal {
+    private final String month;
+    private final long count;
+    private final long views;
+    private final long likes;
+    private final double viewsMovingAverage;
+    private final double likesMovingAverage;
+
+    public MonthlyTotal(String month, long count, long views, long likes,
+                        double viewsMovingAverage, double likesMovingAverage) {
+        this.month = month;
+        this.count = count;
+        this.views = views;
+        this.likes = likes;
+        this.viewsMovingAverage = viewsMovingAverage;
+        this.likesMovingAverage = likesMovingAverage;
+    }
+
+    /** The month, formatted as {@code YYYY-MM}. */
+    public String getMonth() { return month; }
+    public long getCount() { return count; }
+    public long getViews() { return views; }
+    public long getLikes() { return likes; }
+
+    /** Mean views per month over the moving window ending at this month. */
+    public double getViewsMovingAverage() { return viewsMovingAverage; }
+
+    /** Mean likes per month over the moving window ending at this month. */
+    public double getLikesMovingAverage() { return likesMovingAverage; }
+}
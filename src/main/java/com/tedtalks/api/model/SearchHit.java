@@ -0,0 +1,19 @@
+package com.tedtalks.api.model;
+
+/**
+ * A talk matching a search query, with its relevance score.
+ */
+public class SearchHit {
+    private final TedTalk talk;
+    private final double score;
+
+    public SearchHit(TedTalk talk, double score) {
+        this.talk = talk;
+        this.score = score;
+    }
+
+    public TedTalk getTalk() { return talk; }
+
+    /** Relevance of the talk for the query; higher is better. */
+    public double getScore() { return score; }
+}
@@ -0,0 +1,39 @@
+package com.tedtalks.api.model;
+
+/**
+ * Aggregated figures for all talks of one speaker.
+ */
+public class SpeakerStats {
+    private final String author;
+    private final long talkCount;
+    private final long totalViews;
+    private final long totalLikes;
+    private final double totalInfluence;
+    private final String bestTalk;
+
+    public SpeakerStats(String author, long talkCount, long totalViews, long totalLikes,
+                        double totalInfluence, String bestTalk) {
+        this.author = author;
+        this.talkCount = talkCount;
+        this.totalViews = totalViews;
+        this.totalLikes = totalLikes;
+        this.totalInfluence = totalInfluence;
+        this.bestTalk = bestTalk;
+    }
+
+    public String getAuthor() { return author; }
+    public long getTalkCount() { return talkCount; }
+    public long getTotalViews() { return totalViews; }
+    public long getTotalLikes() { return totalLikes; }
+
+    /** Sum of the influence scores of the speaker's talks. */
+    public double getTotalInfluence() { return totalInfluence; }
+
+    /** Mean influence score of the speaker's talks. */
+    public double getAverageInfluence() {
+        return talkCount == 0 ? 0 : totalInfluence / talkCount;
+    }
+
+    /** Title of the speaker's talk with the highest influence score. */
+    public String getBestTalk() { return bestTalk; }
+}
@@ -0,0 +1,38 @@
+package com.tedtalks.api.model;
+
+/**
+ * One change to the stored talks, as published on the change feed.
+ */
+public class TalkChange {
+
+    public enum Type {
+        /** A talk with a new title was stored. */
+        CREATED,
+        /** The talk with this title was replaced or updated. */
+        UPDATED,
+        /** The talk with this title was deleted. */
+        DELETED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final String title;
+    private final TedTalk talk;
+
+    public TalkChange(long sequence, Type type, String title, TedTalk talk) {
+        this.sequence = sequence;
+        this.type = type;
+        this.title = title;
+        this.talk = talk;
+    }
+
+    /** Position of the change on the feed; consecutive changes have consecutive numbers. */
+    public long getSequence() { return sequence; }
+
+    public Type getType() { return type; }
+
+    public String getTitle() { return title; }
+
+    /** The talk as stored after the change, null for a delete. */
+    public TedTalk getTalk() { return talk; }
+}
@@ -0,0 +1,107 @@
+package com.tedtalks.api.model;
+
+/**
+ * Parses the free-form {@code date} column of a TedTalk into a year and month.
+ * <p>
+ * Supported shapes are the ones found in the data set and in API payloads:
+ * {@code Dec-21}, {@code November 2021}, {@code 2021-12-01}, {@code 2021-12} and {@code 2021}.
+ * Two digit years are mapped into the range 1950-2049.
+ * </p>
+ * The result is packed into a single int as {@code year * 100 + month}, where the month
+ * is 1-12, or 0 if the input only carries a year. {@link #UNKNOWN} is returned for input
+ * that cannot be parsed.
+ */
+public final class TalkDates {
+
+    public static final int UNKNOWN = 0;
+
+    private static final int TWO_DIGIT_YEAR_PIVOT = 1950;
+
+    private static final String[] MONTHS = {
+            "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"
+    };
+
+    private TalkDates() {}
+
+    /**
+     * Parses the given date string.
+     *
+     * @param date the raw date value, may be null
+     * @return the packed {@code year * 100 + month} value, or {@link #UNKNOWN}
+     */
+    public static int parse(String date) {
+        if (date == null) return UNKNOWN;
+        String s = date.trim();
+        if (s.isEmpty()) return UNKNOWN;
+        return Character.isDigit(s.charAt(0)) ? parseNumeric(s) : parseMonthFirst(s);
+    }
+
+    /** Year component of a packed value, 0 if unknown. */
+    public static int year(int packed) {
+        return packed / 100;
+    }
+
+    /** Month component (1-12) of a packed value, 0 if unknown. */
+    public static int month(int packed) {
+        return packed % 100;
+    }
+
+    /**
+     * Number of months since year 0 for the given year and month (1-12).
+     * Useful as a dense, ordered key for month buckets.
+     */
+    public static int epochMonth(int year, int month) {
+        return year * 12 + (month - 1);
+    }
+
+    /** Handles {@code 2021}, {@code 2021-12} and {@code 2021-12-01}. */
+    private static int parseNumeric(String s) {
+        int i = 0;
+        int year = 0;
+        while (i < s.length() && Character.isDigit(s.charAt(i))) {
+            year = year * 10 + (s.charAt(i) - '0');
+            if (++i > 4) return UNKNOWN;
+        }
+        if (i < 4) return UNKNOWN;
+        if (i == s.length()) return year * 100;
+        if (s.charAt(i) != '-') return UNKNOWN;
+        int month = 0;
+        int digits = 0;
+        for (i++; i < s.length() && Character.isDigit(s.charAt(i)); i++, digits++) {
+            month = month * 10 + (s.charAt(i) - '0');
+        }
+        if (digits == 0 || digits > 2 || month < 1 || month > 12) return UNKNOWN;
+        return year * 100 + month;
+    }
+
+    /** Handles {@code Dec-21} and {@code December 2021}. */
+    private static int parseMonthFirst(String s) {
+        int i = 0;
+        while (i < s.length() && Character.isLetter(s.charAt(i))) i++;
+        if (i < 3 || i == s.length()) return UNKNOWN;
+        int month = monthOf(s);
+        if (month == 0) return UNKNOWN;
+        char separator = s.charAt(i);
+        if (separator != '-' && separator != ' ') return UNKNOWN;
+        int year = 0;
+        int digits = 0;
+        for (i++; i < s.length(); i++, digits++) {
+            char c = s.charAt(i);
+            if (!Character.isDigit(c) || digits == 4) return UNKNOWN;
+            year = year * 10 + (c - '0');
+        }
+        if (digits == 0) return UNKNOWN;
+        if (digits == 2) {
+            year += TWO_DIGIT_YEAR_PIVOT / 100 * 100;
+            if (year < TWO_DIGIT_YEAR_PIVOT) year += 100;
+        }
+        return year * 100 + month;
+    }
+
+    private static int monthOf(String s) {
+        for (int m = 0; m < MONTHS.length; m++) {
+            if (s.regionMatches(true, 0, MONTHS[m], 0, 3)) return m + 1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.tedtalks.api.model;
+
+import java.util.Map;
+
+/**
+ * Estimated distribution of a set of talks: quantiles of views and likes and the number
+ * of distinct speakers. Quantiles are keyed by their percentile, e.g. {@code p50} or
+ * {@code p99.9}.
+ */
+public class TalkDistribution {
+    private final long count;
+    private final long distinctSpeakers;
+    private final Map<String, Long> views;
+    private final Map<String, Long> likes;
+
+    public TalkDistribution(long count, long distinctSpeakers, Map<String, Long> views, Map<String, Long> likes) {
+        this.count = count;
+        this.distinctSpeakers = distinctSpeakers;
+        this.views = views;
+        this.likes = likes;
+    }
+
+    /** Exact number of talks. */
+    public long getCount() { return count; }
+
+    /** Estimated number of distinct authors, within a few percent. */
+    public long getDistinctSpeakers() { return distinctSpeakers; }
+
+    /** Estimated view quantiles, each within 1% of the true value. */
+    public Map<String, Long> getViews() { return views; }
+
+    /** Estimated like quantiles, each within 1% of the true value. */
+    public Map<String, Long> getLikes() { return likes; }
+}
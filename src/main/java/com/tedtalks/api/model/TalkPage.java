@@ -0,0 +1,32 @@
+package com.tedtalks.api.model;
+
+import java.util.List;
+
+/**
+ * One page of talks read from a pinned store snapshot.
+ * {@code nextCursor} is null on the last page.
+ */
+public class TalkPage {
+    private final List<TedTalk> items;
+    private final String nextCursor;
+    private final long version;
+    private final int total;
+
+    public TalkPage(List<TedTalk> items, String nextCursor, long version, int total) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.version = version;
+        this.total = total;
+    }
+
+    public List<TedTalk> getItems() { return items; }
+
+    /** Cursor to pass to get the next page, or null if this is the last page. */
+    public String getNextCursor() { return nextCursor; }
+
+    /** Store version all pages of this listing are read from. */
+    public long getVersion() { return version; }
+
+    /** Number of talks in the snapshot being paged through. */
+    public int getTotal() { return total; }
+}
@@ -0,0 +1,25 @@
+package com.tedtalks.api.model;
+
+/**
+ * Count and totals over a set of talks.
+ */
+public class TalkStats {
+    private final long count;
+    private final long totalViews;
+    private final long totalLikes;
+
+    public TalkStats(long count, long totalViews, long totalLikes) {
+        this.count = count;
+        this.totalViews = totalViews;
+        this.totalLikes = totalLikes;
+    }
+
+    public long getCount() { return count; }
+    public long getTotalViews() { return totalViews; }
+    public long getTotalLikes() { return totalLikes; }
+
+    /** Mean influence score (likes + views / 1000) of the talks, 0 if there are none. */
+    public double getAverageInfluence() {
+        return count == 0 ? 0 : (totalLikes + totalViews / 1000.0) / count;
+    }
+}
@@ -0,0 +1,45 @@
+package com.tedtalks.api.model;
+
+import java.util.List;
+
+/**
+ * Views and likes of the talks of a month range: the totals, the figures of every month
+ * and the growth from the first month to the last.
+ */
+public class TalkTrend {
+    private final String from;
+    private final String to;
+    private final int window;
+    private final TalkStats total;
+    private final Double viewsGrowth;
+    private final Double likesGrowth;
+    private final List<MonthlyTotal> months;
+
+    public TalkTrend(String from, String to, int window, TalkStats total,
+                     Double viewsGrowth, Double likesGrowth, List<MonthlyTotal> months) {
+        this.from = from;
+        this.to = to;
+        this.window = window;
+        this.total = total;
+        this.viewsGrowth = viewsGrowth;
+        this.likesGrowth = likesGrowth;
+        this.months = months;
+    }
+
+    public String getFrom() { return from; }
+    public String getTo() { return to; }
+
+    /** Number of months each moving average covers. */
+    public int getWindow() { return window; }
+
+    /** Count and totals over the whole range. */
+    public TalkStats getTotal() { return total; }
+
+    /** Relative change of views from the first month to the last, null if the first month has none. */
+    public Double getViewsGrowth() { return viewsGrowth; }
+
+    /** Relative change of likes from the first month to the last, null if the first month has none. */
+    public Double getLikesGrowth() { return likesGrowth; }
+
+    public List<MonthlyTotal> getMonths() { return months; }
+}
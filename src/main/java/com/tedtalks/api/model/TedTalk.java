@@ -1,6 +1,37 @@
 package com.tedtalks.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.text.Normalizer;
+
+/**
+ * A talk with its title, speaker, date, view and like counts and link.
+ * <p>
+ * Instances are kept compact, since the store holds one per talk: authors and dates
+ * repeat across many talks and are interned, so each distinct value is held once, and
+ * a link that equals {@link #LINK_PREFIX} plus the slug of author and title (lower-case
+ * ASCII words joined by underscores, accents removed) is not stored at all but derived
+ * again by {@link #getLink()}. Other links are stored as given. Getters, setters and the
+ * JSON form are unaffected.
+ * </p>
+ */
 public class TedTalk {
+
+    /** Prefix of the links derived from author and title. */
+    public static final String LINK_PREFIX = "https://ted.com/talks/";
+
+    /** Slug character of every ASCII character, 0 for separators. */
+    private static final char[] ASCII_SLUG = new char[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) ASCII_SLUG[c] = c;
+        for (char c = 'a'; c <= 'z'; c++) ASCII_SLUG[c] = c;
+        for (char c = 'A'; c <= 'Z'; c++) ASCII_SLUG[c] = (char) (c + ('a' - 'A'));
+    }
+
+    /** Held in {@link #link} when the link is derived; compared by reference only. */
+    private static final String DERIVED_LINK = new String("derived");
+
     private String title;
     private String author;
     private String date;
@@ -8,25 +39,48 @@ public class TedTalk {
     private long likes;
     private String link;
 
+    /** {@link #date} parsed once at ingest, see {@link TalkDates#parse(String)}. */
+    private int yearMonth;
+
     public TedTalk() {}
 
     public TedTalk(String title, String author, String date, long views, long likes, String link) {
         this.title = title;
-        this.author = author;
-        this.date = date;
+        this.author = intern(author);
+        this.date = intern(date);
+        this.yearMonth = TalkDates.parse(date);
         this.views = views;
         this.likes = likes;
-        this.link = link;
+        this.link = compactLink(link);
     }
 
     public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
+    public void setTitle(String title) {
+        String link = getLink();
+        this.title = title;
+        this.link = compactLink(link);
+    }
 
     public String getAuthor() { return author; }
-    public void setAuthor(String author) { this.author = author; }
+    public void setAuthor(String author) {
+        String link = getLink();
+        this.author = intern(author);
+        this.link = compactLink(link);
+    }
 
     public String getDate() { return date; }
-    public void setDate(String date) { this.date = date; }
+    public void setDate(String date) {
+        this.date = intern(date);
+        this.yearMonth = TalkDates.parse(date);
+    }
+
+    /** Year of the talk, or 0 if the date could not be parsed. */
+    @JsonIgnore
+    public int getYear() { return TalkDates.year(yearMonth); }
+
+    /** Month (1-12) of the talk, or 0 if the date carries no month. */
+    @JsonIgnore
+    public int getMonth() { return TalkDates.month(yearMonth); }
 
     public long getViews() { return views; }
     public void setViews(long views) { this.views = views; }
@@ -34,8 +88,77 @@ public class TedTalk {
     public long getLikes() { return likes; }
     public void setLikes(long likes) { this.likes = likes; }
 
-    public String getLink() { return link; }
-    public void setLink(String link) { this.link = link; }
+    public String getLink() {
+        return link == DERIVED_LINK ? derivedLink(author, title) : link;
+    }
+    public void setLink(String link) { this.link = compactLink(link); }
+
+    /** Whether the link is derived from author and title rather than stored. */
+    @JsonIgnore
+    public boolean hasDerivedLink() { return link == DERIVED_LINK; }
+
+    /**
+     * Returns the link a talk of the given author and title conventionally has, e.g.
+     * {@code https://ted.com/talks/sydney_iaukea_the_dark_history_of_the_overthrow_of_hawaii}.
+     *
+     * @return the link, or null if author or title is null
+     */
+    public static String derivedLink(String author, String title) {
+        if (author == null || title == null) return null;
+        // a slug is never longer than its source, plus one separator between author and title
+        char[] buf = new char[LINK_PREFIX.length() + author.length() + title.length() + 2];
+        LINK_PREFIX.getChars(0, LINK_PREFIX.length(), buf, 0);
+        int end = appendSlug(buf, LINK_PREFIX.length(), author);
+        end = appendSlug(buf, end, title);
+        return new String(buf, 0, end);
+    }
+
+    private String compactLink(String link) {
+        return link != null && link.equals(derivedLink(author, title)) ? DERIVED_LINK : link;
+    }
+
+    /**
+     * Writes the lower-case ASCII words of a value, each preceded by an underscore unless first.
+     * The value is copied behind the end first and folded in place, one slot ahead of the
+     * written characters, which is where the underscore before the first word goes.
+     *
+     * @return the end of the written characters
+     */
+    private static int appendSlug(char[] buf, int end, String value) {
+        int from = end + 1;
+        int to = from + value.length();
+        value.getChars(0, value.length(), buf, from);
+        boolean gap = true;
+        for (int i = from; i < to; i++) {
+            char c = fold(buf[i]);
+            if (c == 0) {
+                gap = true;
+                continue;
+            }
+            if (gap && end > LINK_PREFIX.length()) buf[end++] = '_';
+            buf[end++] = c;
+            gap = false;
+        }
+        return end;
+    }
+
+    /** Lower-case ASCII letter or digit for a character, accents removed, or 0 for a separator. */
+    private static char fold(char c) {
+        if (c < 128) return ASCII_SLUG[c];
+        switch (Character.toLowerCase(c)) {
+            case '\u00f8': return 'o'; // o with stroke
+            case '\u0111': return 'd'; // d with stroke
+            case '\u0142': return 'l'; // l with stroke
+            case '\u0131': return 'i'; // dotless i
+            default:
+                char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+                return base < 128 ? fold(base) : 0;
+        }
+    }
+
+    private static String intern(String s) {
+        return s == null ? null : s.intern();
+    }
 
     @Override
     public String toString() {
@@ -45,7 +168,7 @@ public class TedTalk {
                 ", date='" + date + '\'' +
                 ", views=" + views +
                 ", likes=" + likes +
-                ", link='" + link + '\'' +
+                ", link='" + getLink() + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,159 @@
+package com.tedtalks.api.repository;
+
+import com.tedtalks.api.model.TedTalk;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of talks backed by a 32-way trie.
+ * <p>
+ * Reads and writes cost O(log32 n), which stays at four levels or fewer for up to a
+ * million talks and five for up to 33 million. A write copies only the path from the root
+ * to the changed slot, so all previous versions stay valid and can be read without locks.
+ * </p>
+ * <p>
+ * Write methods take an {@code edit} token. Nodes created with the same token are
+ * modified in place instead of being copied again, which lets a batch of writes share
+ * the nodes it creates. A token must only be used by a single writer and must be dropped
+ * once the resulting vector has been published.
+ * </p>
+ */
+final class PersistentTalkVector extends AbstractList<TedTalk> implements RandomAccess {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    static final PersistentTalkVector EMPTY = new PersistentTalkVector(0, 0, new Node(null));
+
+    private final int size;
+    private final int shift;
+    private final Node root;
+
+    private PersistentTalkVector(int size, int shift, Node root) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TedTalk get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return (TedTalk) leafFor(index).slots[index & MASK];
+    }
+
+    @Override
+    public Iterator<TedTalk> iterator() {
+        return new Iterator<TedTalk>() {
+            private int index;
+            private Node leaf;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public TedTalk next() {
+                if (index >= size) throw new NoSuchElementException();
+                if ((index & MASK) == 0 || leaf == null) leaf = leafFor(index);
+                return (TedTalk) leaf.slots[index++ & MASK];
+            }
+        };
+    }
+
+    /**
+     * Returns a vector with the talk appended at the end.
+     */
+    PersistentTalkVector withAppended(TedTalk talk, Object edit) {
+        Node newRoot;
+        int newShift = shift;
+        if (size == 1 << (shift + BITS)) {
+            newRoot = new Node(edit);
+            newRoot.slots[0] = root;
+            newShift += BITS;
+        } else {
+            newRoot = editable(root, edit);
+        }
+        Node node = newRoot;
+        for (int level = newShift; level > 0; level -= BITS) {
+            int slot = (size >>> level) & MASK;
+            Node child = (Node) node.slots[slot];
+            child = child == null ? new Node(edit) : editable(child, edit);
+            node.slots[slot] = child;
+            node = child;
+        }
+        node.slots[size & MASK] = talk;
+        return new PersistentTalkVector(size + 1, newShift, newRoot);
+    }
+
+    /**
+     * Returns a vector with the talk at the given index replaced.
+     */
+    PersistentTalkVector withSet(int index, TedTalk talk, Object edit) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        Node newRoot = editable(root, edit);
+        editablePath(newRoot, index, edit).slots[index & MASK] = talk;
+        return new PersistentTalkVector(size, shift, newRoot);
+    }
+
+    /**
+     * Returns a vector without its last talk.
+     */
+    PersistentTalkVector withoutLast(Object edit) {
+        if (size == 0) throw new NoSuchElementException();
+        int last = size - 1;
+        Node newRoot = editable(root, edit);
+        editablePath(newRoot, last, edit).slots[last & MASK] = null;
+        int newShift = shift;
+        while (newShift > 0 && last <= 1 << newShift) {
+            newRoot = (Node) newRoot.slots[0];
+            newShift -= BITS;
+        }
+        return new PersistentTalkVector(last, newShift, newRoot);
+    }
+
+    private Node leafFor(int index) {
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.slots[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    /** Walks from an editable root to the leaf holding the index, making every node editable. */
+    private Node editablePath(Node editableRoot, int index, Object edit) {
+        Node node = editableRoot;
+        for (int level = shift; level > 0; level -= BITS) {
+            int slot = (index >>> level) & MASK;
+            Node child = editable((Node) node.slots[slot], edit);
+            node.slots[slot] = child;
+            node = child;
+        }
+        return node;
+    }
+
+    private static Node editable(Node node, Object edit) {
+        if (edit != null && node.edit == edit) return node;
+        Node copy = new Node(edit);
+        System.arraycopy(node.slots, 0, copy.slots, 0, WIDTH);
+        return copy;
+    }
+
+    private static final class Node {
+        private final Object edit;
+        private final Object[] slots = new Object[WIDTH];
+
+        private Node(Object edit) {
+            this.edit = edit;
+        }
+    }
+}
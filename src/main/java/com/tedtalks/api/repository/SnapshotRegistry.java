@@ -0,0 +1,48 @@
+package com.tedtalks.api.repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps recently used snapshots reachable by version, so that a multi-request read such
+ * as a paginated listing can keep reading the snapshot it started from.
+ * <p>
+ * Snapshots share structure with each other, so a pinned snapshot only retains the talks
+ * that were replaced or removed after it was taken. The least recently used snapshot is
+ * dropped once {@code capacity} snapshots are pinned.
+ * </p>
+ */
+public class SnapshotRegistry {
+
+    private final Map<Long, TalkSnapshot> pinned;
+
+    public SnapshotRegistry(int capacity) {
+        this.pinned = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TalkSnapshot> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Pins a snapshot, or refreshes it if it is already pinned.
+     *
+     * @return the snapshot
+     */
+    public synchronized TalkSnapshot pin(TalkSnapshot snapshot) {
+        pinned.put(snapshot.getVersion(), snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Looks up a pinned snapshot.
+     *
+     * @param version the snapshot version
+     * @return the snapshot, or empty if it was never pinned or has been dropped
+     */
+    public synchronized Optional<TalkSnapshot> get(long version) {
+        return Optional.ofNullable(pinned.get(version));
+    }
+}
@@ -0,0 +1,76 @@
+package com.tedtalks.api.repository;
+
+import com.tedtalks.api.model.TedTalk;
+
+import java.util.function.Consumer;
+
+/**
+ * Storage for the talk data set.
+ * <p>
+ * Readers take an immutable {@link TalkSnapshot} and never block. Writers group their
+ * changes in {@link #write(Consumer)}; all changes of one call become visible together
+ * as a single new snapshot version.
+ * </p>
+ */
+public interface TalkRepository {
+
+    /**
+     * Returns the latest published snapshot.
+     *
+     * @return the current snapshot, never null
+     */
+    TalkSnapshot snapshot();
+
+    /**
+     * Applies a batch of writes and publishes them as one new snapshot.
+     * Nothing is published if the batch makes no change or throws.
+     *
+     * @param writes the changes to apply
+     */
+    void write(Consumer<Writer> writes);
+
+    /**
+     * Adds a single talk.
+     */
+    default void add(TedTalk talk) {
+        write(w -> w.add(talk));
+    }
+
+    /**
+     * Replaces a stored talk, keeping its position.
+     */
+    default void replace(TedTalk previous, TedTalk talk) {
+        write(w -> w.replace(previous, talk));
+    }
+
+    /**
+     * Removes a stored talk.
+     */
+    default void remove(TedTalk talk) {
+        write(w -> w.remove(talk));
+    }
+
+    /**
+     * Changes applied within {@link TalkRepository#write(Consumer)}.
+     * Talks are identified by reference.
+     */
+    interface Writer {
+
+        /** Appends a talk. */
+        void add(TedTalk talk);
+
+        /**
+         * Replaces a stored talk, keeping its position.
+         *
+         * @return false if the previous talk is not stored
+         */
+        boolean replace(TedTalk previous, TedTalk talk);
+
+        /**
+         * Removes a stored talk.
+         *
+         * @return false if the talk is not stored
+         */
+        boolean remove(TedTalk talk);
+    }
+}
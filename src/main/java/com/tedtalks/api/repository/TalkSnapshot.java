@@ -0,0 +1,37 @@
+package com.tedtalks.api.repository;
+
+import com.tedtalks.api.model.TedTalk;
+
+import java.util.List;
+
+/**
+ * An immutable view of all stored talks at one point in time.
+ * <p>
+ * The version increases by one with every published write, so two snapshots with the
+ * same version hold the same talks.
+ * </p>
+ */
+public final class TalkSnapshot {
+
+    private final long version;
+    private final List<TedTalk> talks;
+
+    TalkSnapshot(long version, List<TedTalk> talks) {
+        this.version = version;
+        this.talks = talks;
+    }
+
+    /** Monotonically increasing version of the store this snapshot was taken from. */
+    public long getVersion() {
+        return version;
+    }
+
+    /** The talks of this snapshot, as an unmodifiable random access list. */
+    public List<TedTalk> getTalks() {
+        return talks;
+    }
+
+    public int size() {
+        return talks.size();
+    }
+}
@@ -0,0 +1,264 @@
+package com.tedtalks.api.repository;
+
+import com.tedtalks.api.model.TedTalk;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary file format for a {@link TalkSnapshot}, read back through a memory-mapped file.
+ * <p>
+ * Layout, all numbers big-endian:
+ * </p>
+ * <pre>
+ *   int    magic "TEDS"
+ *   int    format version
+ *   long   store version of the snapshot
+ *   int    talk count n
+ *   int    string count s
+ *   long   views[n]
+ *   long   likes[n]
+ *   int    title[n], author[n], date[n], link[n]   string ids, -1 for null
+ *   s x    (int byte length, UTF-8 bytes)          string table
+ * </pre>
+ * <p>
+ * Numeric columns are fixed width, so loading them is a bulk copy out of the mapping.
+ * Authors and dates repeat across talks and are stored once in the string table;
+ * titles and links are unique and stored as they come. Files are written to a
+ * temporary sibling and moved into place, so a reader never sees a partial file.
+ * </p>
+ */
+public final class TalkSnapshotFile {
+
+    private static final int MAGIC = 0x54454453;
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int NULL_STRING = -1;
+
+    /** Largest region mapped at once; files are read through consecutive windows. */
+    private static final int MAP_WINDOW = 1 << 28;
+
+    private TalkSnapshotFile() {}
+
+    /**
+     * Writes a snapshot to a file, replacing any existing one. The data is written to a
+     * temporary file and forced to disk before it is renamed over the target, and the
+     * rename is forced as well, so on return the snapshot survives a crash and a reader
+     * never sees a partial file.
+     *
+     * @param snapshot the snapshot to write
+     * @param file     the target file
+     */
+    public static void write(TalkSnapshot snapshot, Path file) throws IOException {
+        List<TedTalk> talks = snapshot.getTalks();
+        int n = talks.size();
+        int[] titles = new int[n];
+        int[] authors = new int[n];
+        int[] dates = new int[n];
+        int[] links = new int[n];
+        StringTable strings = new StringTable();
+        for (int i = 0; i < n; i++) {
+            TedTalk t = talks.get(i);
+            titles[i] = strings.append(t.getTitle());
+            authors[i] = strings.intern(t.getAuthor());
+            dates[i] = strings.intern(t.getDate());
+            links[i] = strings.append(t.getLink());
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(snapshot.getVersion());
+            out.writeInt(n);
+            out.writeInt(strings.size());
+            for (TedTalk t : talks) out.writeLong(t.getViews());
+            for (TedTalk t : talks) out.writeLong(t.getLikes());
+            for (int id : titles) out.writeInt(id);
+            for (int id : authors) out.writeInt(id);
+            for (int id : dates) out.writeInt(id);
+            for (int id : links) out.writeInt(id);
+            for (byte[] bytes : strings.values) {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Forces the entries of a directory, such as a just renamed file, to disk.
+     * Platforms that cannot open a directory for syncing are skipped.
+     */
+    static void syncDirectory(Path dir) throws IOException {
+        if (dir == null) return;
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // e.g. Windows, where directories cannot be opened and renames are durable
+            return;
+        }
+        try (FileChannel c = channel) {
+            c.force(true);
+        }
+    }
+
+    /**
+     * Reads a snapshot file.
+     *
+     * @param file the file written by {@link #write(TalkSnapshot, Path)}
+     * @return the talks of the file, with the store version they were written at
+     * @throws IOException if the file cannot be read or is not a snapshot file
+     */
+    public static TalkSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) throw new IOException("Not a talk snapshot: " + file);
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) throw new IOException("Not a talk snapshot: " + file);
+            int format = header.getInt();
+            if (format != FORMAT) throw new IOException("Unsupported snapshot format " + format + ": " + file);
+            long version = header.getLong();
+            int n = header.getInt();
+            int stringCount = header.getInt();
+            long columnBytes = 32L * n;
+            if (n < 0 || stringCount < 0 || HEADER_BYTES + columnBytes > fileSize) {
+                throw new IOException("Truncated talk snapshot: " + file);
+            }
+
+            long[] views = new long[n];
+            long[] likes = new long[n];
+            int[] titles = new int[n];
+            int[] authors = new int[n];
+            int[] dates = new int[n];
+            int[] links = new int[n];
+            long position = HEADER_BYTES;
+            position = readLongs(channel, position, views);
+            position = readLongs(channel, position, likes);
+            position = readInts(channel, position, titles);
+            position = readInts(channel, position, authors);
+            position = readInts(channel, position, dates);
+            position = readInts(channel, position, links);
+            String[] strings = readStrings(channel, position, stringCount, file);
+
+            List<TedTalk> talks = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                talks.add(new TedTalk(string(strings, titles[i]), string(strings, authors[i]),
+                        string(strings, dates[i]), views[i], likes[i], string(strings, links[i])));
+            }
+            return new TalkSnapshot(version, talks);
+        }
+    }
+
+    private static long readLongs(FileChannel channel, long position, long[] into) throws IOException {
+        long bytes = 8L * into.length;
+        for (int from = 0; from < into.length; ) {
+            int chunk = Math.min(into.length - from, MAP_WINDOW / 8);
+            LongBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position + 8L * from, 8L * chunk).asLongBuffer();
+            buffer.get(into, from, chunk);
+            from += chunk;
+        }
+        return position + bytes;
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] into) throws IOException {
+        long bytes = 4L * into.length;
+        for (int from = 0; from < into.length; ) {
+            int chunk = Math.min(into.length - from, MAP_WINDOW / 4);
+            IntBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position + 4L * from, 4L * chunk).asIntBuffer();
+            buffer.get(into, from, chunk);
+            from += chunk;
+        }
+        return position + bytes;
+    }
+
+    private static String[] readStrings(FileChannel channel, long position, int count, Path file) throws IOException {
+        String[] strings = new String[count];
+        long end = channel.size();
+        MappedByteBuffer window = null;
+        long windowStart = position;
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < count; i++) {
+            if (window == null || window.remaining() < 4) {
+                window = map(channel, position, end);
+                windowStart = position;
+            }
+            if (window.remaining() < 4) throw new IOException("Truncated talk snapshot: " + file);
+            int length = window.getInt(window.position());
+            if (length < 0 || position + 4 + length > end) throw new IOException("Truncated talk snapshot: " + file);
+            if (window.remaining() < 4 + length) {
+                // the string straddles the window, continue with a window starting at it
+                window = map(channel, position, end);
+                windowStart = position;
+            }
+            window.getInt();
+            if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+            window.get(scratch, 0, length);
+            strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            position = windowStart + window.position();
+        }
+        return strings;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long end) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(end - position, MAP_WINDOW));
+    }
+
+    private static String string(String[] strings, int id) throws IOException {
+        if (id == NULL_STRING) return null;
+        if (id < 0 || id >= strings.length) throw new IOException("Corrupt talk snapshot: string id " + id);
+        return strings[id];
+    }
+
+    /**
+     * String table built while writing. Interned strings are stored once.
+     */
+    private static final class StringTable {
+
+        private final List<byte[]> values = new ArrayList<>();
+        private final Map<String, Integer> interned = new HashMap<>();
+
+        int append(String s) {
+            if (s == null) return NULL_STRING;
+            values.add(s.getBytes(StandardCharsets.UTF_8));
+            return values.size() - 1;
+        }
+
+        int intern(String s) {
+            if (s == null) return NULL_STRING;
+            Integer id = interned.get(s);
+            if (id == null) {
+                id = append(s);
+                interned.put(s, id);
+            }
+            return id;
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
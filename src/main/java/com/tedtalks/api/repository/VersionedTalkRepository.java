@@ -0,0 +1,108 @@
+package com.tedtalks.api.repository;
+
+import com.tedtalks.api.model.TedTalk;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * {@link TalkRepository} built on a {@link PersistentTalkVector}.
+ * <p>
+ * Readers get the current snapshot through a single volatile read. Writes are serialized
+ * and each change copies only one path of the trie, so the cost of a write does not grow
+ * with the number of stored talks; a batch additionally shares the nodes it creates and
+ * publishes once.
+ * </p>
+ * <p>
+ * Talks keep their insertion order, except that removing a talk moves the last talk into
+ * the freed position.
+ * </p>
+ */
+public class VersionedTalkRepository implements TalkRepository {
+
+    private volatile TalkSnapshot current = new TalkSnapshot(0, PersistentTalkVector.EMPTY);
+
+    /**
+     * Position of every stored talk in the current vector. Only touched by writers.
+     */
+    private final Map<TedTalk, Integer> positions = new IdentityHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    @Override
+    public TalkSnapshot snapshot() {
+        return current;
+    }
+
+    @Override
+    public void write(Consumer<Writer> writes) {
+        synchronized (writeLock) {
+            Batch batch = new Batch((PersistentTalkVector) current.getTalks());
+            try {
+                writes.accept(batch);
+            } catch (RuntimeException | Error e) {
+                if (batch.changed) rebuildPositions();
+                throw e;
+            }
+            if (batch.changed) {
+                current = new TalkSnapshot(current.getVersion() + 1, batch.vector);
+            }
+        }
+    }
+
+    private void rebuildPositions() {
+        positions.clear();
+        List<TedTalk> talks = current.getTalks();
+        for (int i = 0; i < talks.size(); i++) {
+            positions.put(talks.get(i), i);
+        }
+    }
+
+    private final class Batch implements Writer {
+        private final Object edit = new Object();
+        private PersistentTalkVector vector;
+        private boolean changed;
+
+        private Batch(PersistentTalkVector vector) {
+            this.vector = vector;
+        }
+
+        @Override
+        public void add(TedTalk talk) {
+            if (positions.containsKey(talk)) throw new IllegalArgumentException("Talk is already stored: " + talk);
+            positions.put(talk, vector.size());
+            vector = vector.withAppended(talk, edit);
+            changed = true;
+        }
+
+        @Override
+        public boolean replace(TedTalk previous, TedTalk talk) {
+            Integer position = positions.get(previous);
+            if (position == null) return false;
+            if (previous == talk) return true;
+            if (positions.containsKey(talk)) throw new IllegalArgumentException("Talk is already stored: " + talk);
+            positions.remove(previous);
+            positions.put(talk, position);
+            vector = vector.withSet(position, talk, edit);
+            changed = true;
+            return true;
+        }
+
+        @Override
+        public boolean remove(TedTalk talk) {
+            Integer position = positions.remove(talk);
+            if (position == null) return false;
+            int last = vector.size() - 1;
+            if (position != last) {
+                TedTalk moved = vector.get(last);
+                vector = vector.withSet(position, moved, edit);
+                positions.put(moved, position);
+            }
+            vector = vector.withoutLast(edit);
+            changed = true;
+            return true;
+        }
+    }
+}
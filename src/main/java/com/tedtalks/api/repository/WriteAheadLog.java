@@ -0,0 +1,314 @@
+package com.tedtalks.api.repository;
+
+import com.tedtalks.api.model.TedTalk;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of talk mutations with group commit.
+ * <p>
+ * Every mutation is recorded as either a put of the complete resulting talk or a delete
+ * by title, so replaying a record is idempotent. Records are framed as
+ * {@code int length, int crc32, payload}; a torn record at the end of the file, left by
+ * a crash during a write, is dropped on replay.
+ * </p>
+ * <p>
+ * {@link #append} only buffers a record in memory and returns its sequence number.
+ * {@link #sync(long)} makes everything up to that number durable: the first caller
+ * writes and fsyncs all buffered records, while callers arriving in the meantime wait
+ * and are then covered by one shared fsync. Throughput is therefore bounded by
+ * bandwidth, not by one fsync per mutation. Once a write or fsync fails, the log
+ * refuses further syncs, since what reached the disk is unknown.
+ * </p>
+ * <p>
+ * {@link #rotate()} closes the current file and starts a new one. The rotated file is
+ * kept until {@link #deleteRotated()} is called once a snapshot covering it is on disk.
+ * </p>
+ */
+public final class WriteAheadLog implements Closeable {
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int NULL_STRING = -1;
+
+    /** Records larger than this are treated as corrupt on replay. */
+    private static final int MAX_RECORD_BYTES = 1 << 24;
+
+    /**
+     * Receives the records of a log on replay, in the order they were appended.
+     */
+    public interface Replay {
+
+        /** A talk was stored, replacing any talk with the same title. */
+        void put(TedTalk talk);
+
+        /** The talk with this title was deleted. */
+        void delete(String title);
+    }
+
+    private final Path file;
+    private final Path rotated;
+    private final Object lock = new Object();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(1 << 16);
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean flushing;
+    private IOException failure;
+
+    private WriteAheadLog(Path file) {
+        this.file = file;
+        this.rotated = file.resolveSibling(file.getFileName() + ".1");
+    }
+
+    /**
+     * Opens a log, replaying the records it already holds. A rotated file left over
+     * from an interrupted {@link #rotate()} is replayed first.
+     *
+     * @param file   the log file, created if missing
+     * @param replay receives the existing records
+     * @return the open log, positioned after the last complete record
+     */
+    public static WriteAheadLog open(Path file, Replay replay) throws IOException {
+        WriteAheadLog log = new WriteAheadLog(file);
+        if (Files.exists(log.rotated)) readRecords(log.rotated, replay);
+        long valid = Files.exists(file) ? readRecords(file, replay) : 0;
+        log.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        log.channel.truncate(valid);
+        log.channel.position(valid);
+        return log;
+    }
+
+    /**
+     * Whether a rotated file is waiting for {@link #deleteRotated()}.
+     */
+    public boolean hasRotated() {
+        return Files.exists(rotated);
+    }
+
+    /**
+     * Buffers a put of the given talk.
+     *
+     * @return the sequence number to pass to {@link #sync(long)}
+     */
+    public long appendPut(TedTalk talk) {
+        synchronized (lock) {
+            try {
+                recordOut.writeByte(PUT);
+                writeString(talk.getTitle());
+                writeString(talk.getAuthor());
+                writeString(talk.getDate());
+                recordOut.writeLong(talk.getViews());
+                recordOut.writeLong(talk.getLikes());
+                writeString(talk.getLink());
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // in-memory stream
+            }
+            return append();
+        }
+    }
+
+    /**
+     * Buffers a delete by title.
+     *
+     * @return the sequence number to pass to {@link #sync(long)}
+     */
+    public long appendDelete(String title) {
+        synchronized (lock) {
+            try {
+                recordOut.writeByte(DELETE);
+                writeString(title);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return append();
+        }
+    }
+
+    /**
+     * Blocks until all records up to the given sequence number are on disk.
+     *
+     * @param seq a number returned by one of the append methods
+     * @throws IOException if writing the log failed, now or before
+     */
+    public void sync(long seq) throws IOException {
+        byte[] batch;
+        long batchSeq;
+        synchronized (lock) {
+            while (durableSeq < seq && flushing && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the write-ahead log");
+                }
+            }
+            if (failure != null) throw new IOException("Write-ahead log failed", failure);
+            if (durableSeq >= seq) return;
+            // become the leader: flush everything buffered so far, for every waiting writer
+            flushing = true;
+            batch = pending.toByteArray();
+            pending.reset();
+            batchSeq = appendedSeq;
+        }
+        IOException error = null;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+        synchronized (lock) {
+            flushing = false;
+            if (error == null) {
+                durableSeq = Math.max(durableSeq, batchSeq);
+            } else {
+                failure = error;
+            }
+            lock.notifyAll();
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * Syncs all buffered records and continues in a new, empty file. The previous file
+     * is kept as the rotated file. Callers must not append concurrently.
+     */
+    public void rotate() throws IOException {
+        synchronized (lock) {
+            if (Files.exists(rotated)) throw new IllegalStateException("Previous rotated log not deleted: " + rotated);
+        }
+        sync(appendedSeq);
+        synchronized (lock) {
+            channel.close();
+            Files.move(file, rotated, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+    }
+
+    /**
+     * Deletes the rotated file, once its records are covered by a snapshot.
+     */
+    public void deleteRotated() throws IOException {
+        Files.deleteIfExists(rotated);
+    }
+
+    /**
+     * Syncs buffered records and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync(appendedSeq);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        if (s == null) {
+            recordOut.writeInt(NULL_STRING);
+        } else {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            recordOut.writeInt(bytes.length);
+            recordOut.write(bytes);
+        }
+    }
+
+    private long append() {
+        byte[] payload = record.toByteArray();
+        record.reset();
+        crc.reset();
+        crc.update(payload);
+        writeInt(pending, payload.length);
+        writeInt(pending, (int) crc.getValue());
+        pending.write(payload, 0, payload.length);
+        return ++appendedSeq;
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int v) {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    /**
+     * Replays the complete records of a file.
+     *
+     * @return the length of the valid prefix of the file
+     */
+    private static long readRecords(Path file, Replay replay) throws IOException {
+        long valid = 0;
+        CRC32 crc = new CRC32();
+        try (InputStream is = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(is, 1 << 16))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) break;
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) break;
+                apply(payload, replay);
+                valid += 8 + length;
+            }
+        }
+        return valid;
+    }
+
+    private static void apply(byte[] payload, Replay replay) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        byte type = in.get();
+        if (type == PUT) {
+            String title = readString(in);
+            String author = readString(in);
+            String date = readString(in);
+            long views = in.getLong();
+            long likes = in.getLong();
+            replay.put(new TedTalk(title, author, date, views, likes, readString(in)));
+        } else if (type == DELETE) {
+            replay.delete(readString(in));
+        } else {
+            throw new IOException("Unknown write-ahead log record type " + type);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_STRING) return null;
+        String s = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+}
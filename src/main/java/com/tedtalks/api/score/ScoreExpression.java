@@ -0,0 +1,638 @@
+package com.tedtalks.api.score;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A user supplied formula that scores talks, such as {@code likes / views * 1000} or
+ * {@code views * exp(-age / 2)}, compiled for evaluation over primitive columns.
+ * <p>
+ * Expressions combine numbers and the variables {@code views}, {@code likes},
+ * {@code year}, {@code month} (1-12, 0 if the date has none) and {@code age} (years
+ * between the talk and the current month; talks dated by year only count from June, and
+ * undated talks have no age) with {@code + - * / ^}, unary minus, parentheses and the
+ * functions {@code log} (natural), {@code log10}, {@code sqrt}, {@code exp}, {@code abs},
+ * {@code min}, {@code max} and {@code pow}. Arithmetic is in doubles; a score that is
+ * not a number, e.g. the age of an undated talk or {@code 0 / 0}, means the talk is not
+ * ranked.
+ * </p>
+ * <p>
+ * Parsing folds constant subexpressions and yields an immutable tree. An
+ * {@link Evaluator} runs the tree over a block of up to {@value #BLOCK_SIZE} rows at a
+ * time: every node fills a {@code double[]} for the whole block in a plain loop, so the
+ * dispatch between nodes is paid once per block rather than once per row, and nothing
+ * is boxed. {@link #compile(String)} caches the most recently used expressions.
+ * </p>
+ */
+public final class ScoreExpression {
+
+    /** Number of rows an evaluator handles per call. */
+    public static final int BLOCK_SIZE = 1024;
+
+    /** Longest accepted expression, in characters. */
+    public static final int MAX_LENGTH = 1000;
+
+    /** Deepest accepted nesting of operations; each level costs a scratch block. */
+    public static final int MAX_DEPTH = 32;
+
+    private static final int CACHED_EXPRESSIONS = 256;
+
+    private static final Map<String, ScoreExpression> CACHE = new LinkedHashMap<String, ScoreExpression>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ScoreExpression> eldest) {
+            return size() > CACHED_EXPRESSIONS;
+        }
+    };
+
+    private final String source;
+    private final Node root;
+    private final int depth;
+
+    private ScoreExpression(String source, Node root) {
+        this.source = source;
+        this.root = root;
+        this.depth = root.depth();
+    }
+
+    /**
+     * Parses and compiles an expression, or returns the cached compilation of it.
+     *
+     * @param source the expression
+     * @return the compiled expression
+     * @throws IllegalArgumentException if the expression is malformed, longer than
+     *                                  {@value #MAX_LENGTH} characters or nested deeper
+     *                                  than {@value #MAX_DEPTH} levels
+     */
+    public static ScoreExpression compile(String source) {
+        String key = source.trim();
+        if (key.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Score expression longer than " + MAX_LENGTH + " characters");
+        }
+        synchronized (CACHE) {
+            ScoreExpression cached = CACHE.get(key);
+            if (cached != null) return cached;
+        }
+        ScoreExpression compiled = new ScoreExpression(key, new Parser(key).parse());
+        if (compiled.depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Score expression nested deeper than " + MAX_DEPTH + " levels");
+        }
+        synchronized (CACHE) {
+            CACHE.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    /** The expression as given, without surrounding whitespace. */
+    public String source() {
+        return source;
+    }
+
+    /**
+     * Creates an evaluator. Evaluators hold scratch buffers and must not be shared
+     * between threads; the expression itself may be.
+     *
+     * @param nowEpochMonth the current month as {@code year * 12 + month - 1}, the
+     *                      reference point of {@code age}
+     */
+    public Evaluator evaluator(int nowEpochMonth) {
+        return new Evaluator(this, nowEpochMonth);
+    }
+
+    /**
+     * Evaluates a single talk, for callers that do not hold columns.
+     */
+    public double evaluate(long views, long likes, int year, int epochMonth, int nowEpochMonth) {
+        Evaluator evaluator = evaluator(nowEpochMonth);
+        double[] out = new double[1];
+        evaluator.evaluate(new long[] {views}, new long[] {likes}, new int[] {year}, new int[] {epochMonth}, 0, 1, out);
+        return out[0];
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * Evaluates the expression over column slices.
+     */
+    public static final class Evaluator {
+
+        private final Node root;
+        private final Rows rows = new Rows();
+        private final double[][] scratch;
+
+        private Evaluator(ScoreExpression expression, int nowEpochMonth) {
+            this.root = expression.root;
+            this.rows.now = nowEpochMonth;
+            this.scratch = new double[expression.depth][BLOCK_SIZE];
+        }
+
+        /**
+         * Scores rows {@code from} to {@code from + n - 1} of the given columns.
+         *
+         * @param epochMonths epoch month per row, -1 if the date has no month
+         * @param n           the number of rows, at most {@value #BLOCK_SIZE}
+         * @param out         receives the scores, starting at index 0
+         */
+        public void evaluate(long[] views, long[] likes, int[] years, int[] epochMonths, int from, int n, double[] out) {
+            if (n > BLOCK_SIZE) throw new IllegalArgumentException("At most " + BLOCK_SIZE + " rows per call: " + n);
+            rows.views = views;
+            rows.likes = likes;
+            rows.years = years;
+            rows.epochMonths = epochMonths;
+            rows.from = from;
+            root.eval(rows, n, out, scratch, 0);
+        }
+    }
+
+    /** The columns of the block being evaluated. */
+    private static final class Rows {
+        private long[] views;
+        private long[] likes;
+        private int[] years;
+        private int[] epochMonths;
+        private int from;
+        private int now;
+    }
+
+    /**
+     * A compiled subexpression. Nodes are immutable; {@code scratch[level]} and above
+     * are free for a node to use while it evaluates.
+     */
+    private abstract static class Node {
+
+        abstract void eval(Rows rows, int n, double[] out, double[][] scratch, int level);
+
+        /** Number of scratch buffers needed. */
+        int depth() {
+            return 0;
+        }
+
+        boolean isConstant() {
+            return false;
+        }
+
+        double constant() {
+            throw new IllegalStateException();
+        }
+
+        /** The long column this node reads unchanged, or null. */
+        long[] longColumn(Rows rows) {
+            return null;
+        }
+    }
+
+    private static final class Constant extends Node {
+        private final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        void eval(Rows rows, int n, double[] out, double[][] scratch, int level) {
+            Arrays.fill(out, 0, n, value);
+        }
+
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+
+        @Override
+        double constant() {
+            return value;
+        }
+    }
+
+    private enum Column { VIEWS, LIKES, YEAR, MONTH, AGE }
+
+    private static final class Variable extends Node {
+        private final Column column;
+
+        Variable(Column column) {
+            this.column = column;
+        }
+
+        @Override
+        long[] longColumn(Rows rows) {
+            return column == Column.VIEWS ? rows.views : column == Column.LIKES ? rows.likes : null;
+        }
+
+        @Override
+        void eval(Rows rows, int n, double[] out, double[][] scratch, int level) {
+            int from = rows.from;
+            switch (column) {
+                case VIEWS:
+                    for (int i = 0; i < n; i++) out[i] = rows.views[from + i];
+                    break;
+                case LIKES:
+                    for (int i = 0; i < n; i++) out[i] = rows.likes[from + i];
+                    break;
+                case YEAR:
+                    for (int i = 0; i < n; i++) out[i] = rows.years[from + i];
+                    break;
+                case MONTH:
+                    for (int i = 0; i < n; i++) {
+                        int m = rows.epochMonths[from + i];
+                        out[i] = m < 0 ? 0 : m % 12 + 1;
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < n; i++) {
+                        int m = rows.epochMonths[from + i];
+                        int year = rows.years[from + i];
+                        if (m >= 0) {
+                            out[i] = (rows.now - m) / 12.0;
+                        } else {
+                            out[i] = year == 0 ? Double.NaN : (rows.now - (year * 12 + 5)) / 12.0;
+                        }
+                    }
+                    break;
+            }
+        }
+    }
+
+    private enum Op {
+        ADD, SUBTRACT, MULTIPLY, DIVIDE, POW, MIN, MAX;
+
+        double apply(double a, double b) {
+            switch (this) {
+                case ADD: return a + b;
+                case SUBTRACT: return a - b;
+                case MULTIPLY: return a * b;
+                case DIVIDE: return a / b;
+                case POW: return Math.pow(a, b);
+                case MIN: return Math.min(a, b);
+                default: return Math.max(a, b);
+            }
+        }
+    }
+
+    private static final class Binary extends Node {
+        private final Op op;
+        private final Node left;
+        private final Node right;
+
+        Binary(Op op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int depth() {
+            return Math.max(left.depth(), 1 + right.depth());
+        }
+
+        @Override
+        void eval(Rows rows, int n, double[] out, double[][] scratch, int level) {
+            left.eval(rows, n, out, scratch, level);
+            long[] column = right.longColumn(rows);
+            if (column != null) {
+                evalColumn(column, rows.from, n, out);
+                return;
+            }
+            double[] r = scratch[level];
+            right.eval(rows, n, r, scratch, level + 1);
+            // one loop per operator, so the loop body is a single operation
+            switch (op) {
+                case ADD:
+                    for (int i = 0; i < n; i++) out[i] += r[i];
+                    break;
+                case SUBTRACT:
+                    for (int i = 0; i < n; i++) out[i] -= r[i];
+                    break;
+                case MULTIPLY:
+                    for (int i = 0; i < n; i++) out[i] *= r[i];
+                    break;
+                case DIVIDE:
+                    for (int i = 0; i < n; i++) out[i] /= r[i];
+                    break;
+                default:
+                    for (int i = 0; i < n; i++) out[i] = op.apply(out[i], r[i]);
+                    break;
+            }
+        }
+
+        /** Right operand read straight from its column, without a scratch copy. */
+        private void evalColumn(long[] r, int from, int n, double[] out) {
+            switch (op) {
+                case ADD:
+                    for (int i = 0; i < n; i++) out[i] += r[from + i];
+                    break;
+                case SUBTRACT:
+                    for (int i = 0; i < n; i++) out[i] -= r[from + i];
+                    break;
+                case MULTIPLY:
+                    for (int i = 0; i < n; i++) out[i] *= r[from + i];
+                    break;
+                case DIVIDE:
+                    for (int i = 0; i < n; i++) out[i] /= r[from + i];
+                    break;
+                default:
+                    for (int i = 0; i < n; i++) out[i] = op.apply(out[i], r[from + i]);
+                    break;
+            }
+        }
+    }
+
+    /** A binary operation with a constant right operand, which needs no scratch buffer. */
+    private static final class BinaryConstant extends Node {
+        private final Op op;
+        private final Node left;
+        private final double right;
+
+        BinaryConstant(Op op, Node left, double right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int depth() {
+            return left.depth();
+        }
+
+        @Override
+        void eval(Rows rows, int n, double[] out, double[][] scratch, int level) {
+            double c = right;
+            long[] column = left.longColumn(rows);
+            if (column != null && (op == Op.MULTIPLY || op == Op.DIVIDE)) {
+                // the common views / 1000 and likes * 2 forms, in one pass over the column
+                int from = rows.from;
+                if (op == Op.MULTIPLY) {
+                    for (int i = 0; i < n; i++) out[i] = column[from + i] * c;
+                } else {
+                    for (int i = 0; i < n; i++) out[i] = column[from + i] / c;
+                }
+                return;
+            }
+            left.eval(rows, n, out, scratch, level);
+            switch (op) {
+                case ADD:
+                    for (int i = 0; i < n; i++) out[i] += c;
+                    break;
+                case SUBTRACT:
+                    for (int i = 0; i < n; i++) out[i] -= c;
+                    break;
+                case MULTIPLY:
+                    for (int i = 0; i < n; i++) out[i] *= c;
+                    break;
+                case DIVIDE:
+                    for (int i = 0; i < n; i++) out[i] /= c;
+                    break;
+                default:
+                    for (int i = 0; i < n; i++) out[i] = op.apply(out[i], c);
+                    break;
+            }
+        }
+    }
+
+    private enum Function {
+        LOG, LOG10, SQRT, EXP, ABS, NEGATE;
+
+        double apply(double x) {
+            switch (this) {
+                case LOG: return Math.log(x);
+                case LOG10: return Math.log10(x);
+                case SQRT: return Math.sqrt(x);
+                case EXP: return Math.exp(x);
+                case ABS: return Math.abs(x);
+                default: return -x;
+            }
+        }
+    }
+
+    private static final class Unary extends Node {
+        private final Function function;
+        private final Node operand;
+
+        Unary(Function function, Node operand) {
+            this.function = function;
+            this.operand = operand;
+        }
+
+        @Override
+        int depth() {
+            return operand.depth();
+        }
+
+        @Override
+        void eval(Rows rows, int n, double[] out, double[][] scratch, int level) {
+            operand.eval(rows, n, out, scratch, level);
+            switch (function) {
+                case LOG:
+                    for (int i = 0; i < n; i++) out[i] = Math.log(out[i]);
+                    break;
+                case LOG10:
+                    for (int i = 0; i < n; i++) out[i] = Math.log10(out[i]);
+                    break;
+                case SQRT:
+                    for (int i = 0; i < n; i++) out[i] = Math.sqrt(out[i]);
+                    break;
+                case EXP:
+                    for (int i = 0; i < n; i++) out[i] = Math.exp(out[i]);
+                    break;
+                case ABS:
+                    for (int i = 0; i < n; i++) out[i] = Math.abs(out[i]);
+                    break;
+                default:
+                    for (int i = 0; i < n; i++) out[i] = -out[i];
+                    break;
+            }
+        }
+    }
+
+    private static Node binary(Op op, Node left, Node right) {
+        if (left.isConstant() && right.isConstant()) return new Constant(op.apply(left.constant(), right.constant()));
+        if (right.isConstant()) return new BinaryConstant(op, left, right.constant());
+        // a constant left operand of a commutative operation moves to the right
+        if (left.isConstant() && (op == Op.ADD || op == Op.MULTIPLY || op == Op.MIN || op == Op.MAX)) {
+            return new BinaryConstant(op, right, left.constant());
+        }
+        return new Binary(op, left, right);
+    }
+
+    private static Node unary(Function function, Node operand) {
+        return operand.isConstant() ? new Constant(function.apply(operand.constant())) : new Unary(function, operand);
+    }
+
+    /**
+     * Recursive descent parser:
+     * <pre>
+     *   sum     = product (("+" | "-") product)*
+     *   product = unary (("*" | "/") unary)*
+     *   unary   = "-" unary | power
+     *   power   = primary ("^" unary)?
+     *   primary = number | variable | function "(" sum ("," sum)* ")" | "(" sum ")"
+     * </pre>
+     */
+    private static final class Parser {
+        private final String s;
+        private int pos;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        Node parse() {
+            if (s.isEmpty()) throw new IllegalArgumentException("Empty score expression");
+            Node node = sum();
+            skipSpaces();
+            if (pos < s.length()) throw error("Unexpected '" + s.charAt(pos) + "'");
+            return node;
+        }
+
+        private Node sum() {
+            Node node = product();
+            while (true) {
+                if (accept('+')) {
+                    node = binary(Op.ADD, node, product());
+                } else if (accept('-')) {
+                    node = binary(Op.SUBTRACT, node, product());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        private Node product() {
+            Node node = unaryExpression();
+            while (true) {
+                if (accept('*')) {
+                    node = binary(Op.MULTIPLY, node, unaryExpression());
+                } else if (accept('/')) {
+                    node = binary(Op.DIVIDE, node, unaryExpression());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        private Node unaryExpression() {
+            if (accept('-')) return unary(Function.NEGATE, unaryExpression());
+            return power();
+        }
+
+        private Node power() {
+            Node base = primary();
+            return accept('^') ? binary(Op.POW, base, unaryExpression()) : base;
+        }
+
+        private Node primary() {
+            skipSpaces();
+            if (pos >= s.length()) throw error("Unexpected end of expression");
+            char c = s.charAt(pos);
+            if (accept('(')) {
+                Node node = sum();
+                expect(')');
+                return node;
+            }
+            if (Character.isDigit(c) || c == '.') return number();
+            if (Character.isLetter(c)) return name();
+            throw error("Unexpected '" + c + "'");
+        }
+
+        private Node number() {
+            int start = pos;
+            while (pos < s.length() && (Character.isDigit(s.charAt(pos)) || s.charAt(pos) == '.')) pos++;
+            if (pos < s.length() && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')) {
+                pos++;
+                if (pos < s.length() && (s.charAt(pos) == '+' || s.charAt(pos) == '-')) pos++;
+                while (pos < s.length() && Character.isDigit(s.charAt(pos))) pos++;
+            }
+            try {
+                return new Constant(Double.parseDouble(s.substring(start, pos)));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("Malformed number");
+            }
+        }
+
+        private Node name() {
+            int start = pos;
+            while (pos < s.length() && (Character.isLetterOrDigit(s.charAt(pos)) || s.charAt(pos) == '_')) pos++;
+            String name = s.substring(start, pos);
+            switch (name) {
+                case "views": return new Variable(Column.VIEWS);
+                case "likes": return new Variable(Column.LIKES);
+                case "year": return new Variable(Column.YEAR);
+                case "month": return new Variable(Column.MONTH);
+                case "age": return new Variable(Column.AGE);
+                default:
+                    break;
+            }
+            int at = start;
+            List<Node> args = arguments(name, at);
+            switch (name) {
+                case "log": return unary(Function.LOG, single(name, args, at));
+                case "log10": return unary(Function.LOG10, single(name, args, at));
+                case "sqrt": return unary(Function.SQRT, single(name, args, at));
+                case "exp": return unary(Function.EXP, single(name, args, at));
+                case "abs": return unary(Function.ABS, single(name, args, at));
+                case "min": return binary(Op.MIN, pair(name, args, at).get(0), args.get(1));
+                case "max": return binary(Op.MAX, pair(name, args, at).get(0), args.get(1));
+                case "pow": return binary(Op.POW, pair(name, args, at).get(0), args.get(1));
+                default:
+                    pos = at;
+                    throw error("Unknown function '" + name + "'");
+            }
+        }
+
+        private List<Node> arguments(String name, int at) {
+            skipSpaces();
+            if (pos >= s.length() || s.charAt(pos) != '(') {
+                pos = at;
+                throw error("Unknown variable '" + name + "'");
+            }
+            pos++;
+            List<Node> args = new ArrayList<>();
+            args.add(sum());
+            while (accept(',')) args.add(sum());
+            expect(')');
+            return args;
+        }
+
+        private Node single(String name, List<Node> args, int at) {
+            if (args.size() != 1) {
+                pos = at;
+                throw error(name + " takes one argument");
+            }
+            return args.get(0);
+        }
+
+        private List<Node> pair(String name, List<Node> args, int at) {
+            if (args.size() != 2) {
+                pos = at;
+                throw error(name + " takes two arguments");
+            }
+            return args;
+        }
+
+        private boolean accept(char c) {
+            skipSpaces();
+            if (pos < s.length() && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) throw error("Expected '" + c + "'");
+        }
+
+        private void skipSpaces() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + (pos + 1) + " of score expression: " + s);
+        }
+    }
+}
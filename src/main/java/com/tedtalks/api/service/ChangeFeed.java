@@ -0,0 +1,109 @@
+package com.tedtalks.api.service;
+
+import com.tedtalks.api.model.TalkChange;
+import com.tedtalks.api.model.TedTalk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered log of the most recent changes to the stored talks.
+ * <p>
+ * Every change gets the next sequence number, starting at 1 when the process starts. The
+ * last {@code capacity} changes are kept in a ring buffer; a reader asks for the changes
+ * after the last sequence number it has seen and is told when some of them have already
+ * been overwritten, so it can start over from a full listing. Readers hold no buffer of
+ * their own: a slow reader only falls behind, it never holds up writers or makes the feed
+ * grow.
+ * </p>
+ */
+public class ChangeFeed {
+
+    private final TalkChange[] ring;
+    private final Object monitor = new Object();
+
+    /** Sequence number of the last change, 0 if there is none. */
+    private long last;
+
+    /**
+     * @param capacity the number of changes kept for readers that are behind
+     */
+    public ChangeFeed(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        ring = new TalkChange[capacity];
+    }
+
+    /**
+     * Records a stored talk.
+     *
+     * @param created whether no talk with that title was stored before
+     */
+    public void put(TedTalk talk, boolean created) {
+        append(created ? TalkChange.Type.CREATED : TalkChange.Type.UPDATED, talk.getTitle(), talk);
+    }
+
+    /**
+     * Records a deleted talk.
+     */
+    public void delete(String title) {
+        append(TalkChange.Type.DELETED, title, null);
+    }
+
+    /** Sequence number of the last change, 0 if there is none. */
+    public long last() {
+        synchronized (monitor) {
+            return last;
+        }
+    }
+
+    /**
+     * Returns the changes following a sequence number.
+     *
+     * @param after the last sequence number already seen, 0 for the start of the feed
+     * @param max   the maximum number of changes to return
+     * @return up to max changes in sequence order, empty if there are none yet, or null
+     *         if changes after the given number are no longer kept or the number was
+     *         never handed out by this feed
+     */
+    public List<TalkChange> read(long after, int max) {
+        synchronized (monitor) {
+            if (after < 0 || after > last || after < last - ring.length) return null;
+            int n = (int) Math.min(max, last - after);
+            List<TalkChange> changes = new ArrayList<>(n);
+            for (long seq = after + 1; seq <= after + n; seq++) {
+                changes.add(ring[slot(seq)]);
+            }
+            return changes;
+        }
+    }
+
+    /**
+     * Blocks until there is a change after the given sequence number or the timeout
+     * passes.
+     *
+     * @return whether there is a change after the given number
+     */
+    public boolean await(long after, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (monitor) {
+            while (last <= after) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                monitor.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    private void append(TalkChange.Type type, String title, TedTalk talk) {
+        synchronized (monitor) {
+            long seq = ++last;
+            ring[slot(seq)] = new TalkChange(seq, type, title, talk);
+            monitor.notifyAll();
+        }
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % ring.length);
+    }
+}
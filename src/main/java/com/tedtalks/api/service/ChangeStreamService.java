@@ -0,0 +1,207 @@
+package com.tedtalks.api.service;
+
+import com.tedtalks.api.metrics.Counter;
+import com.tedtalks.api.metrics.MetricRegistry;
+import com.tedtalks.api.model.TalkChange;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the {@link ChangeFeed} of {@link TedTalkService} to subscribers as server-sent events.
+ * <p>
+ * Changes are delivered in batches: each {@code changes} event carries the JSON array of
+ * up to {@code batch} consecutive changes and has the sequence number of the last one as
+ * its event id, so a reconnecting client resumes with the standard {@code Last-Event-ID}
+ * header. A subscriber has at most one batch in flight; while a slow client is still
+ * receiving, its changes stay in the shared feed and the next batch picks up all that
+ * accumulated, up to the batch size. A subscriber that falls more than
+ * {@value TedTalkService#CHANGE_FEED_CAPACITY} changes behind, or resumes from a sequence
+ * number the feed no longer holds, gets a {@code reset} event with the current sequence
+ * number and is closed: it should reload the talks and subscribe again after that number.
+ * Changes carry the complete talk, so applying one that the reload already reflected is
+ * harmless.
+ * </p>
+ * <p>
+ * One dispatcher thread waits for new changes and hands ready subscribers to a pool of
+ * {@code tedtalks.changes.senders} threads (4 by default), so a client that stops reading
+ * only ties up its own sends. Idle subscribers get a comment every
+ * {@code tedtalks.changes.heartbeat-ms} milliseconds (15 s by default), which also
+ * detects closed connections. At most {@code tedtalks.changes.subscribers} subscribers
+ * (256 by default) are served at once.
+ * </p>
+ */
+@Service
+public class ChangeStreamService {
+
+    /** Largest number of changes in one event. */
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    private final ChangeFeed feed;
+    private final int maxSubscribers;
+    private final long heartbeatMillis;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ThreadPoolExecutor senders;
+    private final Thread dispatcher;
+    private final Counter resets;
+
+    private volatile boolean running = true;
+
+    public ChangeStreamService(TedTalkService tedTalkService, MetricRegistry metrics,
+                               @Value("${tedtalks.changes.senders:4}") int senders,
+                               @Value("${tedtalks.changes.subscribers:256}") int maxSubscribers,
+                               @Value("${tedtalks.changes.heartbeat-ms:15000}") long heartbeatMillis) {
+        this.feed = tedTalkService.getChangeFeed();
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeatMillis = heartbeatMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        // each subscriber queues at most one send, so the queue is bounded by the subscriber limit
+        this.senders = new ThreadPoolExecutor(senders, senders, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "change-stream-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.resets = metrics.counter("tedtalks_change_stream_resets_total",
+                "Subscribers closed because the change feed no longer held their next change", "");
+        metrics.gauge("tedtalks_change_stream_subscribers", "Open change stream subscriptions", "", subscribers::size);
+        this.dispatcher = new Thread(this::dispatch, "change-stream-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Opens a subscription.
+     *
+     * @param after     the last sequence number already seen, or null to receive only
+     *                  changes made from now on
+     * @param batchSize the maximum number of changes per event
+     * @return the emitter to return from the request handler
+     * @throws IllegalArgumentException   if the batch size is not between 1 and {@value #MAX_BATCH_SIZE}
+     * @throws RejectedExecutionException if the subscriber limit is reached
+     */
+    public SseEmitter subscribe(Long after, int batchSize) {
+        if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("batch must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new RejectedExecutionException("Too many change stream subscribers");
+        }
+        // no timeout: heartbeats detect closed connections
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter, after == null ? feed.last() : after, batchSize);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(e -> close(subscriber));
+        subscribers.add(subscriber);
+        // the first send is a heartbeat or the backlog, either way the client sees the stream open
+        schedule(subscriber);
+        return emitter;
+    }
+
+    /** Number of open subscriptions. */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+        senders.shutdownNow();
+        for (Subscriber s : subscribers) {
+            close(s);
+            s.emitter.complete();
+        }
+    }
+
+    private void dispatch() {
+        long seen = feed.last();
+        while (running) {
+            try {
+                feed.await(seen, heartbeatMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            seen = feed.last();
+            long now = System.currentTimeMillis();
+            for (Subscriber s : subscribers) {
+                if (s.cursor < seen || now - s.lastSent >= heartbeatMillis) schedule(s);
+            }
+        }
+    }
+
+    private void schedule(Subscriber s) {
+        if (s.closed || !s.busy.compareAndSet(false, true)) return;
+        try {
+            senders.execute(() -> send(s));
+        } catch (RejectedExecutionException e) {
+            s.busy.set(false);
+        }
+    }
+
+    private void send(Subscriber s) {
+        try {
+            List<TalkChange> changes = feed.read(s.cursor, s.batchSize);
+            if (changes == null) {
+                resets.increment();
+                close(s);
+                s.emitter.send(SseEmitter.event().name("reset")
+                        .data(Collections.singletonMap("sequence", feed.last()), MediaType.APPLICATION_JSON));
+                s.emitter.complete();
+                return;
+            }
+            if (!changes.isEmpty()) {
+                long last = changes.get(changes.size() - 1).getSequence();
+                s.emitter.send(SseEmitter.event().id(Long.toString(last)).name("changes")
+                        .data(changes, MediaType.APPLICATION_JSON));
+                s.cursor = last;
+            } else if (System.currentTimeMillis() - s.lastSent >= heartbeatMillis) {
+                s.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                return;
+            }
+            s.lastSent = System.currentTimeMillis();
+        } catch (IOException | IllegalStateException e) {
+            // the client went away or the emitter already completed
+            close(s);
+            s.emitter.completeWithError(e);
+        } finally {
+            s.busy.set(false);
+        }
+        // changes that arrived while this batch was sent were skipped by the dispatcher
+        if (feed.last() > s.cursor) schedule(s);
+    }
+
+    private void close(Subscriber s) {
+        s.closed = true;
+        subscribers.remove(s);
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final int batchSize;
+        private final AtomicBoolean busy = new AtomicBoolean();
+        private volatile long cursor;
+        private volatile long lastSent;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, long cursor, int batchSize) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.batchSize = batchSize;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.tedtalks.api.service;
+
+import com.tedtalks.api.model.ImportReport;
+import com.tedtalks.api.model.TedTalk;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.tedtalks.api.service.TedTalkService.*;
+
+/**
+ * Chunked CSV and NDJSON import pipeline.
+ * <p>
+ * The calling thread streams records from the reader and groups them into batches.
+ * Each batch is converted and validated in parallel while the next batch is being read,
+ * and is then handed to the sink in file order, one call per batch. At most two batches
+ * are held in memory at any time.
+ * </p>
+ * The CSV is expected to have header with columns title,author,date,views,likes,link.
+ * NDJSON holds one talk object per line with the same fields; blank lines are skipped
+ * and lines that are not a valid talk are rejected.
+ */
+class CsvTalkImporter {
+
+    static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    private static final CSVFormat FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .build();
+
+    private static final ObjectReader NDJSON = new ObjectMapper()
+            .readerFor(TedTalk.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final int batchSize;
+
+    CsvTalkImporter() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    CsvTalkImporter(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reads all records from the reader and publishes the valid ones batch by batch.
+     * The reader is closed when the import ends.
+     *
+     * @param reader source of CSV text
+     * @param sink   receives each batch of parsed talks, in file order
+     * @return the import report
+     * @throws IOException if the input cannot be read
+     */
+    ImportReport importCsv(Reader reader, Consumer<List<TedTalk>> sink) throws IOException {
+        return importCsv(reader, sink, ImportProgress.NONE);
+    }
+
+    /**
+     * Reads all records from the reader and publishes the valid ones batch by batch,
+     * reporting progress after every batch. The reader is closed when the import ends.
+     * A cancelled import keeps the batches published before it stopped.
+     *
+     * @param reader   source of CSV text
+     * @param sink     receives each batch of parsed talks, in file order
+     * @param progress receives the counts so far and is polled for cancellation
+     * @return the import report
+     * @throws IOException              if the input cannot be read
+     * @throws IllegalArgumentException if the input is not well-formed CSV
+     * @throws CancellationException    if the import was cancelled
+     */
+    ImportReport importCsv(Reader reader, Consumer<List<TedTalk>> sink, ImportProgress progress) throws IOException {
+        ReadFailures in = new ReadFailures(reader);
+        try (in; CSVParser parser = FORMAT.parse(in)) {
+            return importRecords(parser.iterator(), CsvTalkImporter::toTalk, sink, progress);
+        } catch (IOException e) {
+            // commons-csv reports syntax errors as IOExceptions too
+            if (in.failure != null) throw in.failure;
+            throw new IllegalArgumentException("Malformed CSV: " + e.getMessage(), e);
+        } catch (IllegalStateException | UncheckedIOException e) {
+            // ...and wraps both kinds when they come from its record iterator
+            if (in.failure != null) throw in.failure;
+            if (!(e.getCause() instanceof IOException)) throw e;
+            throw new IllegalArgumentException("Malformed CSV: " + e.getCause().getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads all lines from the reader and publishes the valid talks batch by batch, as
+     * {@link #importCsv(Reader, Consumer, ImportProgress)} does for CSV. Lines are only
+     * split off on the reading thread; the JSON is parsed in the parallel stage.
+     *
+     * @param reader   source of newline-delimited JSON
+     * @param sink     receives each batch of parsed talks, in file order
+     * @param progress receives the counts so far and is polled for cancellation
+     * @return the import report
+     * @throws IOException           if the input cannot be read
+     * @throws CancellationException if the import was cancelled
+     */
+    ImportReport importNdjson(Reader reader, Consumer<List<TedTalk>> sink, ImportProgress progress) throws IOException {
+        try (BufferedReader in = new BufferedReader(reader, 1 << 16)) {
+            return importRecords(new LineIterator(in), CsvTalkImporter::parseTalk, sink, progress);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private <R> ImportReport importRecords(Iterator<R> records, Function<R, TedTalk> convert,
+                                           Consumer<List<TedTalk>> sink, ImportProgress progress) {
+        long start = System.nanoTime();
+        long read = 0;
+        long imported = 0;
+        CompletableFuture<List<TedTalk>> pending = null;
+        try {
+            List<R> batch = new ArrayList<>(batchSize);
+            while (records.hasNext()) {
+                batch.add(records.next());
+                read++;
+                if (batch.size() == batchSize) {
+                    checkCancelled(progress);
+                    imported += publish(pending, sink);
+                    // the batch just read is still to be converted
+                    progress.update(read - batch.size(), imported);
+                    pending = convertAsync(batch, convert);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            checkCancelled(progress);
+            imported += publish(pending, sink);
+            pending = null;
+            if (!batch.isEmpty()) {
+                imported += publish(convertAsync(batch, convert), sink);
+            }
+            progress.update(read, imported);
+        } finally {
+            if (pending != null) pending.cancel(false);
+        }
+        return new ImportReport(imported, read - imported, System.nanoTime() - start);
+    }
+
+    private static void checkCancelled(ImportProgress progress) {
+        if (progress.isCancelled()) throw new CancellationException("Import cancelled");
+    }
+
+    private static <R> CompletableFuture<List<TedTalk>> convertAsync(List<R> batch, Function<R, TedTalk> convert) {
+        return CompletableFuture.supplyAsync(() -> batch.parallelStream()
+                .map(convert)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    private static int publish(CompletableFuture<List<TedTalk>> converted, Consumer<List<TedTalk>> sink) {
+        if (converted == null) return 0;
+        List<TedTalk> talks;
+        try {
+            talks = converted.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        if (!talks.isEmpty()) sink.accept(talks);
+        return talks.size();
+    }
+
+    /**
+     * Converts a CSV record into a talk, or returns null if the record has no title.
+     */
+    static TedTalk toTalk(CSVRecord r) {
+        String title = r.isMapped(TITLE) ? r.get(TITLE) : null;
+        if (title == null || title.isBlank()) return null;
+        String author = r.isMapped(AUTHOR) ? r.get(AUTHOR) : StringUtils.EMPTY;
+        String date = r.isMapped(DATE) ? r.get(DATE) : StringUtils.EMPTY;
+        long views = parseLongSafe(r.isMapped(VIEWS) ? r.get(VIEWS) : StringUtils.EMPTY);
+        long likes = parseLongSafe(r.isMapped(LIKES) ? r.get(LIKES) : StringUtils.EMPTY);
+        String link = r.isMapped(LINK) ? r.get(LINK) : StringUtils.EMPTY;
+        return new TedTalk(title.trim(), author.trim(), date.trim(), views, likes, link.trim());
+    }
+
+    /**
+     * Converts an NDJSON line into a talk, or returns null if the line is not a JSON
+     * talk object or has no title. Fields are normalized as for CSV records.
+     */
+    static TedTalk parseTalk(String line) {
+        TedTalk t;
+        try {
+            t = NDJSON.readValue(line);
+        } catch (IOException e) {
+            return null;
+        }
+        if (t == null || t.getTitle() == null || t.getTitle().isBlank()) return null;
+        return new TedTalk(t.getTitle().trim(), trim(t.getAuthor()), trim(t.getDate()),
+                t.getViews(), t.getLikes(), trim(t.getLink()));
+    }
+
+    private static String trim(String s) {
+        return s == null ? StringUtils.EMPTY : s.trim();
+    }
+
+    /**
+     * Parses the digits of a value, ignoring any other characters ("12,000" is 12000).
+     * Returns 0 for values without digits or that overflow a long.
+     */
+    static long parseLongSafe(String s) {
+        if (s == null) return 0L;
+        long value = 0L;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') continue;
+            if (value > (Long.MAX_VALUE - (c - '0')) / 10) return 0L;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Remembers the last error raised by the underlying reader, so that
+     * {@link #importCsv(Reader, Consumer, ImportProgress)} can tell a failed read from a
+     * syntax error once the CSV parser has wrapped both.
+     */
+    private static final class ReadFailures extends FilterReader {
+        private IOException failure;
+
+        private ReadFailures(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw failure = e;
+            }
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            try {
+                return super.read(buffer, offset, length);
+            } catch (IOException e) {
+                throw failure = e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } catch (IOException e) {
+                throw failure = e;
+            }
+        }
+    }
+
+    /**
+     * Iterates over the non-blank lines of a reader. Read errors are rethrown unchecked
+     * and unwrapped again by {@link #importNdjson}.
+     */
+    private static final class LineIterator implements Iterator<String> {
+        private final BufferedReader in;
+        private String next;
+
+        private LineIterator(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    String line = in.readLine();
+                    if (line == null) return false;
+                    if (!line.isBlank()) next = line;
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String line = next;
+            next = null;
+            return line;
+        }
+    }
+}
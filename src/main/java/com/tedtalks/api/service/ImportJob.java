@@ -0,0 +1,93 @@
+package com.tedtalks.api.service;
+
+import com.tedtalks.api.model.ImportJobStatus;
+import com.tedtalks.api.model.ImportJobStatus.State;
+
+import java.util.concurrent.Future;
+
+/**
+ * Live state of one background import. Progress is written by the importing thread
+ * and read by status requests; {@link #status()} returns a consistent copy.
+ */
+final class ImportJob implements ImportProgress {
+
+    private final String id;
+    private final String source;
+
+    private State state = State.QUEUED;
+    private long rowsRead;
+    private long imported;
+    private boolean started;
+    private long startNanos;
+    private long endNanos;
+    private String error;
+    private volatile boolean cancelled;
+    private Future<?> future;
+
+    ImportJob(String id, String source) {
+        this.id = id;
+        this.source = source;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Moves a queued job to RUNNING.
+     *
+     * @return false if the job was cancelled while queued
+     */
+    synchronized boolean start() {
+        if (state != State.QUEUED) return false;
+        state = State.RUNNING;
+        started = true;
+        startNanos = System.nanoTime();
+        return true;
+    }
+
+    synchronized void finish(State state, String error) {
+        if (this.state.isFinished()) return;
+        this.state = state;
+        this.error = error;
+        this.endNanos = System.nanoTime();
+    }
+
+    /**
+     * Asks the job to stop. A queued job is cancelled at once, a running one stops
+     * before publishing its next batch.
+     */
+    synchronized void cancel() {
+        if (state.isFinished()) return;
+        cancelled = true;
+        if (state == State.QUEUED) {
+            finish(State.CANCELLED, null);
+            if (future != null) future.cancel(false);
+        }
+    }
+
+    @Override
+    public synchronized void update(long rowsRead, long imported) {
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    synchronized boolean isFinished() {
+        return state.isFinished();
+    }
+
+    synchronized ImportJobStatus status() {
+        long elapsed = !started ? 0 : (state.isFinished() ? endNanos : System.nanoTime()) - startNanos;
+        return new ImportJobStatus(id, source, state, rowsRead, imported, rowsRead - imported,
+                elapsed / 1_000_000, error);
+    }
+}
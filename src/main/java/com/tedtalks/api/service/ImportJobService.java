@@ -0,0 +1,172 @@
+package com.tedtalks.api.service;
+
+import com.tedtalks.api.model.ImportJobStatus;
+import com.tedtalks.api.model.ImportJobStatus.State;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs CSV and NDJSON imports as background jobs.
+ * <p>
+ * Jobs run on a fixed pool of {@code tedtalks.import.threads} threads (2 by default), so
+ * several imports proceed concurrently while memory and CPU use stay bounded: each
+ * running import holds at most two batches. Up to {@code tedtalks.import.queue} further
+ * jobs wait in line (16 by default); beyond that submissions are rejected. The most
+ * recent {@value #RETAINED_JOBS} jobs stay queryable after they finish.
+ * </p>
+ */
+@Service
+public class ImportJobService {
+
+    private static final int RETAINED_JOBS = 100;
+
+    /**
+     * Opens the data of a job once it starts running.
+     */
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    private final TedTalkService tedTalkService;
+
+    private final ThreadPoolExecutor executor;
+
+    /** Jobs in submission order. */
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>();
+
+    public ImportJobService(TedTalkService tedTalkService,
+                            @Value("${tedtalks.import.threads:2}") int threads,
+                            @Value("${tedtalks.import.queue:16}") int queueCapacity) {
+        this.tedTalkService = tedTalkService;
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "csv-import-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Queues a CSV import.
+     *
+     * @param name   the name of the source reported in the job status, e.g. its path
+     * @param source opens the CSV data when the job starts
+     * @return the status of the queued job
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public ImportJobStatus submit(String name, Source source) {
+        return submit(name, false, source);
+    }
+
+    /**
+     * Queues a CSV or NDJSON import.
+     *
+     * @param name   the name of the source reported in the job status, e.g. its path
+     * @param ndjson whether the source holds newline-delimited JSON rather than CSV
+     * @param source opens the data when the job starts
+     * @return the status of the queued job
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public ImportJobStatus submit(String name, boolean ndjson, Source source) {
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), name);
+        synchronized (jobs) {
+            job.setFuture(executor.submit(() -> run(job, ndjson, source)));
+            jobs.put(job.getId(), job);
+            evictFinished();
+        }
+        return job.status();
+    }
+
+    /**
+     * Returns the current status of a job.
+     */
+    public Optional<ImportJobStatus> get(String id) {
+        return job(id).map(ImportJob::status);
+    }
+
+    /**
+     * Returns the status of all retained jobs, oldest first.
+     */
+    public List<ImportJobStatus> list() {
+        List<ImportJobStatus> result = new ArrayList<>();
+        synchronized (jobs) {
+            for (ImportJob job : jobs.values()) result.add(job.status());
+        }
+        return result;
+    }
+
+    /**
+     * Cancels a job. Talks already stored by a running job are kept.
+     *
+     * @return the status of the job, which may still be RUNNING until its current batch is done
+     */
+    public Optional<ImportJobStatus> cancel(String id) {
+        Optional<ImportJob> job = job(id);
+        job.ifPresent(ImportJob::cancel);
+        // frees the queue slots of cancelled queued jobs
+        executor.purge();
+        return job.map(ImportJob::status);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (jobs) {
+            jobs.values().forEach(ImportJob::cancel);
+        }
+        executor.shutdown();
+    }
+
+    private Optional<ImportJob> job(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    private void run(ImportJob job, boolean ndjson, Source source) {
+        if (!job.start()) return;
+        try (InputStream in = source.open()) {
+            Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+            if (ndjson) {
+                tedTalkService.importFromNdjson(reader, job);
+            } else {
+                tedTalkService.importFromCsv(reader, job);
+            }
+            job.finish(State.SUCCEEDED, null);
+        } catch (CancellationException e) {
+            job.finish(State.CANCELLED, null);
+        } catch (Exception e) {
+            job.finish(State.FAILED, e.toString());
+        } finally {
+            // no-op unless an Error escaped
+            job.finish(State.FAILED, "Import aborted");
+        }
+    }
+
+    private void evictFinished() {
+        Iterator<ImportJob> it = jobs.values().iterator();
+        while (jobs.size() > RETAINED_JOBS && it.hasNext()) {
+            if (it.next().isFinished()) it.remove();
+        }
+    }
+}
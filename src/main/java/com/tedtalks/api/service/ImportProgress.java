@@ -0,0 +1,32 @@
+package com.tedtalks.api.service;
+
+/**
+ * Receives the progress of a running CSV import and can ask it to stop.
+ */
+interface ImportProgress {
+
+    /** Progress listener for imports that are neither observed nor cancelled. */
+    ImportProgress NONE = new ImportProgress() {
+        @Override
+        public void update(long rowsRead, long imported) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * Called after each published batch.
+     *
+     * @param rowsRead number of CSV records in the batches published so far
+     * @param imported number of talks stored so far, at most rowsRead
+     */
+    void update(long rowsRead, long imported);
+
+    /**
+     * Polled between batches; once true the import stops before publishing its next batch.
+     */
+    boolean isCancelled();
+}
@@ -0,0 +1,98 @@
+package com.tedtalks.api.service;
+
+import com.tedtalks.api.metrics.Counter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of computed results, each tagged with the data version it was computed from.
+ * <p>
+ * A lookup passes the current version of the data the result depends on; an entry computed
+ * from an older version is recomputed, so invalidation follows the data without explicit
+ * eviction. Concurrent lookups of a key that is being computed wait for that computation
+ * instead of repeating it. The least recently used entry is dropped once {@code capacity}
+ * keys are cached. Results must not be modified by callers.
+ * </p>
+ *
+ * @param <K> the key, e.g. endpoint and parameters
+ * @param <V> the cached result
+ */
+class ResultCache<K, V> {
+
+    private final Map<K, CachedValue<V>> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    ResultCache(int capacity, Counter hits, Counter misses, Counter coalesced) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = hits;
+        this.misses = misses;
+        this.coalesced = coalesced;
+    }
+
+    /**
+     * Returns the cached result for the key if it was computed from the given version or a
+     * later one, and computes it otherwise.
+     *
+     * @param key     the cache key
+     * @param version the current version of the data the result depends on, read before computing
+     * @param compute computes the result from the current data
+     * @return the result
+     */
+    V get(K key, long version, Supplier<V> compute) {
+        CachedValue<V> entry;
+        boolean owner = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null || entry.version < version) {
+                entry = new CachedValue<>(version);
+                entries.put(key, entry);
+                owner = true;
+            }
+        }
+        if (owner) {
+            misses.increment();
+            try {
+                entry.result.complete(compute.get());
+            } catch (RuntimeException | Error e) {
+                entry.result.completeExceptionally(e);
+                synchronized (this) {
+                    entries.remove(key, entry);
+                }
+                throw e;
+            }
+        } else if (entry.result.isDone()) {
+            hits.increment();
+        } else {
+            coalesced.increment();
+        }
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class CachedValue<V> {
+        private final long version;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        private CachedValue(long version) {
+            this.version = version;
+        }
+    }
+}
@@ -1,66 +1,326 @@
 package com.tedtalks.api.service;
 
+import com.tedtalks.api.index.InfluenceRanking;
+import com.tedtalks.api.index.MonthlyTotals;
+import com.tedtalks.api.index.TalkColumns;
+import com.tedtalks.api.index.TalkSketches;
+import com.tedtalks.api.metrics.MetricRegistry;
+import com.tedtalks.api.metrics.TimerSet;
+import com.tedtalks.api.model.MonthlyTotal;
+import com.tedtalks.api.model.SpeakerStats;
+import com.tedtalks.api.model.TalkDates;
+import com.tedtalks.api.model.TalkDistribution;
+import com.tedtalks.api.model.TalkStats;
+import com.tedtalks.api.model.TalkTrend;
 import com.tedtalks.api.model.TedTalk;
+import com.tedtalks.api.score.ScoreExpression;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.YearMonth;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
- * Placeholder service for speaker influence analysis with basic metrics.
+ * Service for speaker influence analysis with basic metrics.
  */
 @Service
 public class SpeakerAnalysisService {
 
+    /** Timed methods, exported as tedtalks_analysis_seconds{method="..."}. */
+    private enum Operation {
+        COMPUTE_INFLUENCE_SCORES, GET_TOP_N_TITLES, GET_TOP_N_TITLES_FOR_YEAR, GET_STATS,
+        GET_SPEAKER_LEADERBOARD, GET_SPEAKER_STATS, GET_TOP_N_TITLES_OF_LIST, GET_DISTRIBUTION,
+        GET_TREND, GET_TOP_N_TITLES_BY_SCORE
+    }
+
+    /** Longest month range a trend covers. */
+    public static final int MAX_TREND_MONTHS = 1200;
+
+    /** Lists with fewer talks are scored on the calling thread. */
+    private static final int PARALLEL_TALKS = 1 << 15;
+
+    /** Number of cached analysis results. */
+    private static final int CACHE_CAPACITY = 1024;
+
+    private final TedTalkService tedTalkService;
+
+    private final TimerSet<Operation> timers;
+
+    /**
+     * Results of the ranking methods, keyed by method and parameters.
+     */
+    private final ResultCache<String, List<Map<String, String>>> rankings;
+
+    /**
+     * Creates a service over an empty store, for analysing lists of talks.
+     */
+    public SpeakerAnalysisService() {
+        this(new TedTalkService());
+    }
+
+    public SpeakerAnalysisService(TedTalkService tedTalkService) {
+        this(tedTalkService, new MetricRegistry());
+    }
+
+    @Autowired
+    public SpeakerAnalysisService(TedTalkService tedTalkService, MetricRegistry metrics) {
+        this.tedTalkService = tedTalkService;
+        this.timers = metrics.timers("tedtalks_analysis_seconds", "Latency of SpeakerAnalysisService methods",
+                "method", Operation.class);
+        String help = "Lookups of cached analysis results";
+        this.rankings = new ResultCache<>(CACHE_CAPACITY,
+                metrics.counter("tedtalks_analysis_cache_total", help, "result=\"hit\""),
+                metrics.counter("tedtalks_analysis_cache_total", help, "result=\"miss\""),
+                metrics.counter("tedtalks_analysis_cache_total", help, "result=\"coalesced\""));
+    }
+
     /**
      * Compute a simple influence score for each talk:
      * score = likes + (views / 1000)
      * Returns a map of title -> score sorted descending.
+     * If several talks share a title, the title keeps the highest of their scores.
+     * Large lists are scored and sorted in parallel on the common fork-join pool.
      */
     public Map<String, Double> computeInfluenceScores(List<TedTalk> talks) {
+        long start = System.nanoTime();
+        try {
+            boolean parallel = talks.size() >= PARALLEL_TALKS;
 
-        // Step 1: Build a HashMap of title → score
-        Map<String, Double> scoreMap = new HashMap<>();
-        for (TedTalk t : talks) {
-            double score = t.getLikes() + (t.getViews() / 1000.0);
-            scoreMap.put(t.getTitle(), score);
+            // Step 1: Build a HashMap of title → best score, one map per chunk when parallel
+            Map<String, Double> scoreMap;
+            if (parallel) {
+                scoreMap = talks.parallelStream().collect(
+                        Collectors.toMap(TedTalk::getTitle, InfluenceRanking::scoreOf, Math::max, HashMap::new));
+            } else {
+                scoreMap = new HashMap<>();
+                for (TedTalk t : talks) {
+                    scoreMap.merge(t.getTitle(), InfluenceRanking.scoreOf(t), Math::max);
+                }
+            }
+
+            // Step 2: Sort entries by score (value) in descending order; a parallel
+            // sorted stream sorts its array with Arrays.parallelSort
+            Comparator<Map.Entry<String, Double>> byScore = (e1, e2) -> e2.getValue().compareTo(e1.getValue());
+            Stream<Map.Entry<String, Double>> entries = scoreMap.entrySet().stream();
+            if (parallel) entries = entries.parallel();
+
+            // Step 3: Put sorted entries into a LinkedHashMap to preserve order
+            Map<String, Double> sortedMap = new LinkedHashMap<>();
+            entries.sorted(byScore).forEachOrdered(entry -> sortedMap.put(entry.getKey(), entry.getValue()));
+
+            return sortedMap;
+        } finally {
+            timers.recordSince(Operation.COMPUTE_INFLUENCE_SCORES, start);
         }
+    }
 
-        // Step 2: Convert entries to a list so we can sort
-        List<Map.Entry<String, Double>> entries = new ArrayList<>(scoreMap.entrySet());
+    /**
+     * Return top N stored talks by influence score.
+     * Reads the live ranking maintained by TedTalkService, so the cost is O(N)
+     * regardless of how many talks are stored. The result is cached until any talk changes.
+     */
+    public List<Map<String, String>> getTopNTitles(int topN) {
+        long start = System.nanoTime();
+        try {
+            return rankings.get("analysis:" + topN, tedTalkService.getChangeTracker().version(),
+                    () -> toTitleMaps(tedTalkService.getTopInfluential(topN)));
+        } finally {
+            timers.recordSince(Operation.GET_TOP_N_TITLES, start);
+        }
+    }
 
-        // Step 3: Sort entries by score (value) in descending order
-        entries.sort((e1, e2) -> e2.getValue().compareTo(e1.getValue()));
+    /**
+     * Return top N stored talks of a year by influence score.
+     * Scores are computed over the rows of that year only, read from the per-year row lists
+     * of the primitive columns of TedTalkService, keeping only the N best rows. The result is cached until a talk of that year changes.
+     */
+    public List<Map<String, String>> getTopNTitlesForYear(int year, int topN) {
+        long start = System.nanoTime();
+        try {
+            return rankings.get("tedTalkPerYear:" + year + ":" + topN, tedTalkService.getChangeTracker().version(year),
+                    () -> toTitleMaps(tedTalkService.getColumns().topByInfluence(topN, year)));
+        } finally {
+            timers.recordSince(Operation.GET_TOP_N_TITLES_FOR_YEAR, start);
+        }
+    }
 
-        // Step 4: Put sorted entries into a LinkedHashMap to preserve order
-        Map<String, Double> sortedMap = new LinkedHashMap<>();
-        for (Map.Entry<String, Double> entry : entries) {
-            sortedMap.put(entry.getKey(), entry.getValue());
+    /**
+     * Return top N stored talks by a custom score expression, optionally restricted to
+     * one year; see {@link ScoreExpression} for the syntax. Without an expression this is
+     * {@link #getTopNTitles(int)} or {@link #getTopNTitlesForYear(int, int)}.
+     * The expression is compiled once and evaluated block by block over the primitive
+     * columns of TedTalkService, keeping only the N best rows. Talks it scores as not a
+     * number are left out. The result is cached like the built-in rankings, and for
+     * expressions using {@code age} only until the month changes.
+     *
+     * @param year  the year, or null for all years
+     * @param topN  the number of talks
+     * @param score the score expression, or null for the influence score
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public List<Map<String, String>> getTopNTitles(Integer year, int topN, String score) {
+        if (score == null || score.trim().isEmpty()) {
+            return year == null ? getTopNTitles(topN) : getTopNTitlesForYear(year, topN);
         }
+        long start = System.nanoTime();
+        try {
+            ScoreExpression expression = ScoreExpression.compile(score);
+            YearMonth now = YearMonth.now();
+            int nowEpochMonth = TalkDates.epochMonth(now.getYear(), now.getMonthValue());
+            long version = year == null ? tedTalkService.getChangeTracker().version()
+                    : tedTalkService.getChangeTracker().version(year);
+            return rankings.get("score:" + year + ":" + topN + ":" + now + ":" + expression.source(), version,
+                    () -> toTitleMaps(tedTalkService.getColumns().topByScore(expression, topN,
+                            year == null ? TalkColumns.ALL_YEARS : year, nowEpochMonth)));
+        } finally {
+            timers.recordSince(Operation.GET_TOP_N_TITLES_BY_SCORE, start);
+        }
+    }
 
-        return sortedMap;
+    /**
+     * Aggregate views, likes and average influence of the stored talks,
+     * optionally restricted to one year and/or one author.
+     *
+     * @param year   the year, or null for all years
+     * @param author the author, or null for all authors
+     */
+    public TalkStats getStats(Integer year, String author) {
+        long start = System.nanoTime();
+        try {
+            return tedTalkService.getColumns().summarize(year == null ? TalkColumns.ALL_YEARS : year, author);
+        } finally {
+            timers.recordSince(Operation.GET_STATS, start);
+        }
+    }
+
+    /**
+     * Estimate view and like quantiles and the number of distinct speakers of the stored
+     * talks, optionally restricted to one year or one month of a year.
+     * Served from sketches that TedTalkService maintains on every change, so the cost
+     * does not depend on the number of talks.
+     *
+     * @param year      the year, or null for all years
+     * @param month     the month 1-12 within the year, or null for the whole year
+     * @param quantiles the quantiles to estimate, each between 0 and 1
+     * @throws IllegalArgumentException if a month is given without a year, or a
+     *                                  parameter is out of range
+     */
+    public TalkDistribution getDistribution(Integer year, Integer month, double... quantiles) {
+        long start = System.nanoTime();
+        try {
+            if (month != null && (year == null || month < 1 || month > 12)) {
+                throw new IllegalArgumentException("month must be between 1 and 12 and requires a year");
+            }
+            TalkSketches sketches = tedTalkService.getSketches();
+            if (year == null) return sketches.all(quantiles);
+            return month == null ? sketches.year(year, quantiles) : sketches.month(year, month, quantiles);
+        } finally {
+            timers.recordSince(Operation.GET_DISTRIBUTION, start);
+        }
+    }
+
+    /**
+     * Return the views and likes of every month in a range, with moving averages over the
+     * given number of months and the growth from the first month to the last.
+     * Served from monthly prefix sums that TedTalkService maintains on every change, so
+     * the range totals cost O(log m) for m months and each returned month O(1).
+     *
+     * @param from   the first month
+     * @param to     the last month, inclusive
+     * @param window the number of months each moving average covers
+     * @throws IllegalArgumentException if the range is empty or longer than
+     *                                  {@value #MAX_TREND_MONTHS} months, or the window is below 1
+     */
+    public TalkTrend getTrend(YearMonth from, YearMonth to, int window) {
+        long start = System.nanoTime();
+        try {
+            int first = TalkDates.epochMonth(from.getYear(), from.getMonthValue());
+            int last = TalkDates.epochMonth(to.getYear(), to.getMonthValue());
+            if (last < first || last - first >= MAX_TREND_MONTHS) {
+                throw new IllegalArgumentException("to must not be before from and the range at most "
+                        + MAX_TREND_MONTHS + " months");
+            }
+            if (window < 1 || window > MAX_TREND_MONTHS) {
+                throw new IllegalArgumentException("window must be between 1 and " + MAX_TREND_MONTHS);
+            }
+            MonthlyTotals totals = tedTalkService.getMonthlyTotals();
+            List<MonthlyTotal> months = totals.series(first, last, window);
+            MonthlyTotal head = months.get(0);
+            MonthlyTotal tail = months.get(months.size() - 1);
+            return new TalkTrend(from.toString(), to.toString(), window, totals.between(first, last),
+                    growth(head.getViews(), tail.getViews()), growth(head.getLikes(), tail.getLikes()), months);
+        } finally {
+            timers.recordSince(Operation.GET_TREND, start);
+        }
+    }
+
+    private static Double growth(long first, long last) {
+        return first == 0 ? null : (double) (last - first) / first;
+    }
+
+    /**
+     * Return the N speakers with the highest total influence, together with their
+     * talk count, view and like totals, mean influence and best talk.
+     * Served from rollups that TedTalkService maintains on every change.
+     */
+    public List<SpeakerStats> getSpeakerLeaderboard(int topN) {
+        long start = System.nanoTime();
+        try {
+            return tedTalkService.getSpeakerRollups().top(topN);
+        } finally {
+            timers.recordSince(Operation.GET_SPEAKER_LEADERBOARD, start);
+        }
+    }
+
+    /**
+     * Return the aggregated figures of one speaker, or null if the speaker has no talks.
+     */
+    public SpeakerStats getSpeakerStats(String author) {
+        long start = System.nanoTime();
+        try {
+            return tedTalkService.getSpeakerRollups().get(author);
+        } finally {
+            timers.recordSince(Operation.GET_SPEAKER_STATS, start);
+        }
+    }
+
+    private static List<Map<String, String>> toTitleMaps(List<TedTalk> ranked) {
+        Map<String, String> sortedMap = new LinkedHashMap<>();
+        int count = 0;
+        for (TedTalk t : ranked) {
+            count++;
+            sortedMap.put("Top-" + count + " Ted Talk is: ", t.getTitle());
+        }
+        return Collections.singletonList(Collections.unmodifiableMap(sortedMap));
     }
 
     /**
      * Return top N talks by influence score.
      */
     public List<Map<String, String>> getTopNTitles(List<TedTalk> talks, int topN) {
+        long start = System.nanoTime();
+        try {
+            // First, compute the sorted influence scores map
+            Map<String, Double> sortedScores = computeInfluenceScores(talks);
 
-        // First, compute the sorted influence scores map
-        Map<String, Double> sortedScores = computeInfluenceScores(talks);
+            List<Map<String, String>> result = new ArrayList<>();
+            Map<String, String> sortedMap = new LinkedHashMap<>();
 
-        List<Map<String, String>> result = new ArrayList<>();
-        Map<String, String> sortedMap = new LinkedHashMap<>();
+            int count = 0;
+            for (Map.Entry<String, Double> entry : sortedScores.entrySet()) {
+                if (count >= topN) {
+                    break;
+                }
 
-        int count = 0;
-        for (Map.Entry<String, Double> entry : sortedScores.entrySet()) {
-            if (count >= topN) {
-                break;
+                count++;
+                sortedMap.put("Top-"+count +" Ted Talk is: ", entry.getKey());
             }
-
-            count++;
-            sortedMap.put("Top-"+count +" Ted Talk is: ", entry.getKey());
+            result.add(sortedMap);
+            return result;
+        } finally {
+            timers.recordSince(Operation.GET_TOP_N_TITLES_OF_LIST, start);
         }
-        result.add(sortedMap);
-        return result;
     }
 }
@@ -0,0 +1,109 @@
+package com.tedtalks.api.service;
+
+import com.tedtalks.api.repository.TalkSnapshot;
+import com.tedtalks.api.repository.WriteAheadLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Keeps the talk store on disk as a binary snapshot file plus a write-ahead log.
+ * <p>
+ * With {@code tedtalks.snapshot.path} set, the snapshot is loaded at startup, before the
+ * application serves requests, and written again on the {@code tedtalks.snapshot.cron}
+ * schedule (disabled by default) or through {@link #save()}. A scheduled save is
+ * skipped when nothing changed since the last one.
+ * </p>
+ * <p>
+ * With {@code tedtalks.wal.path} set, the log is replayed on top of the snapshot at
+ * startup and every later mutation is logged before it is acknowledged. Each snapshot
+ * save compacts the log: the records it covers are dropped once it is on disk. Without
+ * a snapshot path the log is never compacted.
+ * </p>
+ */
+@Component
+public class TalkPersistence {
+
+    private static final Logger log = LoggerFactory.getLogger(TalkPersistence.class);
+
+    @Autowired
+    private TedTalkService tedTalkService;
+
+    @Value("${tedtalks.snapshot.path:}")
+    private String path;
+
+    @Value("${tedtalks.wal.path:}")
+    private String walPath;
+
+    private WriteAheadLog writeAheadLog;
+
+    /** Store version of the last snapshot written or loaded, -1 if none. */
+    private volatile long savedVersion = -1;
+
+    /**
+     * Loads the configured snapshot file, if there is one, and replays the write-ahead log.
+     */
+    @PostConstruct
+    public void load() throws IOException {
+        if (isEnabled() && Files.exists(file())) {
+            long start = System.nanoTime();
+            int loaded = tedTalkService.loadSnapshot(file());
+            savedVersion = tedTalkService.getSnapshot().getVersion();
+            log.info("Loaded {} talks from {} in {} ms", loaded, file(), (System.nanoTime() - start) / 1_000_000);
+        }
+        if (walPath != null && !walPath.isEmpty()) {
+            long start = System.nanoTime();
+            writeAheadLog = tedTalkService.recover(Paths.get(walPath));
+            log.info("Replayed {} in {} ms", walPath, (System.nanoTime() - start) / 1_000_000);
+            // an earlier compaction was interrupted before its snapshot was written
+            if (writeAheadLog.hasRotated() && isEnabled()) save();
+        }
+    }
+
+    /**
+     * Writes the current talks to the configured snapshot file and compacts the log.
+     *
+     * @return the snapshot that was written
+     * @throws IllegalStateException if no snapshot path is configured
+     */
+    public synchronized TalkSnapshot save() throws IOException {
+        if (!isEnabled()) throw new IllegalStateException("tedtalks.snapshot.path is not configured");
+        TalkSnapshot snapshot = tedTalkService.saveSnapshot(file());
+        savedVersion = snapshot.getVersion();
+        return snapshot;
+    }
+
+    @Scheduled(cron = "${tedtalks.snapshot.cron:-}")
+    public void saveIfChanged() {
+        if (!isEnabled() || tedTalkService.getSnapshot().getVersion() == savedVersion) return;
+        try {
+            TalkSnapshot snapshot = save();
+            log.info("Wrote snapshot of {} talks to {}", snapshot.size(), file());
+        } catch (IOException e) {
+            log.error("Writing snapshot to {} failed", file(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (writeAheadLog != null) writeAheadLog.close();
+    }
+
+    public boolean isEnabled() {
+        return path != null && !path.isEmpty();
+    }
+
+    public Path file() {
+        return Paths.get(path);
+    }
+}
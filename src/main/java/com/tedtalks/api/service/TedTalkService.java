@@ -1,17 +1,42 @@
 package com.tedtalks.api.service;
 
+import com.tedtalks.api.index.ChangeTracker;
+import com.tedtalks.api.index.DateIndex;
+import com.tedtalks.api.index.InfluenceRanking;
+import com.tedtalks.api.index.MonthlyTotals;
+import com.tedtalks.api.index.RangeIndex;
+import com.tedtalks.api.index.SpeakerRollups;
+import com.tedtalks.api.index.TalkColumns;
+import com.tedtalks.api.index.TalkIndex;
+import com.tedtalks.api.index.TalkSketches;
+import com.tedtalks.api.index.TitleSearchIndex;
+import com.tedtalks.api.metrics.Counter;
+import com.tedtalks.api.metrics.MetricRegistry;
+import com.tedtalks.api.metrics.TimerSet;
+import com.tedtalks.api.model.BatchOperation;
+import com.tedtalks.api.model.BatchReport;
+import com.tedtalks.api.model.BatchResult;
+import com.tedtalks.api.model.ImportReport;
+import com.tedtalks.api.model.SearchHit;
+import com.tedtalks.api.model.TalkDates;
+import com.tedtalks.api.model.TalkPage;
 import com.tedtalks.api.model.TedTalk;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVRecord;
+import com.tedtalks.api.repository.SnapshotRegistry;
+import com.tedtalks.api.repository.TalkRepository;
+import com.tedtalks.api.repository.TalkSnapshot;
+import com.tedtalks.api.repository.TalkSnapshotFile;
+import com.tedtalks.api.repository.VersionedTalkRepository;
+import com.tedtalks.api.repository.WriteAheadLog;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.YearMonth;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
-
-import org.apache.commons.lang3.StringUtils;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 @Service
 public class TedTalkService {
@@ -23,50 +48,401 @@ public class TedTalkService {
     public static final String LIKES = "likes";
     public static final String LINK = "link";
 
+    /** Largest page returned by {@link #getPage(String, int)}. */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /** Largest number of entries accepted by {@link #applyBatch(List)}. */
+    public static final int MAX_BATCH_SIZE = 100_000;
+
+    /** Number of recent changes kept on the change feed. */
+    public static final int CHANGE_FEED_CAPACITY = 1 << 16;
+
+    /** Number of snapshots kept readable for paginated listings. */
+    private static final int PINNED_SNAPSHOTS = 64;
+
+    /** Timed methods, exported as tedtalks_service_seconds{method="..."}. */
+    private enum Operation {
+        GET_PAGE, FIND_BY_TITLE, SEARCH, GET_TOP_INFLUENTIAL, GET_TED_TALKS_BY_YEAR, GET_TED_TALKS_BETWEEN, GET_TED_TALKS_IN_RANGE,
+        UPDATE, DELETE, ADD_ALL, APPLY_BATCH, IMPORT_FROM_CSV, IMPORT_FROM_NDJSON, SAVE_SNAPSHOT, LOAD_SNAPSHOT
+    }
+
+    /**
+     * Holds all TedTalk instances. Reads are served from immutable, versioned snapshots;
+     * stored talks are never modified in place, an update stores a new instance.
+     */
+    private final TalkRepository repository;
+
+    /**
+     * Index of talks keyed by their case-folded title (see {@link #titleKey(String)}).
+     * Titles are unique: storing a talk whose title is already indexed replaces the
+     * existing talk (last write wins). Talks without a title are kept in the list
+     * but cannot be addressed by title.
+     */
+    private final Map<String, TedTalk> titleIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Year and month buckets over the parsed talk dates.
+     */
+    private final DateIndex dateIndex = new DateIndex();
+
+    /**
+     * Live influence ranking of all stored talks.
+     */
+    private final InfluenceRanking influenceRanking = new InfluenceRanking();
+
+    /**
+     * Talks sorted by views and by likes, for range queries.
+     */
+    private final RangeIndex viewsIndex = new RangeIndex(TedTalk::getViews);
+    private final RangeIndex likesIndex = new RangeIndex(TedTalk::getLikes);
+
+    /**
+     * Primitive column copy of the talks used for analytics scans.
+     */
+    private final TalkColumns columns = new TalkColumns();
+
+    /**
+     * Per-speaker aggregates and leaderboard.
+     */
+    private final SpeakerRollups speakerRollups = new SpeakerRollups();
+
+    /**
+     * Full-text index over the talk titles.
+     */
+    private final TitleSearchIndex searchIndex = new TitleSearchIndex();
+
+    /**
+     * Quantile and distinct speaker sketches per year and month.
+     */
+    private final TalkSketches sketches = new TalkSketches();
+
+    /**
+     * Count, views and likes per month with prefix sums for month ranges.
+     */
+    private final MonthlyTotals monthlyTotals = new MonthlyTotals();
+
+    /**
+     * Change counters for results derived from the indexes.
+     */
+    private final ChangeTracker changeTracker = new ChangeTracker();
+
+    /**
+     * Secondary indexes notified of every stored or dropped talk. The change tracker
+     * comes last, so its versions never run ahead of the other indexes.
+     */
+    private final List<TalkIndex> indexes = List.of(dateIndex, influenceRanking, viewsIndex, likesIndex, columns,
+            speakerRollups, searchIndex, sketches, monthlyTotals, changeTracker);
+
+    /**
+     * Snapshots that paginated listings are currently reading from.
+     */
+    private final SnapshotRegistry pinnedSnapshots = new SnapshotRegistry(PINNED_SNAPSHOTS);
+
+    /**
+     * Serializes mutations so that the repository and the indexes never diverge.
+     * Reads stay lock-free.
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * Every stored and deleted talk in order, for subscribers following the changes.
+     */
+    private final ChangeFeed changeFeed = new ChangeFeed(CHANGE_FEED_CAPACITY);
+
+    /**
+     * Serializes snapshot file writes.
+     */
+    private final Object snapshotLock = new Object();
+
     /**
-     * Holds all TedTalk instances. The CopyOnWriteArrayList ensures
-     * thread-safe reads and updates, maintaining the latest state across operations.
+     * Log every mutation is recorded in before it is acknowledged, null until
+     * {@link #recover(Path)} attached one.
      */
-    private final List<TedTalk> talks = new CopyOnWriteArrayList<>();
+    private volatile WriteAheadLog writeAheadLog;
+
+    /**
+     * Latency of the public methods.
+     */
+    private final TimerSet<Operation> timers;
+
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+
+    /** Throughput of the last finished import. */
+    private volatile double lastImportRowsPerSecond;
+
+    public TedTalkService() {
+        this(new VersionedTalkRepository());
+    }
+
+    public TedTalkService(TalkRepository repository) {
+        this(repository, new MetricRegistry());
+    }
 
+    @Autowired
+    public TedTalkService(MetricRegistry metrics) {
+        this(new VersionedTalkRepository(), metrics);
+    }
+
+    public TedTalkService(TalkRepository repository, MetricRegistry metrics) {
+        this.repository = repository;
+        this.timers = metrics.timers("tedtalks_service_seconds", "Latency of TedTalkService methods",
+                "method", Operation.class);
+        this.importedRows = metrics.counter("tedtalks_import_rows_total", "Rows read by imports", "result=\"imported\"");
+        this.rejectedRows = metrics.counter("tedtalks_import_rows_total", "Rows read by imports", "result=\"rejected\"");
+        metrics.gauge("tedtalks_import_rows_per_second", "Throughput of the last finished import", "",
+                () -> lastImportRowsPerSecond);
+        metrics.gauge("tedtalks_talks", "Number of stored talks", "", () -> repository.snapshot().size());
+        metrics.gauge("tedtalks_speakers", "Number of speakers with at least one stored talk", "",
+                speakerRollups::size);
+        metrics.gauge("tedtalks_store_version", "Version of the current talk snapshot", "",
+                () -> repository.snapshot().getVersion());
+    }
 
     /**
      * Retrieves all TedTalk objects.
      *
-     * @return a list of all TedTalks
+     * @return an unmodifiable list of all TedTalks at the time of the call
      */
     public List<TedTalk> getAll() {
-        return talks;
+        return repository.snapshot().getTalks();
     }
 
     /**
-     * Retrieves the first TedTalk whose title matches the given input.
-     * The comparison is case-insensitive and ignores null titles.
+     * Retrieves an immutable snapshot of all TedTalks together with its store version.
+     *
+     * @return the current snapshot
+     */
+    public TalkSnapshot getSnapshot() {
+        return repository.snapshot();
+    }
+
+    /**
+     * Retrieves one page of TedTalks.
+     * <p>
+     * A listing started without a cursor pins the current snapshot, and its cursors keep
+     * pointing into that snapshot. Paging through a listing therefore never skips or
+     * repeats talks, whatever is added, updated or deleted in the meantime. A cursor
+     * expires once its snapshot is no longer among the most recently used ones.
+     * </p>
+     *
+     * @param cursor the cursor returned with the previous page, or null to start a listing
+     * @param limit  the page size, capped at {@value #MAX_PAGE_SIZE}
+     * @return the page and the cursor of the next one
+     * @throws IllegalArgumentException if the cursor is malformed
+     * @throws IllegalStateException    if the cursor has expired
+     */
+    public TalkPage getPage(String cursor, int limit) {
+        long start = System.nanoTime();
+        try {
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            TalkSnapshot snapshot;
+            int offset;
+            if (cursor == null || cursor.isEmpty()) {
+                snapshot = pinnedSnapshots.pin(repository.snapshot());
+                offset = 0;
+            } else {
+                long[] decoded = decodeCursor(cursor);
+                long version = decoded[0];
+                offset = (int) decoded[1];
+                TalkSnapshot current = repository.snapshot();
+                snapshot = current.getVersion() == version
+                        ? current
+                        : pinnedSnapshots.get(version).orElseThrow(() ->
+                                new IllegalStateException("Cursor has expired, start the listing again"));
+                pinnedSnapshots.pin(snapshot);
+                if (offset > snapshot.size()) throw new IllegalArgumentException("Invalid cursor");
+            }
+            List<TedTalk> talks = snapshot.getTalks();
+            int end = Math.min(offset + pageSize, talks.size());
+            String next = end < talks.size() ? encodeCursor(snapshot.getVersion(), end) : null;
+            return new TalkPage(new ArrayList<>(talks.subList(offset, end)), next, snapshot.getVersion(), talks.size());
+        } finally {
+            timers.recordSince(Operation.GET_PAGE, start);
+        }
+    }
+
+    /**
+     * Retrieves the TedTalk whose title matches the given input.
+     * The lookup is case-insensitive and served from the title index.
      *
      * @param title the title to search for (case-insensitive)
      * @return an Optional containing the matching TedTalk if found,
      *         otherwise an empty Optional
      */
     public Optional<TedTalk> findByTitle(String title) {
-        return talks.stream()
-                .filter(t -> t.getTitle() != null && t.getTitle().equalsIgnoreCase(title))
-                .findFirst();
+        long start = System.nanoTime();
+        try {
+            if (title == null) return Optional.empty();
+            return Optional.ofNullable(titleIndex.get(titleKey(title)));
+        } finally {
+            timers.recordSince(Operation.FIND_BY_TITLE, start);
+        }
+    }
+
+    /**
+     * Searches the talk titles for keywords.
+     * Talks matching more, and rarer, keywords rank higher (BM25).
+     *
+     * @param query    the keywords
+     * @param limit    the maximum number of results
+     * @param weighted whether to also favour talks with a higher influence score
+     * @return the matching talks with their relevance score, best first
+     */
+    public List<SearchHit> search(String query, int limit, boolean weighted) {
+        long start = System.nanoTime();
+        try {
+            return searchIndex.search(query, limit, weighted);
+        } finally {
+            timers.recordSince(Operation.SEARCH, start);
+        }
     }
 
+    /**
+     * Retrieves the most influential TedTalks from the live ranking.
+     *
+     * @param topN the maximum number of talks to return
+     * @return up to topN talks, highest influence score first
+     */
+    public List<TedTalk> getTopInfluential(int topN) {
+        long start = System.nanoTime();
+        try {
+            return influenceRanking.top(topN);
+        } finally {
+            timers.recordSince(Operation.GET_TOP_INFLUENTIAL, start);
+        }
+    }
+
+    /**
+     * Returns the primitive column store kept in sync with the stored talks,
+     * for analytics that scan every talk.
+     *
+     * @return the column store
+     */
+    public TalkColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the distribution sketches kept in sync with the stored talks.
+     *
+     * @return the sketches
+     */
+    public TalkSketches getSketches() {
+        return sketches;
+    }
+
+    /**
+     * Returns the feed of changes made to the stored talks.
+     *
+     * @return the change feed
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * Returns the monthly totals kept in sync with the stored talks.
+     *
+     * @return the monthly totals
+     */
+    public MonthlyTotals getMonthlyTotals() {
+        return monthlyTotals;
+    }
+
+    /**
+     * Returns the change counters of the stored talks, for caching derived results.
+     *
+     * @return the change tracker
+     */
+    public ChangeTracker getChangeTracker() {
+        return changeTracker;
+    }
+
+    /**
+     * Returns the per-speaker aggregates kept in sync with the stored talks.
+     *
+     * @return the speaker rollups
+     */
+    public SpeakerRollups getSpeakerRollups() {
+        return speakerRollups;
+    }
+
+    /**
+     * Retrieves the TedTalks held in the given year. The year is matched against the
+     * date parsed at ingest, so only the talks of that year's bucket are visited.
+     *
+     * @param year the four digit year
+     * @return the talks of that year
+     */
     public List<TedTalk> getTedTalksByYear(Integer year) {
-        return talks.stream()
-                .filter(t -> t.getDate() != null && t.getDate().contains(year.toString()))
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return dateIndex.byYear(year);
+        } finally {
+            timers.recordSince(Operation.GET_TED_TALKS_BY_YEAR, start);
+        }
     }
 
+    /**
+     * Retrieves the TedTalks held between two months, both inclusive.
+     * Talks whose date has no month component are not part of any month range.
+     *
+     * @param from the first month of the range
+     * @param to   the last month of the range
+     * @return the matching talks, ordered by month
+     */
+    public List<TedTalk> getTedTalksBetween(YearMonth from, YearMonth to) {
+        long start = System.nanoTime();
+        try {
+            return dateIndex.between(
+                    TalkDates.epochMonth(from.getYear(), from.getMonthValue()),
+                    TalkDates.epochMonth(to.getYear(), to.getMonthValue()));
+        } finally {
+            timers.recordSince(Operation.GET_TED_TALKS_BETWEEN, start);
+        }
+    }
+
+    /**
+     * Retrieves the TedTalks whose views or likes lie within a range, both bounds
+     * inclusive, ordered by that field. Served from a sorted index in O(log n + limit).
+     *
+     * @param field      {@value #VIEWS} or {@value #LIKES}
+     * @param min        the lowest value
+     * @param max        the highest value
+     * @param descending whether to return the highest values first
+     * @param limit      the maximum number of talks, capped at {@value #MAX_PAGE_SIZE}
+     * @return the matching talks
+     * @throws IllegalArgumentException if the field is not views or likes
+     */
+    public List<TedTalk> getTedTalksInRange(String field, long min, long max, boolean descending, int limit) {
+        long start = System.nanoTime();
+        try {
+            RangeIndex index;
+            if (VIEWS.equals(field)) {
+                index = viewsIndex;
+            } else if (LIKES.equals(field)) {
+                index = likesIndex;
+            } else {
+                throw new IllegalArgumentException("field must be " + VIEWS + " or " + LIKES + ": " + field);
+            }
+            return index.range(min, max, descending, Math.min(limit, MAX_PAGE_SIZE));
+        } finally {
+            timers.recordSince(Operation.GET_TED_TALKS_IN_RANGE, start);
+        }
+    }
 
     /**
      * Adds a TedTalk to the existing CSV data store.
+     * <p>
+     * If a talk with the same title (case-insensitive) already exists it is
+     * replaced by the given one, keeping its position in the store.
+     * </p>
      *
      * @param t TedTalk instance to be added
      */
     public void add(TedTalk t) {
-        talks.add(t);
+        addAll(Collections.singletonList(t));
     }
 
     /**
@@ -75,7 +451,8 @@ public class TedTalkService {
      * The method searches for a talk matching the given title (case-insensitive).
      * If found, only the non-null fields of the provided updated object
      * are applied to the existing talk. Numeric fields such as views and likes
-     * are always overwritten.
+     * are always overwritten. The result is stored as a new TedTalk instance,
+     * so talks already handed out to readers never change.
      * </p>
      *
      * @param title   the title of the TedTalk to update
@@ -83,67 +460,584 @@ public class TedTalkService {
      * @return true if the talk was found and updated; false otherwise
      */
     public boolean update(String title, TedTalk updated) {
-        Optional<TedTalk> opt = findByTitle(title);
-        if (opt.isEmpty()) return false;
-        TedTalk t = opt.get();
-        if (updated.getAuthor() != null) t.setAuthor(updated.getAuthor());
-        if (updated.getDate() != null) t.setDate(updated.getDate());
-        t.setViews(updated.getViews());
-        t.setLikes(updated.getLikes());
-        if (updated.getLink() != null) t.setLink(updated.getLink());
-        return true;
+        long start = System.nanoTime();
+        try {
+            WriteAheadLog log;
+            long seq;
+            synchronized (writeLock) {
+                TedTalk t = title == null ? null : titleIndex.get(titleKey(title));
+                if (t == null) return false;
+                TedTalk merged = merge(t, updated);
+                repository.replace(t, merged);
+                titleIndex.put(titleKey(t.getTitle()), merged);
+                indexes.forEach(index -> index.replace(t, merged));
+                changeFeed.put(merged, false);
+                log = writeAheadLog;
+                seq = log == null ? 0 : log.appendPut(merged);
+            }
+            awaitDurable(log, seq);
+            return true;
+        } finally {
+            timers.recordSince(Operation.UPDATE, start);
+        }
     }
 
     /**
-     * Deletes a TedTalk that matches the given title.
+     * Deletes the TedTalk that matches the given title.
      * <p>
-     * The comparison is case-insensitive and ignores null titles.
-     * If one or more talks match the provided title, they are removed.
+     * The lookup is case-insensitive and served from the title index.
+     * Since titles are unique, at most one talk is removed.
      * </p>
      *
      * @param title the title of the TedTalk to remove
-     * @return true if at least one matching talk was removed;
+     * @return true if a matching talk was removed;
      *         false otherwise
      */
     public boolean delete(String title) {
-        return talks.removeIf(t -> t.getTitle() != null && t.getTitle().equalsIgnoreCase(title));
+        long start = System.nanoTime();
+        try {
+            if (title == null) return false;
+            WriteAheadLog log;
+            long seq;
+            synchronized (writeLock) {
+                TedTalk removed = titleIndex.remove(titleKey(title));
+                if (removed == null) return false;
+                repository.remove(removed);
+                indexes.forEach(index -> index.remove(removed));
+                changeFeed.delete(removed.getTitle());
+                log = writeAheadLog;
+                seq = log == null ? 0 : log.appendDelete(removed.getTitle());
+            }
+            awaitDurable(log, seq);
+            return true;
+        } finally {
+            timers.recordSince(Operation.DELETE, start);
+        }
     }
 
 
     /**
      * Import talks data from a CSV file.
      * The CSV is expected to have header with columns title,author,date,views,likes,link
+     *
+     * @return the number of imported records
      */
     public int importFromCsv(String csvPath) throws IOException {
-        Reader in = new InputStreamReader(new FileInputStream(csvPath), StandardCharsets.UTF_8);
-        Iterable<CSVRecord> records = CSVFormat.DEFAULT
-                .withFirstRecordAsHeader()
-                .parse(in);
-
-        int count = 0;
-        for (CSVRecord r : records) {
-            String title = r.isMapped(TITLE) ? r.get(TITLE) : null;
-            if (title == null || title.isBlank()) continue;
-            String author = r.isMapped(AUTHOR) ? r.get(AUTHOR) : StringUtils.EMPTY;
-            String date = r.isMapped(DATE) ? r.get(DATE) : StringUtils.EMPTY;
-            long views = parseLongSafe(r.isMapped(VIEWS) ? r.get(VIEWS) : StringUtils.EMPTY);
-            long likes = parseLongSafe(r.isMapped(LIKES) ? r.get(LIKES) : StringUtils.EMPTY);
-            String link = r.isMapped(LINK) ? r.get(LINK) : StringUtils.EMPTY;
-            TedTalk t = new TedTalk(title.trim(), author.trim(), date.trim(), views, likes, link.trim());
-            talks.add(t);
-            count++;
-        }
-        return count;
-    }
-
-    private long parseLongSafe(String s) {
-        try {
-            if (s == null || s.isBlank()) return 0L;
-            String cleaned = s.replaceAll("[^0-9]", "");
-            if (cleaned.isBlank()) return 0L;
-            return Long.parseLong(cleaned);
-        } catch (Exception e) {
-            return 0L;
+        return (int) importFromCsv(new InputStreamReader(new FileInputStream(csvPath), StandardCharsets.UTF_8))
+                .getImported();
+    }
+
+    /**
+     * Import talks data from CSV text.
+     * <p>
+     * Records are streamed from the reader, converted in parallel in batches of
+     * {@value CsvTalkImporter#DEFAULT_BATCH_SIZE} and each batch is published as a single
+     * new snapshot. Rows without a title are rejected. The reader is closed afterwards.
+     * </p>
+     * <p>
+     * The import is an upsert by title: a row with a new title is inserted, a row whose
+     * title is stored replaces that talk, and a row identical to the stored talk is
+     * skipped without touching the store, the indexes or the log. Importing the same
+     * data twice therefore leaves the store as it is.
+     * </p>
+     *
+     * @param reader the CSV source
+     * @return counts and throughput of the import
+     */
+    public ImportReport importFromCsv(Reader reader) throws IOException {
+        return importFromCsv(reader, false);
+    }
+
+    /**
+     * Import talks data from CSV text as in {@link #importFromCsv(Reader)}, optionally
+     * treating it as the complete data set.
+     * <p>
+     * With {@code removeMissing}, every stored talk whose title did not occur in the input
+     * is deleted once the whole input was imported, in one snapshot. This includes talks
+     * added by other clients while the import ran. Nothing is deleted if the import fails.
+     * </p>
+     *
+     * @param reader        the CSV source
+     * @param removeMissing whether to delete the talks missing from the input
+     * @return counts and throughput of the import
+     */
+    public ImportReport importFromCsv(Reader reader, boolean removeMissing) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return upsert(sink -> new CsvTalkImporter().importCsv(reader, sink, ImportProgress.NONE), removeMissing);
+        } finally {
+            timers.recordSince(Operation.IMPORT_FROM_CSV, start);
+        }
+    }
+
+    /**
+     * Import talks data from CSV text as in {@link #importFromCsv(Reader)}, reporting
+     * progress after every batch. Batches stored before a cancellation are kept.
+     *
+     * @param reader   the CSV source
+     * @param progress receives the counts so far and is polled for cancellation
+     * @return counts and throughput of the import
+     * @throws java.util.concurrent.CancellationException if the import was cancelled
+     */
+    ImportReport importFromCsv(Reader reader, ImportProgress progress) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return upsert(sink -> new CsvTalkImporter().importCsv(reader, sink, progress), false);
+        } finally {
+            timers.recordSince(Operation.IMPORT_FROM_CSV, start);
+        }
+    }
+
+    /**
+     * Import talks data from newline-delimited JSON as an upsert by title, see
+     * {@link #importFromNdjson(Reader, boolean)}.
+     *
+     * @param reader the NDJSON source
+     * @return counts and throughput of the import
+     */
+    public ImportReport importFromNdjson(Reader reader) throws IOException {
+        return importFromNdjson(reader, false);
+    }
+
+    /**
+     * Import talks data from newline-delimited JSON, one talk object per line with the
+     * fields title, author, date, views, likes and link.
+     * <p>
+     * Lines are streamed and imported in batches exactly as CSV records are in
+     * {@link #importFromCsv(Reader, boolean)}, as an upsert by title. Lines that are not
+     * valid JSON or have no title are rejected. The reader is closed afterwards.
+     * </p>
+     *
+     * @param reader        the NDJSON source
+     * @param removeMissing whether to delete the talks missing from the input
+     * @return counts and throughput of the import
+     * @see #importFromNdjson(Reader)
+     */
+    public ImportReport importFromNdjson(Reader reader, boolean removeMissing) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return upsert(sink -> new CsvTalkImporter().importNdjson(reader, sink, ImportProgress.NONE), removeMissing);
+        } finally {
+            timers.recordSince(Operation.IMPORT_FROM_NDJSON, start);
+        }
+    }
+
+    /**
+     * Import talks data from newline-delimited JSON as in {@link #importFromNdjson(Reader)},
+     * reporting progress after every batch. Batches stored before a cancellation are kept.
+     *
+     * @param reader   the NDJSON source
+     * @param progress receives the counts so far and is polled for cancellation
+     * @return counts and throughput of the import
+     * @throws java.util.concurrent.CancellationException if the import was cancelled
+     */
+    ImportReport importFromNdjson(Reader reader, ImportProgress progress) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return upsert(sink -> new CsvTalkImporter().importNdjson(reader, sink, progress), false);
+        } finally {
+            timers.recordSince(Operation.IMPORT_FROM_NDJSON, start);
         }
     }
+
+    /**
+     * Runs an import into {@link #store(List, Upsert)} and completes its report with the
+     * upsert counts.
+     */
+    private ImportReport upsert(Importer importer, boolean removeMissing) throws IOException {
+        long start = System.nanoTime();
+        Upsert upsert = new Upsert(removeMissing);
+        ImportReport rows = importer.run(batch -> store(batch, upsert));
+        long removed = removeMissing ? removeAllExcept(upsert.seen) : 0;
+        ImportReport report = new ImportReport(rows.getImported(), rows.getRejected(), System.nanoTime() - start,
+                upsert.inserted, upsert.updated, upsert.unchanged, removed);
+        importedRows.add(report.getImported());
+        rejectedRows.add(report.getRejected());
+        lastImportRowsPerSecond = report.getRowsPerSecond();
+        return report;
+    }
+
+    /**
+     * Deletes every talk whose title key is not in the given set, as one snapshot.
+     *
+     * @return the number of deleted talks
+     */
+    private long removeAllExcept(Set<String> keys) {
+        List<TedTalk> removed = new ArrayList<>();
+        WriteAheadLog log;
+        long seq = 0;
+        synchronized (writeLock) {
+            repository.write(writer -> {
+                for (Iterator<Map.Entry<String, TedTalk>> it = titleIndex.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, TedTalk> e = it.next();
+                    if (keys.contains(e.getKey())) continue;
+                    TedTalk t = e.getValue();
+                    it.remove();
+                    writer.remove(t);
+                    removed.add(t);
+                }
+                indexes.forEach(index -> index.removeAll(removed));
+            });
+            for (TedTalk t : removed) changeFeed.delete(t.getTitle());
+            log = writeAheadLog;
+            if (log != null) {
+                for (TedTalk t : removed) seq = log.appendDelete(t.getTitle());
+            }
+        }
+        awaitDurable(log, seq);
+        return removed.size();
+    }
+
+    /**
+     * Writes the current snapshot to a binary snapshot file, see {@link TalkSnapshotFile}.
+     * Writers are not blocked while the file is written. If a write-ahead log is attached
+     * it is compacted: the log is rotated at the snapshot and the records before it are
+     * dropped once the file is written.
+     *
+     * @param file the target file, replaced atomically
+     * @return the snapshot that was written
+     */
+    public TalkSnapshot saveSnapshot(Path file) throws IOException {
+        long start = System.nanoTime();
+        try {
+            synchronized (snapshotLock) {
+                TalkSnapshot snapshot;
+                WriteAheadLog log;
+                synchronized (writeLock) {
+                    snapshot = repository.snapshot();
+                    log = writeAheadLog;
+                    // a rotated log left by a failed save is older still and covered as well
+                    if (log != null && !log.hasRotated()) log.rotate();
+                }
+                // write returns once the file and its rename are on disk; only then is the
+                // rotated log no longer the sole durable copy of its changes
+                TalkSnapshotFile.write(snapshot, file);
+                if (log != null) log.deleteRotated();
+                return snapshot;
+            }
+        } finally {
+            timers.recordSince(Operation.SAVE_SNAPSHOT, start);
+        }
+    }
+
+    /**
+     * Loads the talks of a binary snapshot file written by {@link #saveSnapshot(Path)}.
+     * The file is memory-mapped and its fixed-width columns copied out directly, so no
+     * text is parsed. Loaded talks are added as in {@link #addAll(List)}.
+     *
+     * @param file the snapshot file
+     * @return the number of loaded talks
+     */
+    public int loadSnapshot(Path file) throws IOException {
+        long start = System.nanoTime();
+        try {
+            List<TedTalk> talks = TalkSnapshotFile.read(file).getTalks();
+            addAll(talks);
+            return talks.size();
+        } finally {
+            timers.recordSince(Operation.LOAD_SNAPSHOT, start);
+        }
+    }
+
+    /**
+     * Replays a write-ahead log on top of the current talks and attaches it, so that
+     * from then on every add, update, delete and import is durable before it returns.
+     * Concurrent mutations share their fsyncs (group commit).
+     *
+     * @param file the log file, created if missing
+     * @return the attached log
+     */
+    public WriteAheadLog recover(Path file) throws IOException {
+        List<TedTalk> puts = new ArrayList<>();
+        WriteAheadLog log = WriteAheadLog.open(file, new WriteAheadLog.Replay() {
+            @Override
+            public void put(TedTalk talk) {
+                puts.add(talk);
+                if (puts.size() == CsvTalkImporter.DEFAULT_BATCH_SIZE) flush();
+            }
+
+            @Override
+            public void delete(String title) {
+                flush();
+                TedTalkService.this.delete(title);
+            }
+
+            private void flush() {
+                addAll(puts);
+                puts.clear();
+            }
+        });
+        addAll(puts);
+        writeAheadLog = log;
+        return log;
+    }
+
+    /**
+     * Adds a batch of TedTalks, published as a single new snapshot.
+     * Talks whose title already exists replace the existing talk, as in {@link #add(TedTalk)};
+     * talks identical to the stored one are skipped.
+     *
+     * @param batch the talks to add
+     */
+    public void addAll(List<TedTalk> batch) {
+        long start = System.nanoTime();
+        try {
+            store(batch, new Upsert(false));
+        } finally {
+            timers.recordSince(Operation.ADD_ALL, start);
+        }
+    }
+
+    private void store(List<TedTalk> batch, Upsert upsert) {
+        List<TedTalk> stored = new ArrayList<>(batch.size());
+        BitSet created = new BitSet();
+        WriteAheadLog log;
+        long seq = 0;
+        synchronized (writeLock) {
+            repository.write(writer -> {
+                for (TedTalk t : batch) {
+                    String key = t.getTitle() == null ? null : titleKey(t.getTitle());
+                    if (upsert.seen != null && key != null) upsert.seen.add(key);
+                    TedTalk previous = key == null ? null : titleIndex.get(key);
+                    if (previous == null) {
+                        if (key != null) titleIndex.put(key, t);
+                        writer.add(t);
+                        indexes.forEach(index -> index.add(t));
+                        created.set(stored.size());
+                        upsert.inserted++;
+                    } else if (sameContent(previous, t)) {
+                        upsert.unchanged++;
+                        continue;
+                    } else {
+                        titleIndex.put(key, t);
+                        writer.replace(previous, t);
+                        indexes.forEach(index -> index.replace(previous, t));
+                        upsert.updated++;
+                    }
+                    stored.add(t);
+                }
+            });
+            for (int i = 0; i < stored.size(); i++) changeFeed.put(stored.get(i), created.get(i));
+            log = writeAheadLog;
+            if (log != null) {
+                for (TedTalk t : stored) seq = log.appendPut(t);
+            }
+        }
+        awaitDurable(log, seq);
+    }
+
+    /**
+     * Whether two talks hold the same values in every field. A field by field comparison
+     * of the talk already found through the title index costs no more than hashing the
+     * incoming row, and needs no stored fingerprint.
+     */
+    private static boolean sameContent(TedTalk a, TedTalk b) {
+        return a == b
+                || a.getViews() == b.getViews()
+                && a.getLikes() == b.getLikes()
+                && Objects.equals(a.getTitle(), b.getTitle())
+                && Objects.equals(a.getAuthor(), b.getAuthor())
+                && Objects.equals(a.getDate(), b.getDate())
+                && Objects.equals(a.getLink(), b.getLink());
+    }
+
+    /**
+     * Counts of one import, and the title keys it has seen if missing talks are to be removed.
+     * Only touched under the write lock.
+     */
+    private static final class Upsert {
+        private final Set<String> seen;
+        private long inserted;
+        private long updated;
+        private long unchanged;
+
+        private Upsert(boolean trackSeen) {
+            this.seen = trackSeen ? new HashSet<>() : null;
+        }
+    }
+
+    /**
+     * An import feeding its batches of talks to a sink.
+     */
+    private interface Importer {
+        ImportReport run(Consumer<List<TedTalk>> sink) throws IOException;
+    }
+
+    /**
+     * Applies a batch of adds, updates and deletes in request order, published as a
+     * single new snapshot and made durable with a single log sync.
+     * <p>
+     * Each entry behaves as the corresponding call of {@link #add(TedTalk)},
+     * {@link #update(String, TedTalk)} or {@link #delete(String)} and sees the entries
+     * before it. Malformed entries and entries naming an unknown title are skipped and
+     * reported; they do not affect the rest of the batch.
+     * </p>
+     *
+     * @param operations the entries to apply
+     * @return one result per entry, in the same order
+     * @throws IllegalArgumentException if there are more than {@value #MAX_BATCH_SIZE} entries
+     */
+    public BatchReport applyBatch(List<BatchOperation> operations) {
+        long start = System.nanoTime();
+        try {
+            if (operations.size() > MAX_BATCH_SIZE) {
+                throw new IllegalArgumentException("A batch holds at most " + MAX_BATCH_SIZE + " entries");
+            }
+            List<BatchResult> results = new ArrayList<>(operations.size());
+            List<TedTalk> puts = new ArrayList<>();
+            List<String> deletes = new ArrayList<>();
+            BitSet created = new BitSet();
+            long[] applied = new long[1];
+            WriteAheadLog log;
+            long seq = 0;
+            long version;
+            synchronized (writeLock) {
+                repository.write(writer -> {
+                    for (BatchOperation operation : operations) {
+                        BatchResult result = apply(writer, operation);
+                        results.add(result);
+                        switch (result.getStatus()) {
+                            case CREATED:
+                            case REPLACED:
+                            case UPDATED:
+                                if (result.getStatus() == BatchResult.Status.CREATED) created.set(puts.size());
+                                puts.add(titleIndex.get(titleKey(result.getTitle())));
+                                deletes.add(null);
+                                applied[0]++;
+                                break;
+                            case DELETED:
+                                puts.add(null);
+                                deletes.add(result.getTitle());
+                                applied[0]++;
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+                });
+                version = repository.snapshot().getVersion();
+                for (int i = 0; i < puts.size(); i++) {
+                    if (puts.get(i) != null) {
+                        changeFeed.put(puts.get(i), created.get(i));
+                    } else {
+                        changeFeed.delete(deletes.get(i));
+                    }
+                }
+                log = writeAheadLog;
+                if (log != null) {
+                    for (int i = 0; i < puts.size(); i++) {
+                        seq = puts.get(i) != null ? log.appendPut(puts.get(i)) : log.appendDelete(deletes.get(i));
+                    }
+                }
+            }
+            awaitDurable(log, seq);
+            return new BatchReport(results, applied[0], version, System.nanoTime() - start);
+        } finally {
+            timers.recordSince(Operation.APPLY_BATCH, start);
+        }
+    }
+
+    private BatchResult apply(TalkRepository.Writer writer, BatchOperation operation) {
+        String op = operation.getOp() == null ? "" : operation.getOp().toLowerCase(Locale.ROOT);
+        TedTalk talk = operation.getTalk();
+        switch (op) {
+            case BatchOperation.ADD: {
+                if (talk == null) return invalid(operation.getTitle(), "add requires a talk");
+                if (isBlank(talk.getTitle())) return invalid(null, "add requires a talk with a title");
+                String key = titleKey(talk.getTitle());
+                TedTalk previous = titleIndex.get(key);
+                // as in imports, re-adding a talk unchanged is not indexed, logged or published
+                if (previous != null && sameContent(previous, talk)) {
+                    return new BatchResult(previous.getTitle(), BatchResult.Status.UNCHANGED, null);
+                }
+                titleIndex.put(key, talk);
+                if (previous == null) {
+                    writer.add(talk);
+                    indexes.forEach(index -> index.add(talk));
+                } else {
+                    writer.replace(previous, talk);
+                    indexes.forEach(index -> index.replace(previous, talk));
+                }
+                return new BatchResult(talk.getTitle(),
+                        previous == null ? BatchResult.Status.CREATED : BatchResult.Status.REPLACED, null);
+            }
+            case BatchOperation.UPDATE: {
+                if (isBlank(operation.getTitle())) return invalid(null, "update requires a title");
+                if (talk == null) return invalid(operation.getTitle(), "update requires a talk");
+                TedTalk t = titleIndex.get(titleKey(operation.getTitle()));
+                if (t == null) return new BatchResult(operation.getTitle(), BatchResult.Status.NOT_FOUND, null);
+                TedTalk merged = merge(t, talk);
+                writer.replace(t, merged);
+                titleIndex.put(titleKey(t.getTitle()), merged);
+                indexes.forEach(index -> index.replace(t, merged));
+                return new BatchResult(t.getTitle(), BatchResult.Status.UPDATED, null);
+            }
+            case BatchOperation.DELETE: {
+                if (isBlank(operation.getTitle())) return invalid(null, "delete requires a title");
+                TedTalk removed = titleIndex.remove(titleKey(operation.getTitle()));
+                if (removed == null) return new BatchResult(operation.getTitle(), BatchResult.Status.NOT_FOUND, null);
+                writer.remove(removed);
+                indexes.forEach(index -> index.remove(removed));
+                return new BatchResult(removed.getTitle(), BatchResult.Status.DELETED, null);
+            }
+            default:
+                return invalid(operation.getTitle(), "unknown op '" + operation.getOp() + "', expected add, update or delete");
+        }
+    }
+
+    private static BatchResult invalid(String title, String error) {
+        return new BatchResult(title, BatchResult.Status.INVALID, error);
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+
+    /**
+     * Applies the non-null fields of an update to a stored talk. Views and likes are
+     * always overwritten.
+     */
+    private static TedTalk merge(TedTalk t, TedTalk updated) {
+        return new TedTalk(
+                t.getTitle(),
+                updated.getAuthor() != null ? updated.getAuthor() : t.getAuthor(),
+                updated.getDate() != null ? updated.getDate() : t.getDate(),
+                updated.getViews(),
+                updated.getLikes(),
+                updated.getLink() != null ? updated.getLink() : t.getLink());
+    }
+
+    private static void awaitDurable(WriteAheadLog log, long seq) {
+        if (log == null) return;
+        try {
+            log.sync(seq);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String encodeCursor(long version, int offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((version + ":" + offset).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long[] decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = decoded.indexOf(':');
+            long version = Long.parseLong(decoded.substring(0, separator));
+            int offset = Integer.parseInt(decoded.substring(separator + 1));
+            if (version < 0 || offset < 0) throw new IllegalArgumentException("Invalid cursor");
+            return new long[]{version, offset};
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Normalizes a title into its index key so that lookups are case-insensitive.
+     */
+    static String titleKey(String title) {
+        return title.toLowerCase(Locale.ROOT);
+    }
 }
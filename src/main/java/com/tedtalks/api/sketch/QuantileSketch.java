@@ -0,0 +1,155 @@
+package com.tedtalks.api.sketch;
+
+import java.util.Arrays;
+
+/**
+ * Quantile sketch over non-negative longs with a bounded relative error (DDSketch).
+ * <p>
+ * A value {@code v > 0} is counted in bucket {@code ceil(log(v) / log(gamma))} with
+ * {@code gamma = (1 + a) / (1 - a)}, so every value of a bucket is within the relative
+ * accuracy {@code a} of the bucket's representative value; zeros, and negative values,
+ * are counted apart. Counts are kept in one int array spanning the buckets between the
+ * smallest and the largest value seen: at 1% accuracy the whole long range takes about
+ * 2,200 buckets, however many values are added. A quantile is found by one walk over
+ * that array.
+ * </p>
+ * <p>
+ * Counts can be decremented, so a sketch follows a data set under deletions as long as
+ * only added values are removed, and sketches of the same accuracy merge by adding their
+ * counts. Not thread-safe.
+ * </p>
+ */
+public final class QuantileSketch {
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    private int[] counts = new int[0];
+    /** Bucket index of counts[0]. */
+    private int offset;
+    private long zeroCount;
+    private long count;
+
+    /**
+     * @param relativeAccuracy the relative error bound of quantiles, e.g. 0.01
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1): " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(long value) {
+        if (value <= 0) {
+            zeroCount++;
+        } else {
+            int index = index(value);
+            ensureCovers(index);
+            counts[index - offset]++;
+        }
+        count++;
+    }
+
+    /**
+     * Removes one occurrence of a value.
+     *
+     * @return false if the sketch holds no value in that value's bucket
+     */
+    public boolean remove(long value) {
+        if (value <= 0) {
+            if (zeroCount == 0) return false;
+            zeroCount--;
+        } else {
+            int slot = index(value) - offset;
+            if (slot < 0 || slot >= counts.length || counts[slot] == 0) return false;
+            counts[slot]--;
+        }
+        count--;
+        return true;
+    }
+
+    /**
+     * Adds the counts of another sketch to this one.
+     *
+     * @throws IllegalArgumentException if the sketches have different accuracies
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches of different accuracy");
+        }
+        if (other.count == 0) return;
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] == 0) continue;
+            if (first < 0) first = i;
+            last = i;
+        }
+        if (first >= 0) {
+            ensureCovers(other.offset + first);
+            ensureCovers(other.offset + last);
+            for (int i = first; i <= last; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /**
+     * Returns the value at the given quantile, within the relative accuracy.
+     *
+     * @param q the quantile, between 0 and 1
+     * @return the estimated value, 0 if the sketch is empty
+     */
+    public long quantile(double q) {
+        if (!(q >= 0 && q <= 1)) throw new IllegalArgumentException("Quantile must be in [0, 1]: " + q);
+        if (count == 0) return 0;
+        double rank = q * (count - 1);
+        long seen = zeroCount;
+        if (rank < seen) return 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) return value(offset + i);
+        }
+        return value(offset + counts.length - 1);
+    }
+
+    /** Number of values held. */
+    public long count() {
+        return count;
+    }
+
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    private int index(long value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /** Representative value of a bucket, at the same relative distance from both bounds. */
+    private long value(int index) {
+        return Math.round(2 * Math.pow(gamma, index) / (gamma + 1));
+    }
+
+    private void ensureCovers(int index) {
+        if (counts.length == 0) {
+            counts = new int[16];
+            offset = index - 8;
+        } else if (index < offset) {
+            int grow = Math.max(offset - index, counts.length / 2);
+            int[] grown = new int[counts.length + grow];
+            System.arraycopy(counts, 0, grown, grow, counts.length);
+            counts = grown;
+            offset -= grow;
+        } else if (index >= offset + counts.length) {
+            int grow = Math.max(index - offset - counts.length + 1, counts.length / 2);
+            counts = Arrays.copyOf(counts, counts.length + grow);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.MonthlyTotal;
+import com.tedtalks.api.model.TalkDates;
+import com.tedtalks.api.model.TalkStats;
+import com.tedtalks.api.model.TedTalk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonthlyTotalsTest {
+
+    private MonthlyTotals totals;
+
+    @BeforeEach
+    void setUp() {
+        totals = new MonthlyTotals();
+        totals.add(new TedTalk("Talk1", "Author1", "Jan-20", 100, 10, "link1"));
+        totals.add(new TedTalk("Talk2", "Author2", "Jan-20", 200, 20, "link2"));
+        totals.add(new TedTalk("Talk3", "Author3", "Mar-20", 400, 40, "link3"));
+        totals.add(new TedTalk("Talk4", "Author4", "2020", 800, 80, "link4"));
+    }
+
+    @Test
+    void testBetween() {
+        TalkStats q1 = totals.between(month(2020, 1), month(2020, 3));
+        assertEquals(3, q1.getCount());
+        assertEquals(700, q1.getTotalViews());
+        assertEquals(70, q1.getTotalLikes());
+
+        TalkStats february = totals.between(month(2020, 2), month(2020, 3));
+        assertEquals(1, february.getCount());
+        assertEquals(0, totals.between(month(2020, 4), month(2030, 12)).getCount());
+        assertEquals(0, totals.between(month(2020, 3), month(2020, 1)).getCount());
+    }
+
+    @Test
+    void testSeriesWithMovingAverage() {
+        List<MonthlyTotal> months = totals.series(month(2020, 1), month(2020, 4), 2);
+        assertEquals(4, months.size());
+        assertEquals("2020-01", months.get(0).getMonth());
+        assertEquals(2, months.get(0).getCount());
+        assertEquals(300, months.get(0).getViews());
+        assertEquals(150, months.get(0).getViewsMovingAverage(), 1e-9);
+        assertEquals(150, months.get(1).getViewsMovingAverage(), 1e-9);
+        assertEquals(200, months.get(2).getViewsMovingAverage(), 1e-9);
+        assertEquals(20, months.get(3).getLikesMovingAverage(), 1e-9);
+
+        // the window reaches back before the first returned month
+        List<MonthlyTotal> march = totals.series(month(2020, 3), month(2020, 3), 3);
+        assertEquals((300 + 400) / 3.0, march.get(0).getViewsMovingAverage(), 1e-9);
+    }
+
+    @Test
+    void testSeriesWindowStartsBeforeRange() {
+        totals.add(new TedTalk("Talk5", "Author5", "Nov-19", 1000, 100, "link5"));
+        totals.add(new TedTalk("Talk6", "Author6", "Dec-19", 2000, 200, "link6"));
+
+        List<MonthlyTotal> months = totals.series(month(2020, 1), month(2020, 3), 2);
+        assertEquals((2000 + 300) / 2.0, months.get(0).getViewsMovingAverage(), 1e-9);
+        assertEquals((300 + 0) / 2.0, months.get(1).getViewsMovingAverage(), 1e-9);
+        assertEquals((0 + 400) / 2.0, months.get(2).getViewsMovingAverage(), 1e-9);
+        assertEquals((200 + 30) / 2.0, months.get(0).getLikesMovingAverage(), 1e-9);
+
+        List<MonthlyTotal> january = totals.series(month(2020, 1), month(2020, 1), 3);
+        assertEquals((1000 + 2000 + 300) / 3.0, january.get(0).getViewsMovingAverage(), 1e-9);
+    }
+
+    @Test
+    void testRemoveAndGrowth() {
+        totals.remove(new TedTalk("Talk2", "Author2", "Jan-20", 200, 20, "link2"));
+        assertEquals(100, totals.between(month(2020, 1), month(2020, 1)).getTotalViews());
+
+        // months far outside the initial span widen it without losing the existing figures
+        totals.add(new TedTalk("Talk5", "Author5", "1700-06", 5, 1, "link5"));
+        totals.add(new TedTalk("Talk6", "Author6", "2900-06", 7, 1, "link6"));
+        TalkStats all = totals.between(month(1000, 1), month(9999, 12));
+        assertEquals(4, all.getCount());
+        assertEquals(512, all.getTotalViews());
+        assertEquals(400, totals.between(month(2020, 2), month(2020, 3)).getTotalViews());
+        assertEquals(7, totals.series(month(2900, 6), month(2900, 6), 1).get(0).getViews());
+    }
+
+    private static int month(int year, int month) {
+        return TalkDates.epochMonth(year, month);
+    }
+}
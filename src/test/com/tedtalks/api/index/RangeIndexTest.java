@@ -0,0 +1,64 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.TedTalk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeIndexTest {
+
+    private RangeIndex index;
+    private TedTalk t1;
+    private TedTalk t2;
+    private TedTalk t3;
+    private TedTalk t4;
+
+    @BeforeEach
+    void setUp() {
+        index = new RangeIndex(TedTalk::getViews);
+        t1 = new TedTalk("Talk1", "Author1", "2020", 100, 10, "link1");
+        t2 = new TedTalk("Talk2", "Author2", "2020", 200, 20, "link2");
+        t3 = new TedTalk("Talk3", "Author3", "2021", 200, 30, "link3");
+        t4 = new TedTalk("Talk4", "Author4", "2021", 400, 40, "link4");
+        index.add(t1);
+        index.add(t2);
+        index.add(t3);
+        index.add(t4);
+    }
+
+    @Test
+    void testRangeIsInclusiveAndOrdered() {
+        assertEquals(List.of("Talk2", "Talk3", "Talk4"), titles(index.range(200, 400, false, 10)));
+        assertEquals(List.of("Talk4", "Talk3", "Talk2"), titles(index.range(200, 400, true, 10)));
+        assertEquals(List.of("Talk1"), titles(index.range(0, 199, false, 10)));
+        assertTrue(index.range(201, 399, false, 10).isEmpty());
+        assertTrue(index.range(400, 200, false, 10).isEmpty());
+    }
+
+    @Test
+    void testLimit() {
+        assertEquals(List.of("Talk1", "Talk2"), titles(index.range(0, Long.MAX_VALUE, false, 2)));
+        assertEquals(List.of("Talk4"), titles(index.range(0, Long.MAX_VALUE, true, 1)));
+        assertTrue(index.range(0, Long.MAX_VALUE, false, 0).isEmpty());
+    }
+
+    @Test
+    void testReplaceAndRemove() {
+        TedTalk updated = new TedTalk("Talk1", "Author1", "2020", 500, 10, "link1");
+        index.replace(t1, updated);
+        assertEquals(List.of("Talk1", "Talk4"), titles(index.range(300, 1000, true, 10)));
+        assertTrue(index.range(0, 199, false, 10).isEmpty());
+
+        index.remove(t4);
+        index.remove(t4);
+        assertEquals(List.of("Talk1"), titles(index.range(300, 1000, false, 10)));
+    }
+
+    private static List<String> titles(List<TedTalk> talks) {
+        return talks.stream().map(TedTalk::getTitle).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,62 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.SpeakerStats;
+import com.tedtalks.api.model.TedTalk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpeakerRollupsTest {
+
+    private SpeakerRollups rollups;
+
+    @BeforeEach
+    void setUp() {
+        rollups = new SpeakerRollups();
+    }
+
+    @Test
+    void testRollupTotals() {
+        rollups.add(new TedTalk("Talk1", "Author1", "2020", 1000, 50, "link1"));
+        rollups.add(new TedTalk("Talk2", "Author1", "2021", 3000, 10, "link2"));
+        rollups.add(new TedTalk("Talk3", "Author2", "2022", 500, 70, "link3"));
+
+        SpeakerStats stats = rollups.get("Author1");
+        assertEquals(2, stats.getTalkCount());
+        assertEquals(4000, stats.getTotalViews());
+        assertEquals(60, stats.getTotalLikes());
+        assertEquals(64.0, stats.getTotalInfluence(), 0.001);
+        assertEquals(32.0, stats.getAverageInfluence(), 0.001);
+        assertEquals("Talk1", stats.getBestTalk());
+        assertNull(rollups.get("Nobody"));
+    }
+
+    @Test
+    void testLeaderboardFollowsRemovals() {
+        TedTalk t1 = new TedTalk("Talk1", "Author1", "2020", 1000, 50, "link1");
+        TedTalk t2 = new TedTalk("Talk2", "Author1", "2021", 3000, 10, "link2");
+        TedTalk t3 = new TedTalk("Talk3", "Author2", "2022", 500, 70, "link3");
+        rollups.add(t1);
+        rollups.add(t2);
+        rollups.add(t3);
+        assertEquals(List.of("Author2", "Author1"), authors(rollups.top(10)));
+
+        rollups.remove(t1);
+        assertEquals(List.of("Author2", "Author1"), authors(rollups.top(10)));
+        assertEquals("Talk2", rollups.get("Author1").getBestTalk());
+        assertEquals(1, rollups.get("Author1").getTalkCount());
+
+        rollups.remove(t3);
+        assertEquals(List.of("Author1"), authors(rollups.top(10)));
+        assertNull(rollups.get("Author2"));
+        assertEquals(List.of("Author1"), authors(rollups.top(1)));
+    }
+
+    private static List<String> authors(List<SpeakerStats> stats) {
+        return stats.stream().map(SpeakerStats::getAuthor).collect(Collectors.toList());
+    }
+}
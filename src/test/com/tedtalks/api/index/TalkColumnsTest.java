@@ -0,0 +1,193 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.TalkStats;
+import com.tedtalks.api.model.TedTalk;
+import com.tedtalks.api.score.ScoreExpression;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TalkColumnsTest {
+
+    private TalkColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = new TalkColumns();
+    }
+
+    @Test
+    void testTopByInfluence() {
+        TedTalk t1 = new TedTalk("Talk1", "Author1", "Jan-20", 1000, 50, "link1");
+        TedTalk t2 = new TedTalk("Talk2", "Author2", "Feb-21", 2000, 30, "link2");
+        TedTalk t3 = new TedTalk("Talk3", "Author1", "Mar-20", 500, 70, "link3");
+        columns.add(t1);
+        columns.add(t2);
+        columns.add(t3);
+
+        assertEquals(List.of(t3, t1, t2), columns.topByInfluence(5, TalkColumns.ALL_YEARS));
+        assertEquals(List.of(t3), columns.topByInfluence(1, TalkColumns.ALL_YEARS));
+        assertEquals(List.of(t3, t1), columns.topByInfluence(5, 2020));
+        assertTrue(columns.topByInfluence(5, 2019).isEmpty());
+        assertTrue(columns.topByInfluence(0, TalkColumns.ALL_YEARS).isEmpty());
+        // the heaps are sized by the rows, not by N
+        assertEquals(List.of(t3, t1, t2), columns.topByInfluence(Integer.MAX_VALUE, TalkColumns.ALL_YEARS));
+        assertEquals(List.of(t3, t1), columns.topByInfluence(Integer.MAX_VALUE, 2020));
+    }
+
+    @Test
+    void testTopByScore() {
+        TedTalk t1 = new TedTalk("Talk1", "Author1", "Jan-20", 1000, 50, "link1");
+        TedTalk t2 = new TedTalk("Talk2", "Author2", "Feb-21", 2000, 30, "link2");
+        TedTalk t3 = new TedTalk("Talk3", "Author1", "Mar-20", 500, 70, "link3");
+        TedTalk t4 = new TedTalk("Talk4", "Author3", "Apr-20", 0, 0, "link4");
+        columns.add(t1);
+        columns.add(t2);
+        columns.add(t3);
+        columns.add(t4);
+        int now = 2024 * 12;
+
+        ScoreExpression influence = ScoreExpression.compile("likes + views / 1000");
+        assertEquals(columns.topByInfluence(5, TalkColumns.ALL_YEARS),
+                columns.topByScore(influence, 5, TalkColumns.ALL_YEARS, now));
+        assertEquals(columns.topByInfluence(5, 2020), columns.topByScore(influence, 5, 2020, now));
+
+        // 0 / 0 is not a number, so Talk4 is not ranked
+        ScoreExpression ratio = ScoreExpression.compile("likes / views");
+        assertEquals(List.of(t3, t1, t2), columns.topByScore(ratio, 5, TalkColumns.ALL_YEARS, now));
+        assertEquals(List.of(t2, t4, t3, t1),
+                columns.topByScore(ScoreExpression.compile("-age"), 5, TalkColumns.ALL_YEARS, now));
+        assertTrue(columns.topByScore(ratio, 5, 2019, now).isEmpty());
+        assertEquals(List.of(t3, t1, t2), columns.topByScore(ratio, Integer.MAX_VALUE, TalkColumns.ALL_YEARS, now));
+    }
+
+    @Test
+    void testTiesKeepInsertionOrder() {
+        TedTalk t1 = new TedTalk("Talk1", "Author1", "Jan-20", 1000, 50, "link1");
+        TedTalk t2 = new TedTalk("Talk2", "Author2", "Jan-20", 1000, 50, "link2");
+        TedTalk t3 = new TedTalk("Talk3", "Author3", "Jan-20", 1000, 50, "link3");
+        columns.add(t1);
+        columns.add(t2);
+        columns.add(t3);
+
+        assertEquals(List.of(t1, t2), columns.topByInfluence(2, TalkColumns.ALL_YEARS));
+    }
+
+    @Test
+    void testRemoveMovesLastRow() {
+        TedTalk t1 = new TedTalk("Talk1", "Author1", "Jan-20", 1000, 50, "link1");
+        TedTalk t2 = new TedTalk("Talk2", "Author2", "Feb-21", 2000, 30, "link2");
+        TedTalk t3 = new TedTalk("Talk3", "Author1", "Mar-20", 500, 70, "link3");
+        columns.add(t1);
+        columns.add(t2);
+        columns.add(t3);
+
+        columns.remove(t1);
+        columns.remove(t1);
+        assertEquals(2, columns.size());
+        assertEquals(List.of(t3, t2), columns.topByInfluence(5, TalkColumns.ALL_YEARS));
+    }
+
+    @Test
+    void testShardedScanMatchesFullSort() {
+        TalkColumns sharded = new TalkColumns(8);
+        List<TedTalk> talks = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < TalkColumns.PARALLEL_ROWS + 1000; i++) {
+            // few distinct scores, so ties span shards
+            TedTalk t = new TedTalk("Talk" + i, "Author" + (i % 7), i % 2 == 0 ? "Jan-20" : "Jan-21",
+                    1000 * random.nextInt(50), random.nextInt(50), "link");
+            talks.add(t);
+            sharded.add(t);
+        }
+        for (int i = 0; i < talks.size(); i += 3) {
+            sharded.remove(talks.get(i));
+        }
+        List<TedTalk> kept = new ArrayList<>();
+        for (int i = 0; i < talks.size(); i++) {
+            if (i % 3 != 0) kept.add(talks.get(i));
+        }
+        assertEquals(8, sharded.shards());
+        assertEquals(kept.size(), sharded.size());
+
+        // stable sort keeps insertion order among equal scores
+        List<TedTalk> expected = new ArrayList<>(kept);
+        expected.sort(Comparator.comparingLong((TedTalk t) -> t.getLikes() * 1000 + t.getViews()).reversed());
+        assertEquals(expected.subList(0, 100), sharded.topByInfluence(100, TalkColumns.ALL_YEARS));
+        List<TedTalk> expected2021 = expected.stream().filter(t -> t.getYear() == 2021).collect(Collectors.toList());
+        assertEquals(expected2021.subList(0, 50), sharded.topByInfluence(50, 2021));
+        assertEquals(expected.subList(0, 100), sharded.topByScore(
+                ScoreExpression.compile("likes + views / 1000"), 100, TalkColumns.ALL_YEARS, 2024 * 12));
+
+        TalkStats stats = sharded.summarize(2020, "Author3");
+        List<TedTalk> matching = kept.stream()
+                .filter(t -> t.getYear() == 2020 && t.getAuthor().equals("Author3")).collect(Collectors.toList());
+        assertEquals(matching.size(), stats.getCount());
+        assertEquals(matching.stream().mapToLong(TedTalk::getViews).sum(), stats.getTotalViews());
+        assertEquals(matching.stream().mapToLong(TedTalk::getLikes).sum(), stats.getTotalLikes());
+    }
+
+    @Test
+    void testYearQueriesAfterRemovals() {
+        TalkColumns sharded = new TalkColumns(4);
+        List<TedTalk> kept = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            TedTalk t = new TedTalk("Talk" + i, "Author" + (i % 5), "Mar-" + (10 + random.nextInt(6)),
+                    random.nextInt(100_000), random.nextInt(1000), "link");
+            sharded.add(t);
+            kept.add(t);
+            // remove a random earlier talk now and then, so rows move within shards and years
+            if (i % 4 == 3) sharded.remove(kept.remove(random.nextInt(kept.size())));
+        }
+        ScoreExpression ratio = ScoreExpression.compile("likes / views");
+        for (int year = 2010; year <= 2016; year++) {
+            int y = year;
+            List<TedTalk> ofYear = kept.stream().filter(t -> t.getYear() == y).collect(Collectors.toList());
+            List<TedTalk> byInfluence = new ArrayList<>(ofYear);
+            byInfluence.sort(Comparator.comparingLong((TedTalk t) -> t.getLikes() * 1000 + t.getViews()).reversed());
+            assertEquals(byInfluence.subList(0, Math.min(20, ofYear.size())), sharded.topByInfluence(20, year));
+
+            List<TedTalk> byRatio = ofYear.stream().filter(t -> t.getViews() > 0 || t.getLikes() > 0)
+                    .sorted(Comparator.comparingDouble((TedTalk t) -> (double) t.getLikes() / t.getViews()).reversed())
+                    .collect(Collectors.toList());
+            List<TedTalk> top = sharded.topByScore(ratio, 20, year, 2024 * 12);
+            assertEquals(Math.min(20, byRatio.size()), top.size());
+            for (int i = 0; i < top.size(); i++) {
+                assertEquals((double) byRatio.get(i).getLikes() / byRatio.get(i).getViews(),
+                        (double) top.get(i).getLikes() / top.get(i).getViews());
+            }
+
+            TalkStats stats = sharded.summarize(year, "Author2");
+            List<TedTalk> matching = ofYear.stream().filter(t -> t.getAuthor().equals("Author2"))
+                    .collect(Collectors.toList());
+            assertEquals(matching.size(), stats.getCount());
+            assertEquals(matching.stream().mapToLong(TedTalk::getViews).sum(), stats.getTotalViews());
+        }
+    }
+
+    @Test
+    void testSummarize() {
+        for (int i = 0; i < 3000; i++) {
+            columns.add(new TedTalk("Talk" + i, "Author" + (i % 3), i % 2 == 0 ? "Jan-20" : "Jan-21", 1000, 10, "link"));
+        }
+
+        TalkStats all = columns.summarize(TalkColumns.ALL_YEARS, null);
+        assertEquals(3000, all.getCount());
+        assertEquals(3_000_000, all.getTotalViews());
+        assertEquals(30_000, all.getTotalLikes());
+        assertEquals(11.0, all.getAverageInfluence(), 0.001);
+
+        assertEquals(1500, columns.summarize(2020, null).getCount());
+        assertEquals(500, columns.summarize(2020, "Author0").getCount());
+        assertEquals(0, columns.summarize(2020, "Nobody").getCount());
+        assertEquals("Author1", columns.authorName(columns.authorCode("Author1")));
+    }
+}
@@ -0,0 +1,68 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.TalkDistribution;
+import com.tedtalks.api.model.TedTalk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TalkSketchesTest {
+
+    private TalkSketches sketches;
+
+    @BeforeEach
+    void setUp() {
+        sketches = new TalkSketches();
+    }
+
+    @Test
+    void testDistributionPerYearAndMonth() {
+        TedTalk t1 = new TedTalk("Talk1", "Author1", "Jan-20", 1000, 10, "link1");
+        TedTalk t2 = new TedTalk("Talk2", "Author2", "Jan-20", 2000, 20, "link2");
+        TedTalk t3 = new TedTalk("Talk3", "Author1", "Mar-20", 3000, 30, "link3");
+        TedTalk t4 = new TedTalk("Talk4", "Author3", "2021", 4000, 40, "link4");
+        sketches.add(t1);
+        sketches.add(t2);
+        sketches.add(t3);
+        sketches.add(t4);
+
+        TalkDistribution year = sketches.year(2020, 0, 0.5, 1);
+        assertEquals(3, year.getCount());
+        assertEquals(2, year.getDistinctSpeakers());
+        assertEquals(2000, year.getViews().get("p50"), 20);
+        assertEquals(3000, year.getViews().get("p100"), 30);
+        assertEquals(10, year.getLikes().get("p0"), 1);
+
+        TalkDistribution january = sketches.month(2020, 1, 0.5);
+        assertEquals(2, january.getCount());
+        assertEquals(2, january.getDistinctSpeakers());
+        assertEquals(0, sketches.month(2021, 1, 0.5).getCount());
+
+        TalkDistribution all = sketches.all(0.5);
+        assertEquals(4, all.getCount());
+        assertEquals(3, all.getDistinctSpeakers());
+
+        // an update is a removal of the old state and an addition of the new one
+        sketches.replace(t3, new TedTalk("Talk3", "Author4", "Mar-20", 30000, 300, "link3"));
+        year = sketches.year(2020, 1);
+        assertEquals(3, year.getCount());
+        assertEquals(3, year.getDistinctSpeakers());
+        assertEquals(30000, year.getViews().get("p100"), 300);
+
+        sketches.remove(t4);
+        assertEquals(0, sketches.year(2021, 0.5).getCount());
+        assertEquals(Map.of(), sketches.year(2021, 0.5).getViews());
+    }
+
+    @Test
+    void testLabels() {
+        assertEquals("p50", TalkSketches.label(0.5));
+        assertEquals("p99.9", TalkSketches.label(0.999));
+        assertEquals("p0", TalkSketches.label(0));
+        assertEquals("p100", TalkSketches.label(1));
+        assertThrows(IllegalArgumentException.class, () -> sketches.all(-0.1));
+    }
+}
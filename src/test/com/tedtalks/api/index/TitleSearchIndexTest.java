@@ -0,0 +1,177 @@
+package com.tedtalks.api.index;
+
+import com.tedtalks.api.model.SearchHit;
+import com.tedtalks.api.model.TedTalk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TitleSearchIndexTest {
+
+    private TitleSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TitleSearchIndex();
+    }
+
+    @Test
+    void testTokenize() {
+        assertEquals(List.of("sun", "god", "son"), TitleSearchIndex.tokenize("The Sun God's son"));
+        assertEquals(List.of("climate", "change", "2021"), TitleSearchIndex.tokenize("Climate-change, 2021!"));
+        assertTrue(TitleSearchIndex.tokenize(null).isEmpty());
+    }
+
+    @Test
+    void testSearchRanksByRelevance() {
+        TedTalk t1 = new TedTalk("Climate action needs new frontline leadership", "A1", "Dec-21", 404000, 12000, "l1");
+        TedTalk t2 = new TedTalk("The unexpected plant fighting climate change", "A2", "Aug-21", 786000, 23000, "l2");
+        TedTalk t3 = new TedTalk("How play can spark new ideas for your business", "A3", "Sep-21", 412000, 12000, "l3");
+        index.add(t1);
+        index.add(t2);
+        index.add(t3);
+
+        assertEquals(List.of(t1), talks(index.search("leadership", 10, false)));
+        assertEquals(2, index.search("CLIMATE", 10, false).size());
+        // matching both terms beats matching one
+        assertEquals(t1, index.search("climate leadership", 10, false).get(0).getTalk());
+        assertEquals(1, index.search("climate", 1, false).size());
+        assertTrue(index.search("the how", 10, false).isEmpty());
+        assertTrue(index.search("astronomy", 10, false).isEmpty());
+    }
+
+    @Test
+    void testReplaceKeepsPostingsOfUnchangedTitle() {
+        TedTalk small = new TedTalk("Climate stories", "A1", "Dec-21", 1000, 10, "l1");
+        TedTalk big = new TedTalk("Climate tales", "A2", "Dec-21", 2000, 20, "l2");
+        index.add(small);
+        index.add(big);
+        assertEquals(big, index.search("climate", 1, true).get(0).getTalk());
+
+        TedTalk bigger = new TedTalk("climate STORIES", "A1", "Dec-21", 5_000_000, 100_000, "l1");
+        index.replace(small, bigger);
+        assertEquals(bigger, index.search("climate", 1, true).get(0).getTalk());
+        assertEquals(List.of(bigger), talks(index.search("stories", 10, false)));
+
+        // a changed title is re-indexed
+        TedTalk renamed = new TedTalk("Ocean tales", "A2", "Dec-21", 2000, 20, "l2");
+        index.replace(big, renamed);
+        assertEquals(List.of(bigger), talks(index.search("climate", 10, false)));
+        assertEquals(List.of(renamed), talks(index.search("ocean", 10, false)));
+
+        index.remove(bigger);
+        assertTrue(index.search("stories", 10, false).isEmpty());
+    }
+
+    @Test
+    void testRemoveAll() {
+        TedTalk t1 = new TedTalk("Climate stories", "A1", "Dec-21", 1000, 10, "l1");
+        TedTalk t2 = new TedTalk("Climate tales", "A2", "Dec-21", 2000, 20, "l2");
+        TedTalk t3 = new TedTalk("Ocean stories", "A3", "Dec-21", 3000, 30, "l3");
+        index.add(t1);
+        index.add(t2);
+        index.add(t3);
+
+        index.removeAll(List.of(t1, t3, new TedTalk("Never indexed", "A4", "Dec-21", 0, 0, "l4")));
+        assertEquals(List.of(t2), talks(index.search("climate stories ocean tales", 10, false)));
+
+        // freed document ids are reused without stale postings
+        TedTalk t4 = new TedTalk("Forest tales", "A4", "Dec-21", 4000, 40, "l4");
+        index.add(t4);
+        assertEquals(List.of(t4), talks(index.search("forest", 10, false)));
+        assertTrue(index.search("stories", 10, false).isEmpty());
+        assertEquals(2, index.search("tales", 10, false).size());
+    }
+
+    @Test
+    void testWeightedSearchFavoursInfluence() {
+        TedTalk small = new TedTalk("Climate stories", "A1", "Dec-21", 1000, 10, "l1");
+        TedTalk big = new TedTalk("Climate tales", "A2", "Dec-21", 5_000_000, 100_000, "l2");
+        index.add(small);
+        index.add(big);
+
+        assertEquals(big, index.search("climate", 10, true).get(0).getTalk());
+    }
+
+    @Test
+    void testRemove() {
+        TedTalk t1 = new TedTalk("Climate action", "A1", "Dec-21", 404000, 12000, "l1");
+        index.add(t1);
+        index.remove(t1);
+        assertTrue(index.search("climate", 10, false).isEmpty());
+    }
+
+    @Test
+    void testRemovalsKeepOtherPostings() {
+        String[] words = {"climate", "ocean", "future", "energy", "cities"};
+        List<TedTalk> kept = new ArrayList<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            // repeated and shared words, so entries of one title sit at different positions per posting
+            String title = words[random.nextInt(5)] + " " + words[random.nextInt(5)] + " " + words[i % 5] + " t" + i;
+            TedTalk t = new TedTalk(title, "A", "Dec-21", 1000, 10, "l");
+            index.add(t);
+            kept.add(t);
+            if (i % 3 == 2) index.remove(kept.remove(random.nextInt(kept.size())));
+        }
+        List<TedTalk> batch = new ArrayList<>(kept.subList(0, 100));
+        index.removeAll(batch);
+        kept.removeAll(batch);
+        for (int i = 0; i < 200; i++) index.remove(kept.remove(random.nextInt(kept.size())));
+
+        for (String word : words) {
+            long expected = kept.stream().filter(t -> t.getTitle().contains(word)).count();
+            assertEquals(expected, index.search(word, Integer.MAX_VALUE, false).size(), word);
+        }
+        TedTalk last = kept.get(kept.size() - 1);
+        String own = last.getTitle().substring(last.getTitle().lastIndexOf(' ') + 1);
+        assertEquals(List.of(last), talks(index.search(own, Integer.MAX_VALUE, false)));
+    }
+
+    @Test
+    void testSearchWhileWriting() throws Exception {
+        for (int i = 0; i < 100; i++) index.add(new TedTalk("ocean energy " + i, "A", "Dec-21", 1000, 10, "l"));
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                List<TedTalk> added = new ArrayList<>();
+                for (int i = 0; i < 50_000; i++) {
+                    // growing postings, removals and reused document ids
+                    TedTalk t = new TedTalk((i % 2 == 0 ? "ocean " : "energy ") + "talk " + i, "A", "Dec-21", i, 1, "l");
+                    index.add(t);
+                    added.add(t);
+                    if (i % 3 == 0) index.remove(added.remove(added.size() / 2));
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            } finally {
+                done.set(true);
+            }
+        });
+        writer.start();
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            while (!done.get()) {
+                for (SearchHit hit : index.search("ocean energy", 1000, true)) {
+                    String title = hit.getTalk().getTitle();
+                    assertTrue(title.contains("ocean") || title.contains("energy"), title);
+                }
+            }
+        });
+        writer.join();
+        assertNull(failure.get());
+    }
+
+    private static List<TedTalk> talks(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::getTalk).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,56 @@
+package com.tedtalks.api.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricRegistryTest {
+
+    private enum Op { FIND_BY_TITLE, GET_TOP_N_TITLES }
+
+    @Test
+    void testTimerBuckets() {
+        MetricRegistry registry = new MetricRegistry();
+        Timer timer = registry.timer("lookup_seconds", "Lookup latency", "");
+        timer.record(800);            // 0.8 µs
+        timer.record(3_000);          // 3 µs
+        timer.record(20_000_000_000L); // beyond the last bound
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# TYPE lookup_seconds histogram\n"));
+        assertTrue(text.contains("lookup_seconds_bucket{le=\"0.000001\"} 1\n"));
+        assertTrue(text.contains("lookup_seconds_bucket{le=\"0.000002\"} 1\n"));
+        assertTrue(text.contains("lookup_seconds_bucket{le=\"0.000005\"} 2\n"));
+        assertTrue(text.contains("lookup_seconds_bucket{le=\"10\"} 2\n"));
+        assertTrue(text.contains("lookup_seconds_bucket{le=\"+Inf\"} 3\n"));
+        assertTrue(text.contains("lookup_seconds_count 3\n"));
+        assertEquals(3, timer.count());
+    }
+
+    @Test
+    void testTimerSetLabels() {
+        MetricRegistry registry = new MetricRegistry();
+        TimerSet<Op> timers = registry.timers("service_seconds", "Service latency", "method", Op.class);
+        timers.get(Op.GET_TOP_N_TITLES).record(1_000);
+
+        String text = registry.scrape();
+        assertTrue(text.contains("service_seconds_count{method=\"findByTitle\"} 0\n"));
+        assertTrue(text.contains("service_seconds_bucket{method=\"getTopNTitles\",le=\"0.000001\"} 1\n"));
+        // registering again returns the same timers
+        assertSame(timers.get(Op.FIND_BY_TITLE),
+                registry.timers("service_seconds", "Service latency", "method", Op.class).get(Op.FIND_BY_TITLE));
+    }
+
+    @Test
+    void testCountersAndGauges() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.counter("rows_total", "Rows", "result=\"imported\"").add(5);
+        registry.counter("rows_total", "Rows", "result=\"imported\"").increment();
+        registry.gauge("talks", "Talks", "", () -> 42);
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# TYPE rows_total counter\nrows_total{result=\"imported\"} 6\n"));
+        assertTrue(text.contains("# TYPE talks gauge\ntalks 42.0\n"));
+        assertThrows(IllegalArgumentException.class, () -> registry.timer("talks", "Talks", ""));
+    }
+}
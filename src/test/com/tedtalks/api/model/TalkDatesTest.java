@@ -0,0 +1,43 @@
+package com.tedtalks.api.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TalkDatesTest {
+
+    @Test
+    void testParseMonthAbbreviation() {
+        int packed = TalkDates.parse("Dec-21");
+        assertEquals(2021, TalkDates.year(packed));
+        assertEquals(12, TalkDates.month(packed));
+
+        packed = TalkDates.parse("feb-72");
+        assertEquals(1972, TalkDates.year(packed));
+        assertEquals(2, TalkDates.month(packed));
+    }
+
+    @Test
+    void testParseFullMonthName() {
+        int packed = TalkDates.parse("November 2019");
+        assertEquals(2019, TalkDates.year(packed));
+        assertEquals(11, TalkDates.month(packed));
+    }
+
+    @Test
+    void testParseIsoForms() {
+        assertEquals(202005, TalkDates.parse("2020-05-01"));
+        assertEquals(202005, TalkDates.parse("2020-05"));
+        assertEquals(2020, TalkDates.year(TalkDates.parse("2020")));
+        assertEquals(0, TalkDates.month(TalkDates.parse("2020")));
+    }
+
+    @Test
+    void testParseInvalid() {
+        assertEquals(TalkDates.UNKNOWN, TalkDates.parse(null));
+        assertEquals(TalkDates.UNKNOWN, TalkDates.parse(""));
+        assertEquals(TalkDates.UNKNOWN, TalkDates.parse("Foo-21"));
+        assertEquals(TalkDates.UNKNOWN, TalkDates.parse("2020-13"));
+        assertEquals(TalkDates.UNKNOWN, TalkDates.parse("20"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.tedtalks.api.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TedTalkTest {
+
+    @Test
+    void testConventionalLinkIsDerived() {
+        TedTalk talk = new TedTalk("The dark history of the overthrow of Hawaii", "Sydney Iaukea", "Feb-22", 214000, 6400,
+                "https://ted.com/talks/sydney_iaukea_the_dark_history_of_the_overthrow_of_hawaii");
+        assertTrue(talk.hasDerivedLink());
+        assertEquals("https://ted.com/talks/sydney_iaukea_the_dark_history_of_the_overthrow_of_hawaii", talk.getLink());
+
+        // accents are removed and punctuation separates words
+        assertEquals("https://ted.com/talks/bjorn_otto_sverdrup_godel_s_theorem_18_times_over",
+                TedTalk.derivedLink("Bjørn Otto Sverdrup", "Gödel's theorem ... 18 times over?"));
+        assertNull(TedTalk.derivedLink(null, "Title"));
+    }
+
+    @Test
+    void testOtherLinksAreStored() {
+        TedTalk talk = new TedTalk("Title", "Author", "2020", 1, 1, "https://ted.com/talks/author_title_jan_2021");
+        assertFalse(talk.hasDerivedLink());
+        assertEquals("https://ted.com/talks/author_title_jan_2021", talk.getLink());
+        assertNull(new TedTalk("Title", "Author", "2020", 1, 1, null).getLink());
+    }
+
+    @Test
+    void testSettersKeepTheLink() {
+        TedTalk talk = new TedTalk("Title", "Author", "2020", 1, 1, "https://ted.com/talks/author_title");
+        talk.setTitle("Other title");
+        assertEquals("https://ted.com/talks/author_title", talk.getLink());
+        assertFalse(talk.hasDerivedLink());
+        talk.setTitle("Title");
+        assertTrue(talk.hasDerivedLink());
+
+        talk.setLink("https://example.com");
+        talk.setAuthor("Someone");
+        assertEquals("https://example.com", talk.getLink());
+    }
+
+    @Test
+    void testRepeatedAuthorsAndDatesAreShared() {
+        TedTalk t1 = new TedTalk("Talk1", new String("Author"), new String("Dec-21"), 1, 1, null);
+        TedTalk t2 = new TedTalk("Talk2", new String("Author"), new String("Dec-21"), 1, 1, null);
+        assertSame(t1.getAuthor(), t2.getAuthor());
+        assertSame(t1.getDate(), t2.getDate());
+    }
+
+    @Test
+    void testJsonIsUnchanged() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String json = "{\"title\":\"Title\",\"author\":\"Author\",\"date\":\"Dec-21\",\"views\":10,\"likes\":2,"
+                + "\"link\":\"https://ted.com/talks/author_title\"}";
+        TedTalk talk = mapper.readValue(json, TedTalk.class);
+        assertTrue(talk.hasDerivedLink());
+        assertEquals(json, mapper.writeValueAsString(talk));
+    }
+}
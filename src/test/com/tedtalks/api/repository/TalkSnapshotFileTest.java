@@ -0,0 +1,59 @@
+package com.tedtalks.api.repository;
+
+import com.tedtalks.api.model.TedTalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TalkSnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        List<TedTalk> talks = new ArrayList<>();
+        talks.add(new TedTalk("Talk1", "Author1", "Dec-21", 1000, 50, "http://link1"));
+        talks.add(new TedTalk("Ünïcödé ✓ talk", "Author1", "Dec-21", Long.MAX_VALUE, 0, null));
+        talks.add(new TedTalk(null, null, null, 0, 7, "http://link3"));
+        Path file = dir.resolve("talks.snapshot");
+
+        TalkSnapshotFile.write(new TalkSnapshot(42, talks), file);
+        TalkSnapshot read = TalkSnapshotFile.read(file);
+
+        assertEquals(42, read.getVersion());
+        assertEquals(talks.size(), read.size());
+        for (int i = 0; i < talks.size(); i++) {
+            assertEquals(talks.get(i).toString(), read.getTalks().get(i).toString());
+        }
+        assertEquals(2021, read.getTalks().get(0).getYear());
+        assertFalse(Files.exists(dir.resolve("talks.snapshot.tmp")));
+    }
+
+    @Test
+    void testEmptySnapshot() throws IOException {
+        Path file = dir.resolve("empty.snapshot");
+        TalkSnapshotFile.write(new TalkSnapshot(0, List.of()), file);
+        assertEquals(0, TalkSnapshotFile.read(file).size());
+    }
+
+    @Test
+    void testRejectsOtherFiles() throws IOException {
+        Path csv = dir.resolve("data.csv");
+        Files.writeString(csv, "title,author,date,views,likes,link\nTalk1,Author1,Dec-21,1,1,x\n");
+        assertThrows(IOException.class, () -> TalkSnapshotFile.read(csv));
+
+        Path truncated = dir.resolve("truncated.snapshot");
+        TalkSnapshotFile.write(new TalkSnapshot(1, List.of(new TedTalk("T", "A", "Dec-21", 1, 1, "l"))), truncated);
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, java.util.Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IOException.class, () -> TalkSnapshotFile.read(truncated));
+    }
+}
@@ -0,0 +1,111 @@
+package com.tedtalks.api.repository;
+
+import com.tedtalks.api.model.TedTalk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionedTalkRepositoryTest {
+
+    private VersionedTalkRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new VersionedTalkRepository();
+    }
+
+    @Test
+    void testAddReplaceRemove() {
+        TedTalk t1 = talk(1);
+        TedTalk t2 = talk(2);
+        TedTalk t3 = talk(3);
+        repository.add(t1);
+        repository.add(t2);
+        repository.add(t3);
+        assertEquals(List.of(t1, t2, t3), repository.snapshot().getTalks());
+
+        TedTalk t2b = talk(22);
+        repository.replace(t2, t2b);
+        assertEquals(List.of(t1, t2b, t3), repository.snapshot().getTalks());
+
+        // the last talk fills the removed position
+        repository.remove(t1);
+        assertEquals(List.of(t3, t2b), repository.snapshot().getTalks());
+        assertEquals(5, repository.snapshot().getVersion());
+    }
+
+    @Test
+    void testBatchPublishesOnce() {
+        TalkSnapshot before = repository.snapshot();
+        repository.write(w -> {
+            for (int i = 0; i < 100; i++) w.add(talk(i));
+        });
+        assertEquals(0, before.size());
+        assertEquals(100, repository.snapshot().size());
+        assertEquals(1, repository.snapshot().getVersion());
+
+        repository.write(w -> w.remove(talk(-1)));
+        assertEquals(1, repository.snapshot().getVersion(), "unchanged batches are not published");
+    }
+
+    @Test
+    void testFailedBatchIsNotPublished() {
+        TedTalk t1 = talk(1);
+        repository.add(t1);
+        assertThrows(IllegalStateException.class, () -> repository.write(w -> {
+            w.add(talk(2));
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(List.of(t1), repository.snapshot().getTalks());
+        assertTrue(repository.snapshot().getTalks().contains(t1));
+        repository.remove(t1);
+        assertTrue(repository.snapshot().getTalks().isEmpty());
+    }
+
+    @Test
+    void testMatchesArrayListUnderRandomWrites() {
+        Random random = new Random(42);
+        List<TedTalk> expected = new ArrayList<>();
+        List<TalkSnapshot> snapshots = new ArrayList<>();
+        List<List<TedTalk>> copies = new ArrayList<>();
+        for (int round = 0; round < 200; round++) {
+            repository.write(w -> {
+                int ops = 1 + random.nextInt(200);
+                for (int i = 0; i < ops; i++) {
+                    int op = random.nextInt(10);
+                    if (op < 6 || expected.isEmpty()) {
+                        TedTalk t = talk(random.nextInt());
+                        w.add(t);
+                        expected.add(t);
+                    } else if (op < 8) {
+                        int pos = random.nextInt(expected.size());
+                        TedTalk t = talk(random.nextInt());
+                        assertTrue(w.replace(expected.get(pos), t));
+                        expected.set(pos, t);
+                    } else {
+                        int pos = random.nextInt(expected.size());
+                        assertTrue(w.remove(expected.get(pos)));
+                        TedTalk last = expected.remove(expected.size() - 1);
+                        if (pos < expected.size()) expected.set(pos, last);
+                    }
+                }
+            });
+            assertEquals(expected, repository.snapshot().getTalks());
+            snapshots.add(repository.snapshot());
+            copies.add(new ArrayList<>(expected));
+        }
+        // older snapshots are unaffected by later writes
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(copies.get(i), new ArrayList<>(snapshots.get(i).getTalks()));
+        }
+    }
+
+    private static TedTalk talk(int n) {
+        return new TedTalk("Title" + n, "Author" + n, "2020", n, n, "link" + n);
+    }
+}
@@ -0,0 +1,124 @@
+package com.tedtalks.api.repository;
+
+import com.tedtalks.api.model.TedTalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplaysRecordsInOrder() throws IOException {
+        Path file = dir.resolve("talks.wal");
+        try (WriteAheadLog log = WriteAheadLog.open(file, new Recorder())) {
+            log.appendPut(new TedTalk("Talk1", "Author1", "Dec-21", 1000, 50, "http://link1"));
+            log.appendPut(new TedTalk(null, null, null, 0, 0, null));
+            log.sync(log.appendDelete("Talk1"));
+        }
+
+        Recorder replayed = new Recorder();
+        WriteAheadLog.open(file, replayed).close();
+        assertEquals(List.of(
+                "put TedTalk{title='Talk1', author='Author1', date='Dec-21', views=1000, likes=50, link='http://link1'}",
+                "put TedTalk{title='null', author='null', date='null', views=0, likes=0, link='null'}",
+                "delete Talk1"), replayed.events);
+    }
+
+    @Test
+    void testDropsTornRecordAtTheEnd() throws IOException {
+        Path file = dir.resolve("talks.wal");
+        try (WriteAheadLog log = WriteAheadLog.open(file, new Recorder())) {
+            log.appendPut(new TedTalk("Talk1", "Author1", "Dec-21", 1, 1, "l"));
+            log.sync(log.appendPut(new TedTalk("Talk2", "Author2", "Dec-21", 2, 2, "l")));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+
+        Recorder replayed = new Recorder();
+        try (WriteAheadLog log = WriteAheadLog.open(file, replayed)) {
+            // appends continue after the last complete record
+            log.sync(log.appendDelete("Talk1"));
+        }
+        assertEquals(1, replayed.events.size());
+
+        Recorder again = new Recorder();
+        WriteAheadLog.open(file, again).close();
+        assertEquals(List.of(replayed.events.get(0), "delete Talk1"), again.events);
+    }
+
+    @Test
+    void testConcurrentWritersAreAllDurable() throws Exception {
+        Path file = dir.resolve("talks.wal");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try (WriteAheadLog log = WriteAheadLog.open(file, new Recorder())) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < 8; w++) {
+                int writer = w;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        long seq;
+                        synchronized (log) {
+                            seq = log.appendPut(new TedTalk("T" + writer + "-" + i, "A", "2020", i, i, null));
+                        }
+                        log.sync(seq);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdown();
+        }
+        Recorder replayed = new Recorder();
+        WriteAheadLog.open(file, replayed).close();
+        assertEquals(1600, replayed.events.size());
+    }
+
+    @Test
+    void testRotate() throws IOException {
+        Path file = dir.resolve("talks.wal");
+        try (WriteAheadLog log = WriteAheadLog.open(file, new Recorder())) {
+            log.appendDelete("Talk1");
+            log.rotate();
+            assertTrue(log.hasRotated());
+            assertThrows(IllegalStateException.class, log::rotate);
+            log.sync(log.appendDelete("Talk2"));
+        }
+
+        // an interrupted compaction replays the rotated file first
+        Recorder replayed = new Recorder();
+        try (WriteAheadLog log = WriteAheadLog.open(file, replayed)) {
+            assertEquals(List.of("delete Talk1", "delete Talk2"), replayed.events);
+            log.deleteRotated();
+            assertFalse(log.hasRotated());
+        }
+    }
+
+    private static class Recorder implements WriteAheadLog.Replay {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void put(TedTalk talk) {
+            events.add("put " + talk);
+        }
+
+        @Override
+        public void delete(String title) {
+            events.add("delete " + title);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.tedtalks.api.score;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreExpressionTest {
+
+    /** March 2024 as year * 12 + month - 1. */
+    private static final int NOW = 2024 * 12 + 2;
+
+    private static double score(String expression, long views, long likes) {
+        return ScoreExpression.compile(expression).evaluate(views, likes, 2020, 2020 * 12, NOW);
+    }
+
+    @Test
+    void testPrecedence() {
+        assertEquals(51.0, score("likes + views / 1000", 1000, 50), 1e-9);
+        assertEquals(1.05, score("(likes + views) / 1000", 1000, 50), 1e-9);
+        assertEquals(-7.0, score("1 - 2 * 4", 0, 0), 1e-9);
+        assertEquals(-9.0, score("-3 ^ 2", 0, 0), 1e-9);
+        assertEquals(512.0, score("2 ^ 3 ^ 2", 0, 0), 1e-9);
+        assertEquals(0.25, score("2 ^ -2", 0, 0), 1e-9);
+        assertEquals(1.0, score("8 / 4 / 2", 0, 0), 1e-9);
+        assertEquals(1500.0, score("1.5e3", 0, 0), 1e-9);
+    }
+
+    @Test
+    void testFunctions() {
+        assertEquals(3.0, score("log10(views)", 1000, 0), 1e-9);
+        assertEquals(1.0, score("log(exp(1))", 0, 0), 1e-9);
+        assertEquals(7.0, score("sqrt(likes)", 0, 49), 1e-9);
+        assertEquals(5.0, score("abs(likes - views)", 10, 5), 1e-9);
+        assertEquals(10.0, score("max(views, likes)", 10, 5), 1e-9);
+        assertEquals(5.0, score("min(views, likes)", 10, 5), 1e-9);
+        assertEquals(100.0, score("pow(views, 2)", 10, 0), 1e-9);
+    }
+
+    @Test
+    void testDateVariables() {
+        ScoreExpression expression = ScoreExpression.compile("age");
+        assertEquals(4 + 2 / 12.0, expression.evaluate(0, 0, 2020, 2020 * 12, NOW), 1e-9);
+        // a talk dated by year only counts from June
+        assertEquals(3 + 9 / 12.0, expression.evaluate(0, 0, 2020, -1, NOW), 1e-9);
+        assertTrue(Double.isNaN(expression.evaluate(0, 0, 0, -1, NOW)));
+
+        assertEquals(7.0, ScoreExpression.compile("month").evaluate(0, 0, 2021, 2021 * 12 + 6, NOW), 1e-9);
+        assertEquals(0.0, ScoreExpression.compile("month").evaluate(0, 0, 2021, -1, NOW), 1e-9);
+        assertEquals(2021.0, ScoreExpression.compile("year").evaluate(0, 0, 2021, -1, NOW), 1e-9);
+    }
+
+    @Test
+    void testBlockEvaluation() {
+        int n = ScoreExpression.BLOCK_SIZE + 10;
+        long[] views = new long[n];
+        long[] likes = new long[n];
+        int[] years = new int[n];
+        int[] months = new int[n];
+        for (int i = 0; i < n; i++) {
+            views[i] = i * 100L;
+            likes[i] = i;
+            years[i] = 2020;
+            months[i] = 2020 * 12 + i % 12;
+        }
+        ScoreExpression expression = ScoreExpression.compile("likes * 2 + views / (1 + month) - sqrt(likes)");
+        ScoreExpression.Evaluator evaluator = expression.evaluator(NOW);
+        double[] out = new double[ScoreExpression.BLOCK_SIZE];
+        evaluator.evaluate(views, likes, years, months, 10, ScoreExpression.BLOCK_SIZE, out);
+        for (int i = 0; i < ScoreExpression.BLOCK_SIZE; i++) {
+            int row = 10 + i;
+            assertEquals(expression.evaluate(views[row], likes[row], years[row], months[row], NOW), out[i], 1e-9);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> evaluator.evaluate(views, likes, years, months, 0, n, new double[n]));
+    }
+
+    @Test
+    void testMalformedExpressions() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ScoreExpression.compile("likes + shares"));
+        assertTrue(e.getMessage().contains("shares"), e.getMessage());
+        assertTrue(e.getMessage().contains("position 9"), e.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> ScoreExpression.compile(""));
+        assertThrows(IllegalArgumentException.class, () -> ScoreExpression.compile("likes +"));
+        assertThrows(IllegalArgumentException.class, () -> ScoreExpression.compile("(likes"));
+        assertThrows(IllegalArgumentException.class, () -> ScoreExpression.compile("likes views"));
+        assertThrows(IllegalArgumentException.class, () -> ScoreExpression.compile("1.2.3"));
+        assertThrows(IllegalArgumentException.class, () -> ScoreExpression.compile("sqrt(1, 2)"));
+        assertThrows(IllegalArgumentException.class, () -> ScoreExpression.compile("min(1)"));
+        assertThrows(IllegalArgumentException.class, () -> ScoreExpression.compile("rand(1)"));
+        assertThrows(IllegalArgumentException.class, () -> ScoreExpression.compile("likes; views"));
+    }
+
+    @Test
+    void testLimits() {
+        StringBuilder deep = new StringBuilder("likes");
+        for (int i = 0; i <= ScoreExpression.MAX_DEPTH; i++) deep.insert(0, "views - (").append(')');
+        assertThrows(IllegalArgumentException.class, () -> ScoreExpression.compile(deep.toString()));
+
+        StringBuilder flat = new StringBuilder("likes");
+        for (int i = 0; i <= ScoreExpression.MAX_DEPTH; i++) flat.append(" + views");
+        assertEquals(33 + 1.0, ScoreExpression.compile(flat.toString()).evaluate(1, 1, 2020, -1, NOW), 1e-9);
+
+        StringBuilder longExpression = new StringBuilder("1");
+        while (longExpression.length() <= ScoreExpression.MAX_LENGTH) longExpression.append(" + 1");
+        assertThrows(IllegalArgumentException.class, () -> ScoreExpression.compile(longExpression.toString()));
+    }
+
+    @Test
+    void testCompileCachesAndTrims() {
+        ScoreExpression expression = ScoreExpression.compile("  likes / views ");
+        assertEquals("likes / views", expression.source());
+        assertSame(expression, ScoreExpression.compile("likes / views"));
+        assertTrue(Double.isNaN(expression.evaluate(0, 0, 2020, -1, NOW)));
+    }
+}
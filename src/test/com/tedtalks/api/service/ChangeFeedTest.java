@@ -0,0 +1,62 @@
+package com.tedtalks.api.service;
+
+import com.tedtalks.api.model.TalkChange;
+import com.tedtalks.api.model.TedTalk;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+
+    @Test
+    void testReadAfterSequence() {
+        ChangeFeed feed = new ChangeFeed(8);
+        assertEquals(0, feed.last());
+        assertTrue(feed.read(0, 10).isEmpty());
+
+        TedTalk talk = new TedTalk("Talk1", "Author1", "2020", 1, 1, "link1");
+        feed.put(talk, true);
+        feed.put(talk, false);
+        feed.delete("Talk1");
+
+        List<TalkChange> changes = feed.read(0, 10);
+        assertEquals(3, changes.size());
+        assertEquals(1, changes.get(0).getSequence());
+        assertEquals(TalkChange.Type.CREATED, changes.get(0).getType());
+        assertSame(talk, changes.get(0).getTalk());
+        assertEquals(TalkChange.Type.UPDATED, changes.get(1).getType());
+        assertEquals(TalkChange.Type.DELETED, changes.get(2).getType());
+        assertEquals("Talk1", changes.get(2).getTitle());
+        assertNull(changes.get(2).getTalk());
+
+        assertEquals(2, feed.read(1, 10).get(0).getSequence());
+        assertEquals(1, feed.read(1, 1).size());
+        assertTrue(feed.read(3, 10).isEmpty());
+        // a sequence number the feed never handed out
+        assertNull(feed.read(4, 10));
+    }
+
+    @Test
+    void testOverwrittenChangesAreReported() {
+        ChangeFeed feed = new ChangeFeed(4);
+        for (int i = 0; i < 10; i++) feed.delete("Talk" + i);
+
+        assertNull(feed.read(5, 10));
+        List<TalkChange> kept = feed.read(6, 10);
+        assertEquals(4, kept.size());
+        assertEquals("Talk6", kept.get(0).getTitle());
+        assertEquals(10, kept.get(3).getSequence());
+    }
+
+    @Test
+    void testAwait() throws InterruptedException {
+        ChangeFeed feed = new ChangeFeed(4);
+        assertFalse(feed.await(0, 10));
+        Thread writer = new Thread(() -> feed.delete("Talk1"));
+        writer.start();
+        assertTrue(feed.await(0, 10_000));
+        writer.join();
+    }
+}
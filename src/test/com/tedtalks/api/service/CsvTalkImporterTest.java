@@ -0,0 +1,133 @@
+package com.tedtalks.api.service;
+
+import com.tedtalks.api.model.ImportReport;
+import com.tedtalks.api.model.TedTalk;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTalkImporterTest {
+
+    private static final String CSV = "title,author,date,views,likes,link\n"
+            + "Talk1,Author1,Dec-21,\"404,000\",12000,link1\n"
+            + ",,,,,\n"
+            + "Talk2,Author2,Jan-22,1000,10,link2\n"
+            + "Talk3,Author3,Feb-22,2000,20,link3\n"
+            + "Talk4,Author4,Mar-22,3000,30,link4\n"
+            + "Talk5,Author5,Apr-22,4000,40,link5\n";
+
+    @Test
+    void testImportPublishesBatchesInOrder() throws IOException {
+        List<List<TedTalk>> batches = new ArrayList<>();
+        ImportReport report = new CsvTalkImporter(2).importCsv(new StringReader(CSV), batches::add);
+
+        assertEquals(5, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertEquals(3, batches.size());
+
+        List<String> titles = new ArrayList<>();
+        batches.forEach(b -> b.forEach(t -> titles.add(t.getTitle())));
+        assertEquals(List.of("Talk1", "Talk2", "Talk3", "Talk4", "Talk5"), titles);
+        assertEquals(404000, batches.get(0).get(0).getViews());
+    }
+
+    @Test
+    void testImportNdjson() throws IOException {
+        String ndjson = "{\"title\":\" Talk1 \",\"author\":\"Author1\",\"date\":\"Dec-21\",\"views\":404000,\"likes\":12000,\"link\":\"link1\"}\n"
+                + "\n"
+                + "{\"title\":\"\",\"author\":\"Author2\"}\n"
+                + "not json\n"
+                + "{\"title\":\"Talk3\",\"views\":3000,\"extra\":true}\n"
+                + "{\"title\":\"Talk4\",\"author\":\"Author4\",\"date\":\"Mar-22\",\"views\":4000,\"likes\":40,\"link\":\"link4\"}";
+        List<List<TedTalk>> batches = new ArrayList<>();
+        ImportReport report = new CsvTalkImporter(2).importNdjson(new StringReader(ndjson), batches::add,
+                ImportProgress.NONE);
+
+        assertEquals(3, report.getImported());
+        assertEquals(2, report.getRejected());
+        List<TedTalk> talks = new ArrayList<>();
+        batches.forEach(talks::addAll);
+        assertEquals("Talk1", talks.get(0).getTitle());
+        assertEquals(404000, talks.get(0).getViews());
+        assertEquals(2021, talks.get(0).getYear());
+        assertEquals("Talk3", talks.get(1).getTitle());
+        assertEquals("", talks.get(1).getAuthor());
+        assertEquals("Talk4", talks.get(2).getTitle());
+    }
+
+    @Test
+    void testImportReportsProgressAndStopsWhenCancelled() throws IOException {
+        List<String> updates = new ArrayList<>();
+        List<List<TedTalk>> batches = new ArrayList<>();
+        ImportProgress progress = new ImportProgress() {
+            @Override
+            public void update(long rowsRead, long imported) {
+                updates.add(rowsRead + "/" + imported);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return batches.size() == 1;
+            }
+        };
+        assertThrows(CancellationException.class,
+                () -> new CsvTalkImporter(2).importCsv(new StringReader(CSV), batches::add, progress));
+        assertEquals(List.of("0/0", "2/1"), updates);
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void testImportEmptyInput() throws IOException {
+        List<List<TedTalk>> batches = new ArrayList<>();
+        ImportReport report = new CsvTalkImporter().importCsv(new StringReader("title,author,date,views,likes,link\n"), batches::add);
+
+        assertEquals(0, report.getImported());
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void testMalformedCsvIsRejectedAndReadErrorsPropagate() {
+        String malformed = "title,author,date,views,likes,link\n"
+                + "Talk1,Author1,Dec-21,1000,10,link1\n"
+                + "\"Talk2\"x,Author2,Jan-22,1000,10,link2\n";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new CsvTalkImporter(1).importCsv(new StringReader(malformed), batch -> { }));
+        assertTrue(e.getMessage().startsWith("Malformed CSV"), e.getMessage());
+
+        Reader failing = new Reader() {
+            private boolean headerRead;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                if (headerRead) throw new IOException("disk error");
+                headerRead = true;
+                String header = "title,author,date,views,likes,link\n";
+                header.getChars(0, header.length(), buffer, offset);
+                return header.length();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        IOException io = assertThrows(IOException.class,
+                () -> new CsvTalkImporter(1).importCsv(failing, batch -> { }));
+        assertEquals("disk error", io.getMessage());
+    }
+
+    @Test
+    void testParseLongSafe() {
+        assertEquals(12000, CsvTalkImporter.parseLongSafe("12,000"));
+        assertEquals(0, CsvTalkImporter.parseLongSafe(""));
+        assertEquals(0, CsvTalkImporter.parseLongSafe(null));
+        assertEquals(0, CsvTalkImporter.parseLongSafe("n/a"));
+        assertEquals(0, CsvTalkImporter.parseLongSafe("99999999999999999999"));
+    }
+}
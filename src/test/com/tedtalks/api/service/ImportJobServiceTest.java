@@ -0,0 +1,145 @@
+package com.tedtalks.api.service;
+
+import com.tedtalks.api.model.ImportJobStatus;
+import com.tedtalks.api.model.ImportJobStatus.State;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportJobServiceTest {
+
+    private final TedTalkService talks = new TedTalkService();
+    private ImportJobService jobs;
+
+    @AfterEach
+    void tearDown() {
+        jobs.shutdown();
+    }
+
+    @Test
+    void testImportRunsInBackground() throws Exception {
+        jobs = new ImportJobService(talks, 2, 4);
+        ImportJobStatus submitted = jobs.submit("test_data.csv", () -> new FileInputStream("src/test/resources/test_data.csv"));
+
+        ImportJobStatus done = awaitFinished(submitted.getId());
+        assertEquals(State.SUCCEEDED, done.getState());
+        assertEquals(talks.getAll().size(), done.getImported());
+        assertTrue(done.getImported() > 0);
+        assertEquals(done.getRowsRead(), done.getImported() + done.getRejected());
+        assertEquals(1, jobs.list().size());
+    }
+
+    @Test
+    void testNdjsonImport() throws Exception {
+        jobs = new ImportJobService(talks, 1, 1);
+        String ndjson = "{\"title\":\"Talk1\",\"author\":\"Author1\",\"date\":\"Dec-21\",\"views\":1000,\"likes\":10}\n"
+                + "{\"title\":\"Talk2\",\"author\":\"Author2\",\"date\":\"Jan-22\",\"views\":2000,\"likes\":20}\n";
+        ImportJobStatus submitted = jobs.submit("talks.ndjson", true,
+                () -> new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        ImportJobStatus done = awaitFinished(submitted.getId());
+        assertEquals(State.SUCCEEDED, done.getState());
+        assertEquals(2, done.getImported());
+        assertEquals(2000, talks.getAll().stream().filter(t -> t.getTitle().equals("Talk2")).findFirst()
+                .orElseThrow().getViews());
+    }
+
+    @Test
+    void testFailedImportReportsError() throws Exception {
+        jobs = new ImportJobService(talks, 1, 1);
+        ImportJobStatus submitted = jobs.submit("missing.csv", () -> {
+            throw new FileNotFoundException("missing.csv");
+        });
+
+        ImportJobStatus done = awaitFinished(submitted.getId());
+        assertEquals(State.FAILED, done.getState());
+        assertTrue(done.getError().contains("missing.csv"));
+    }
+
+    @Test
+    void testQueueIsBoundedAndQueuedJobsCanBeCancelled() throws Exception {
+        jobs = new ImportJobService(talks, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ImportJobStatus running = jobs.submit("blocked", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            return csv("Talk1,Author1,Dec-21,1,1,link1\n");
+        });
+        started.await();
+        ImportJobStatus queued = jobs.submit("queued", () -> csv("Talk2,Author2,Dec-21,1,1,link2\n"));
+        assertEquals(State.QUEUED, queued.getState());
+        assertThrows(RejectedExecutionException.class, () -> jobs.submit("rejected", () -> csv("")));
+
+        assertEquals(State.CANCELLED, jobs.cancel(queued.getId()).get().getState());
+        // the cancelled job no longer takes a queue slot
+        ImportJobStatus next = jobs.submit("next", () -> csv("Talk3,Author3,Dec-21,1,1,link3\n"));
+
+        release.countDown();
+        assertEquals(State.SUCCEEDED, awaitFinished(running.getId()).getState());
+        assertEquals(State.SUCCEEDED, awaitFinished(next.getId()).getState());
+        assertTrue(talks.findByTitle("Talk1").isPresent());
+        assertFalse(talks.findByTitle("Talk2").isPresent());
+        assertTrue(talks.findByTitle("Talk3").isPresent());
+    }
+
+    @Test
+    void testRunningImportCanBeCancelled() throws Exception {
+        jobs = new ImportJobService(talks, 1, 1);
+        ImportJobStatus submitted = jobs.submit("endless", EndlessCsv::new);
+        while (jobs.get(submitted.getId()).get().getImported() == 0) Thread.sleep(5);
+
+        jobs.cancel(submitted.getId());
+        ImportJobStatus done = awaitFinished(submitted.getId());
+        assertEquals(State.CANCELLED, done.getState());
+        // batches stored before the cancellation are kept
+        assertEquals(done.getImported(), talks.getAll().size());
+    }
+
+    private ImportJobStatus awaitFinished(String id) throws InterruptedException {
+        for (int i = 0; i < 1000; i++) {
+            ImportJobStatus status = jobs.get(id).orElseThrow();
+            if (status.getState().isFinished()) return status;
+            Thread.sleep(10);
+        }
+        fail("Import " + id + " did not finish");
+        return null;
+    }
+
+    private static InputStream csv(String rows) {
+        return new ByteArrayInputStream(("title,author,date,views,likes,link\n" + rows).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Produces CSV rows until closed.
+     */
+    private static class EndlessCsv extends InputStream {
+        private byte[] row = "title,author,date,views,likes,link\n".getBytes(StandardCharsets.UTF_8);
+        private int pos;
+        private long count;
+
+        @Override
+        public int read() {
+            if (pos == row.length) {
+                row = ("Talk" + count + ",Author,Dec-21," + count + ",1,link\n").getBytes(StandardCharsets.UTF_8);
+                count++;
+                pos = 0;
+            }
+            return row[pos++];
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.tedtalks.api.service;
+
+import com.tedtalks.api.metrics.Counter;
+import com.tedtalks.api.metrics.MetricRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final Counter hits = metrics.counter("cache_total", "Cache", "result=\"hit\"");
+    private final Counter misses = metrics.counter("cache_total", "Cache", "result=\"miss\"");
+    private final Counter coalesced = metrics.counter("cache_total", "Cache", "result=\"coalesced\"");
+    private final ResultCache<String, String> cache = new ResultCache<>(2, hits, misses, coalesced);
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @Test
+    void testRecomputesOnlyWhenTheVersionChanges() {
+        assertEquals("a1", cache.get("a", 1, () -> compute("a")));
+        assertEquals("a1", cache.get("a", 1, () -> compute("a")));
+        assertEquals("a2", cache.get("a", 5, () -> compute("a")));
+        // an older version is served from the newer entry
+        assertEquals("a2", cache.get("a", 4, () -> compute("a")));
+        assertEquals(2, computations.get());
+        assertEquals(2, hits.get());
+        assertEquals(2, misses.get());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        cache.get("a", 1, () -> compute("a"));
+        cache.get("b", 1, () -> compute("b"));
+        cache.get("a", 1, () -> compute("a"));
+        cache.get("c", 1, () -> compute("c"));
+        assertEquals(2, cache.size());
+
+        cache.get("a", 1, () -> compute("a"));
+        assertEquals(3, computations.get());
+        cache.get("b", 1, () -> compute("b"));
+        assertEquals(4, computations.get());
+    }
+
+    @Test
+    void testFailuresAreNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get("a", 1, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("a1", cache.get("a", 1, () -> compute("a")));
+    }
+
+    @Test
+    void testConcurrentMissesComputeOnce() throws Exception {
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = pool.submit(() -> cache.get("a", 1, () -> {
+                computing.countDown();
+                await(release);
+                return compute("a");
+            }));
+            computing.await();
+            Future<String> second = pool.submit(() -> cache.get("a", 1, () -> compute("a")));
+            Future<String> third = pool.submit(() -> cache.get("a", 1, () -> compute("a")));
+            while (coalesced.get() < 2) Thread.sleep(1);
+            release.countDown();
+
+            assertEquals("a1", first.get(5, TimeUnit.SECONDS));
+            assertEquals("a1", second.get(5, TimeUnit.SECONDS));
+            assertEquals("a1", third.get(5, TimeUnit.SECONDS));
+            assertEquals(1, computations.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private String compute(String key) {
+        return key + computations.incrementAndGet();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -45,6 +45,35 @@ class SpeakerAnalysisServiceTest {
         assertEquals("Talk2", it.next().getKey());
     }
 
+    @Test
+    void testComputeInfluenceScoresDuplicateTitlesKeepBestScore() {
+        TedTalk t1 = new TedTalk("Talk1", "Author1", "2020", 1000, 50, "link1");
+        TedTalk t2 = new TedTalk("Talk1", "Author2", "2021", 2000, 30, "link2");
+
+        Map<String, Double> scores = service.computeInfluenceScores(Arrays.asList(t1, t2));
+        assertEquals(1, scores.size());
+        assertEquals(51.0, scores.get("Talk1"), 0.001);
+    }
+
+    @Test
+    void testComputeInfluenceScoresLargeList() {
+        List<TedTalk> talks = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            // every title appears twice, the second copy scores higher
+            talks.add(new TedTalk("Talk" + (i % 50_000), "Author", "2020", i, 0, "link"));
+        }
+
+        Map<String, Double> scores = service.computeInfluenceScores(talks);
+        assertEquals(50_000, scores.size());
+        assertEquals(99.999, scores.values().iterator().next(), 0.001);
+        assertEquals(50.0, scores.get("Talk0"), 0.001);
+        double previous = Double.MAX_VALUE;
+        for (double score : scores.values()) {
+            assertTrue(score <= previous);
+            previous = score;
+        }
+    }
+
     @Test
     void testGetTopNTitles() {
         TedTalk t1 = new TedTalk("Talk1", "Author1", "2020", 1000, 50, "link1");
@@ -1,14 +1,28 @@
 package com.tedtalks.api.service;
 
+import com.tedtalks.api.metrics.MetricRegistry;
+import com.tedtalks.api.model.BatchOperation;
+import com.tedtalks.api.model.BatchReport;
+import com.tedtalks.api.model.BatchResult;
+import com.tedtalks.api.model.ImportReport;
+import com.tedtalks.api.model.TalkChange;
+import com.tedtalks.api.model.TalkPage;
 import com.tedtalks.api.model.TedTalk;
+import com.tedtalks.api.repository.TalkSnapshot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.util.ResourceUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -53,6 +67,25 @@ class TedTalkServiceTest {
         assertFalse(found.isPresent());
     }
 
+    @Test
+    void testAddDuplicateTitleReplacesExisting() {
+        TedTalk t1 = new TedTalk("Title1", "Author1", "2020", 100, 10, "link1");
+        TedTalk t2 = new TedTalk("Title2", "Author2", "2021", 200, 20, "link2");
+        TedTalk t3 = new TedTalk("TITLE1", "Author3", "2022", 300, 30, "link3");
+        service.add(t1);
+        service.add(t2);
+        service.add(t3);
+
+        List<TedTalk> talks = service.getAll();
+        assertEquals(2, talks.size());
+        assertSame(t3, talks.get(0));
+        assertSame(t3, service.findByTitle("title1").orElseThrow());
+
+        assertTrue(service.delete("Title1"));
+        assertFalse(service.findByTitle("Title1").isPresent());
+        assertEquals(1, service.getAll().size());
+    }
+
     @Test
     void testGetTedTalksByYear() {
         TedTalk t1 = new TedTalk("Title1", "Author1", "2020-05-01", 100, 10, "link1");
@@ -72,6 +105,57 @@ class TedTalkServiceTest {
         assertTrue(talks2019.isEmpty());
     }
 
+    @Test
+    void testGetTedTalksByYearWithShortDates() {
+        TedTalk t1 = new TedTalk("Title1", "Author1", "Dec-21", 100, 10, "link1");
+        TedTalk t2 = new TedTalk("Title2", "Author2", "Jan-20", 200, 20, "link2");
+        service.add(t1);
+        service.add(t2);
+
+        assertEquals(List.of(t1), service.getTedTalksByYear(2021));
+        assertEquals(List.of(t2), service.getTedTalksByYear(2020));
+        assertTrue(service.getTedTalksByYear(21).isEmpty());
+
+        // The bucket follows the talk when its date is updated
+        service.update("Title1", new TedTalk(null, null, "Mar-19", 100, 10, null));
+        assertTrue(service.getTedTalksByYear(2021).isEmpty());
+        assertEquals(List.of("Title1"), titles(service.getTedTalksByYear(2019)));
+    }
+
+    @Test
+    void testGetTedTalksBetween() {
+        TedTalk t1 = new TedTalk("Title1", "Author1", "Nov-20", 100, 10, "link1");
+        TedTalk t2 = new TedTalk("Title2", "Author2", "Feb-21", 200, 20, "link2");
+        TedTalk t3 = new TedTalk("Title3", "Author3", "Jun-21", 300, 30, "link3");
+        service.add(t1);
+        service.add(t2);
+        service.add(t3);
+
+        assertEquals(List.of(t1, t2), service.getTedTalksBetween(YearMonth.of(2020, 11), YearMonth.of(2021, 2)));
+        assertEquals(List.of(t3), service.getTedTalksBetween(YearMonth.of(2021, 3), YearMonth.of(2021, 12)));
+        assertTrue(service.getTedTalksBetween(YearMonth.of(2021, 12), YearMonth.of(2021, 1)).isEmpty());
+    }
+
+    @Test
+    void testGetTopInfluentialFollowsMutations() {
+        TedTalk t1 = new TedTalk("Title1", "Author1", "2020", 1000, 50, "link1");
+        TedTalk t2 = new TedTalk("Title2", "Author2", "2021", 2000, 30, "link2");
+        TedTalk t3 = new TedTalk("Title3", "Author3", "2022", 500, 70, "link3");
+        service.add(t1);
+        service.add(t2);
+        service.add(t3);
+
+        assertEquals(List.of(t3, t1), service.getTopInfluential(2));
+        assertEquals(List.of(t3, t1, t2), service.getTopInfluential(10));
+
+        service.update("Title2", new TedTalk(null, null, null, 2000, 100, null));
+        assertEquals(List.of("Title2", "Title3"), titles(service.getTopInfluential(2)));
+
+        service.delete("Title3");
+        assertEquals(List.of("Title2", "Title1"), titles(service.getTopInfluential(5)));
+        assertTrue(service.getTopInfluential(0).isEmpty());
+    }
+
     @Test
     void testUpdate() {
         TedTalk t1 = new TedTalk("Title1", "Author1", "2020", 100, 10, "link1");
@@ -90,6 +174,11 @@ class TedTalkServiceTest {
         assertEquals(50, t.getLikes());
         assertEquals("newLink", t.getLink());
 
+        // The previously stored instance is left untouched
+        assertEquals("Author1", t1.getAuthor());
+        assertEquals(100, t1.getViews());
+        assertEquals(List.of(t), service.getAll());
+
         // Updating non-existing talk
         boolean updateResult = service.update("Unknown", updated);
         assertFalse(updateResult);
@@ -125,4 +214,286 @@ class TedTalkServiceTest {
         assertNotNull(t.getTitle());
         assertNotNull(t.getAuthor());
     }
+
+    @Test
+    void testImportIsAnIdempotentUpsert(@TempDir Path dir) throws IOException {
+        String csv = "title,author,date,views,likes,link\n"
+                + "Talk1,Author1,Dec-21,1000,10,link1\n"
+                + "Talk2,Author2,Jan-22,2000,20,link2\n"
+                + "Talk3,Author3,Feb-22,3000,30,link3\n";
+        ImportReport first = service.importFromCsv(new StringReader(csv));
+        assertEquals(3, first.getInserted());
+        long version = service.getSnapshot().getVersion();
+
+        Path wal = dir.resolve("talks.wal");
+        service.recover(wal);
+        ImportReport again = service.importFromCsv(new StringReader(csv));
+        assertEquals(3, again.getImported());
+        assertEquals(0, again.getInserted());
+        assertEquals(3, again.getUnchanged());
+        // nothing was published or logged
+        assertEquals(version, service.getSnapshot().getVersion());
+        assertEquals(0, java.nio.file.Files.size(wal));
+        assertEquals(3, service.getAll().size());
+
+        String changed = "title,author,date,views,likes,link\n"
+                + "Talk1,Author1,Dec-21,1000,10,link1\n"
+                + "talk2,Author2,Jan-22,2500,25,link2\n"
+                + "Talk4,Author4,Mar-22,4000,40,link4\n";
+        ImportReport sync = service.importFromCsv(new StringReader(changed), true);
+        assertEquals(1, sync.getInserted());
+        assertEquals(1, sync.getUpdated());
+        assertEquals(1, sync.getUnchanged());
+        assertEquals(1, sync.getRemoved());
+        assertEquals(List.of("Talk1", "Talk4", "talk2"), titles(service.getAll()).stream().sorted()
+                .collect(Collectors.toList()));
+        assertEquals(2500, service.findByTitle("Talk2").get().getViews());
+        assertTrue(service.findByTitle("Talk3").isEmpty());
+        assertTrue(service.getTedTalksByYear(2022).stream().noneMatch(t -> t.getTitle().equals("Talk3")));
+
+        TedTalkService restored = new TedTalkService();
+        restored.importFromCsv(new StringReader(csv));
+        restored.recover(wal);
+        assertEquals(titles(service.getAll()).stream().sorted().collect(Collectors.toList()),
+                titles(restored.getAll()).stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void testAddAllWithDuplicateTitlesInBatch() {
+        TedTalk t1 = new TedTalk("Title1", "Author1", "2020", 100, 10, "link1");
+        TedTalk t2 = new TedTalk("Title2", "Author2", "2021", 200, 20, "link2");
+        TedTalk t3 = new TedTalk("title1", "Author3", "2022", 300, 30, "link3");
+        service.addAll(List.of(t1, t2, t3));
+
+        assertEquals(List.of(t3, t2), service.getAll());
+        assertEquals(List.of(t3, t2), service.getTopInfluential(5));
+        assertTrue(service.getTedTalksByYear(2020).isEmpty());
+    }
+
+    @Test
+    void testSnapshotsAreIsolatedFromLaterWrites() {
+        service.add(new TedTalk("Title1", "Author1", "2020", 100, 10, "link1"));
+        TalkSnapshot before = service.getSnapshot();
+
+        service.add(new TedTalk("Title2", "Author2", "2021", 200, 20, "link2"));
+        service.delete("Title1");
+        TalkSnapshot after = service.getSnapshot();
+
+        assertEquals(List.of("Title1"), titles(before.getTalks()));
+        assertEquals(List.of("Title2"), titles(after.getTalks()));
+        assertTrue(after.getVersion() > before.getVersion());
+    }
+
+    @Test
+    void testGetPageIsStableAcrossMutations() {
+        for (int i = 1; i <= 5; i++) {
+            service.add(new TedTalk("Title" + i, "Author" + i, "2020", i, i, "link" + i));
+        }
+        TalkPage first = service.getPage(null, 2);
+        assertEquals(List.of("Title1", "Title2"), titles(first.getItems()));
+        assertEquals(5, first.getTotal());
+
+        service.delete("Title1");
+        service.add(new TedTalk("Title6", "Author6", "2020", 6, 6, "link6"));
+
+        TalkPage second = service.getPage(first.getNextCursor(), 2);
+        TalkPage third = service.getPage(second.getNextCursor(), 2);
+        assertEquals(List.of("Title3", "Title4"), titles(second.getItems()));
+        assertEquals(List.of("Title5"), titles(third.getItems()));
+        assertNull(third.getNextCursor());
+        assertEquals(first.getVersion(), third.getVersion());
+
+        // a new listing sees the changes
+        assertEquals(5, service.getPage(null, 10).getItems().size());
+        assertFalse(titles(service.getPage(null, 10).getItems()).contains("Title1"));
+    }
+
+    @Test
+    void testGetPageRejectsInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> service.getPage("not-a-cursor", 10));
+        assertThrows(IllegalStateException.class, () -> service.getPage(
+                java.util.Base64.getUrlEncoder().encodeToString("42:0".getBytes()), 10));
+    }
+
+    @Test
+    void testSaveAndLoadSnapshot(@TempDir Path dir) throws IOException {
+        File csv = ResourceUtils.getFile("src/test/resources/test_data.csv");
+        service.importFromCsv(csv.getAbsolutePath());
+        Path file = dir.resolve("talks.snapshot");
+        service.saveSnapshot(file);
+
+        TedTalkService restored = new TedTalkService();
+        assertEquals(service.getAll().size(), restored.loadSnapshot(file));
+        assertEquals(titles(service.getAll()), titles(restored.getAll()));
+        assertEquals(titles(service.getTopInfluential(5)), titles(restored.getTopInfluential(5)));
+        assertEquals(service.getTedTalksByYear(2021).size(), restored.getTedTalksByYear(2021).size());
+    }
+
+    @Test
+    void testRecoverReplaysWriteAheadLog(@TempDir Path dir) throws IOException {
+        Path wal = dir.resolve("talks.wal");
+        service.recover(wal);
+        service.add(new TedTalk("Title1", "Author1", "2020", 100, 10, "link1"));
+        service.addAll(List.of(new TedTalk("Title2", "Author2", "2021", 200, 20, "link2"),
+                new TedTalk("Title3", "Author3", "2021", 300, 30, "link3")));
+        service.update("title2", new TedTalk(null, "Author2b", null, 250, 25, null));
+        service.delete("Title1");
+
+        TedTalkService restored = new TedTalkService();
+        restored.recover(wal);
+        assertEquals(List.of("Title3", "Title2"), titles(restored.getAll()));
+        assertEquals("Author2b", restored.findByTitle("Title2").get().getAuthor());
+        assertEquals(250, restored.findByTitle("Title2").get().getViews());
+
+        // a snapshot compacts the log, only later mutations are left to replay
+        Path snapshot = dir.resolve("talks.snapshot");
+        restored.saveSnapshot(snapshot);
+        restored.delete("Title3");
+        TedTalkService fromSnapshot = new TedTalkService();
+        fromSnapshot.loadSnapshot(snapshot);
+        fromSnapshot.recover(wal);
+        assertEquals(List.of("Title2"), titles(fromSnapshot.getAll()));
+        assertFalse(java.nio.file.Files.exists(dir.resolve("talks.wal.1")));
+        assertTrue(java.nio.file.Files.size(wal) < 100);
+    }
+
+    @Test
+    void testMetrics() throws IOException {
+        MetricRegistry metrics = new MetricRegistry();
+        TedTalkService measured = new TedTalkService(metrics);
+        measured.importFromCsv(ResourceUtils.getFile("src/test/resources/test_data.csv").getAbsolutePath());
+        measured.findByTitle("unknown");
+        measured.findByTitle("unknown");
+
+        String text = metrics.scrape();
+        assertTrue(text.contains("tedtalks_service_seconds_count{method=\"findByTitle\"} 2\n"));
+        assertTrue(text.contains("tedtalks_service_seconds_count{method=\"importFromCsv\"} 1\n"));
+        assertTrue(text.contains("tedtalks_import_rows_total{result=\"imported\"} " + measured.getAll().size() + "\n"));
+        assertTrue(text.contains("tedtalks_talks " + measured.getAll().size() + ".0\n"));
+    }
+
+    @Test
+    void testApplyBatch() {
+        service.add(new TedTalk("Title1", "Author1", "2020", 100, 10, "link1"));
+        long version = service.getSnapshot().getVersion();
+
+        BatchReport report = service.applyBatch(List.of(
+                BatchOperation.add(new TedTalk("Title2", "Author2", "2021", 200, 20, "link2")),
+                BatchOperation.add(new TedTalk("title1", "Author1b", "2020", 110, 11, "link1b")),
+                BatchOperation.update("TITLE2", new TedTalk(null, "Author2b", null, 250, 25, null)),
+                BatchOperation.delete("Unknown"),
+                BatchOperation.add(new TedTalk("Title3", "Author3", "2022", 300, 30, "link3")),
+                BatchOperation.delete("title3"),
+                new BatchOperation("rename", "Title1", null),
+                BatchOperation.update("Title1", null)));
+
+        assertEquals(List.of(BatchResult.Status.CREATED, BatchResult.Status.REPLACED, BatchResult.Status.UPDATED,
+                        BatchResult.Status.NOT_FOUND, BatchResult.Status.CREATED, BatchResult.Status.DELETED,
+                        BatchResult.Status.INVALID, BatchResult.Status.INVALID),
+                report.getResults().stream().map(BatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals(5, report.getApplied());
+        assertEquals(3, report.getSkipped());
+        // one publish for the whole batch
+        assertEquals(version + 1, report.getVersion());
+        assertEquals(version + 1, service.getSnapshot().getVersion());
+
+        assertEquals(List.of("title1", "Title2"), titles(service.getAll()));
+        assertEquals("Author2b", service.findByTitle("Title2").get().getAuthor());
+        assertEquals(250, service.findByTitle("Title2").get().getViews());
+        assertEquals(1, service.getTedTalksByYear(2021).size());
+        assertTrue(service.getTedTalksByYear(2022).isEmpty());
+
+        BatchReport nothing = service.applyBatch(List.of(BatchOperation.delete("Unknown")));
+        assertEquals(version + 1, nothing.getVersion());
+
+        // an add identical to the stored talk changes nothing and emits no change
+        long last = service.getChangeFeed().last();
+        BatchReport same = service.applyBatch(List.of(
+                BatchOperation.add(new TedTalk("title1", "Author1b", "2020", 110, 11, "link1b"))));
+        assertEquals(BatchResult.Status.UNCHANGED, same.getResults().get(0).getStatus());
+        assertEquals(0, same.getApplied());
+        assertEquals(version + 1, same.getVersion());
+        assertEquals(last, service.getChangeFeed().last());
+
+        List<BatchOperation> tooMany = Collections.nCopies(TedTalkService.MAX_BATCH_SIZE + 1, BatchOperation.delete("x"));
+        assertThrows(IllegalArgumentException.class, () -> service.applyBatch(tooMany));
+    }
+
+    @Test
+    void testApplyBatchIsLogged(@TempDir Path dir) throws IOException {
+        Path wal = dir.resolve("talks.wal");
+        service.recover(wal);
+        service.applyBatch(List.of(
+                BatchOperation.add(new TedTalk("Title1", "Author1", "2020", 100, 10, "link1")),
+                BatchOperation.add(new TedTalk("Title2", "Author2", "2021", 200, 20, "link2")),
+                BatchOperation.update("Title1", new TedTalk(null, null, null, 150, 15, null)),
+                BatchOperation.delete("Title2")));
+
+        TedTalkService restored = new TedTalkService();
+        restored.recover(wal);
+        assertEquals(List.of("Title1"), titles(restored.getAll()));
+        assertEquals(150, restored.findByTitle("Title1").get().getViews());
+    }
+
+    @Test
+    void testChangeTrackerVersionsPerYear() {
+        service.add(new TedTalk("Title1", "Author1", "Dec-20", 100, 10, "link1"));
+        service.add(new TedTalk("Title2", "Author2", "Dec-21", 200, 20, "link2"));
+        long all = service.getChangeTracker().version();
+        long year2020 = service.getChangeTracker().version(2020);
+        long year2021 = service.getChangeTracker().version(2021);
+
+        service.update("Title1", new TedTalk(null, null, null, 150, 15, null));
+        assertTrue(service.getChangeTracker().version() > all);
+        assertTrue(service.getChangeTracker().version(2020) > year2020);
+        assertEquals(year2021, service.getChangeTracker().version(2021));
+
+        // moving a talk to another year changes both years
+        service.update("Title1", new TedTalk(null, null, "Jan-21", 150, 15, null));
+        assertTrue(service.getChangeTracker().version(2021) > year2021);
+        assertFalse(service.update("Unknown", new TedTalk()));
+    }
+
+    @Test
+    void testGetTedTalksInRange() {
+        service.add(new TedTalk("Title1", "Author1", "2020", 100, 30, "link1"));
+        service.add(new TedTalk("Title2", "Author2", "2021", 200, 20, "link2"));
+        service.add(new TedTalk("Title3", "Author3", "2022", 300, 10, "link3"));
+
+        assertEquals(List.of("Title2", "Title3"), titles(service.getTedTalksInRange("views", 150, 300, false, 10)));
+        assertEquals(List.of("Title1", "Title2"), titles(service.getTedTalksInRange("likes", 20, 30, true, 10)));
+
+        // updates and deletes move the talk within both indexes
+        service.update("Title1", new TedTalk(null, null, null, 400, 5, null));
+        assertEquals(List.of("Title1", "Title3"), titles(service.getTedTalksInRange("views", 250, 1000, true, 10)));
+        assertEquals(List.of("Title1"), titles(service.getTedTalksInRange("likes", 0, 9, false, 10)));
+        service.delete("Title3");
+        assertEquals(List.of("Title1"), titles(service.getTedTalksInRange("views", 250, 1000, true, 10)));
+
+        assertThrows(IllegalArgumentException.class, () -> service.getTedTalksInRange("author", 0, 1, false, 10));
+    }
+
+    @Test
+    void testChangeFeed() throws IOException {
+        service.add(new TedTalk("Title1", "Author1", "2020", 100, 10, "link1"));
+        service.update("Title1", new TedTalk(null, null, null, 150, 15, null));
+        service.delete("Title1");
+        service.importFromCsv(new StringReader("title,author,date,views,likes,link\n"
+                + "Title2,Author2,2021,200,20,link2\nTitle3,Author3,2022,300,30,link3\n"));
+        // unchanged rows are not repeated on the feed
+        service.importFromCsv(new StringReader("title,author,date,views,likes,link\n"
+                + "Title2,Author2,2021,200,20,link2\nTitle3,Author3,2022,301,30,link3\n"), true);
+        service.applyBatch(List.of(BatchOperation.delete("Title2"), BatchOperation.delete("Unknown")));
+
+        List<TalkChange> changes = service.getChangeFeed().read(0, 100);
+        assertEquals(List.of("1 CREATED Title1", "2 UPDATED Title1", "3 DELETED Title1", "4 CREATED Title2",
+                        "5 CREATED Title3", "6 UPDATED Title3", "7 DELETED Title2"),
+                changes.stream().map(c -> c.getSequence() + " " + c.getType() + " " + c.getTitle())
+                        .collect(Collectors.toList()));
+        assertEquals(301, changes.get(5).getTalk().getViews());
+    }
+
+    private static List<String> titles(List<TedTalk> talks) {
+        return talks.stream().map(TedTalk::getTitle).collect(Collectors.toList());
+    }
 }
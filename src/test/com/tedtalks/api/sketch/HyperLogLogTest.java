@@ -0,0 +1,55 @@
+package com.tedtalks.api.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void testEstimateIsWithinError() {
+        for (int n : new int[]{10, 1000, 100_000}) {
+            HyperLogLog sketch = new HyperLogLog(10);
+            for (int i = 0; i < n; i++) {
+                // every speaker twice
+                sketch.add(HyperLogLog.hash("Speaker " + i));
+                sketch.add(HyperLogLog.hash("Speaker " + i));
+            }
+            // three standard errors
+            assertEquals(n, sketch.estimate(), n * 3 * 1.04 / 32 + 1, "n=" + n);
+        }
+        assertEquals(0, new HyperLogLog(10).estimate());
+    }
+
+    @Test
+    void testRemoveFollowsMultiset() {
+        HyperLogLog sketch = new HyperLogLog(10);
+        for (int i = 0; i < 1000; i++) sketch.add(HyperLogLog.hash("Speaker " + i));
+        sketch.add(HyperLogLog.hash("Speaker 0"));
+        long full = sketch.estimate();
+
+        for (int i = 500; i < 1000; i++) assertTrue(sketch.remove(HyperLogLog.hash("Speaker " + i)));
+        assertEquals(500, sketch.estimate(), 500 * 0.1);
+
+        // added twice, removed once: still there
+        sketch.remove(HyperLogLog.hash("Speaker 0"));
+        for (int i = 500; i < 1000; i++) sketch.add(HyperLogLog.hash("Speaker " + i));
+        assertEquals(full, sketch.estimate());
+    }
+
+    @Test
+    void testMerge() {
+        HyperLogLog a = new HyperLogLog(10);
+        HyperLogLog b = new HyperLogLog(10);
+        HyperLogLog all = new HyperLogLog(10);
+        for (int i = 0; i < 5000; i++) {
+            long h = HyperLogLog.hash("Speaker " + i);
+            (i < 3000 ? a : b).add(h);
+            if (i >= 2000) b.add(h); // overlap
+            all.add(h);
+        }
+        a.merge(b);
+        assertEquals(all.estimate(), a.estimate());
+        assertThrows(IllegalArgumentException.class, () -> a.merge(new HyperLogLog(12)));
+    }
+}
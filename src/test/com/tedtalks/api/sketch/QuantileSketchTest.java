@@ -0,0 +1,67 @@
+package com.tedtalks.api.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    void testQuantilesAreWithinRelativeAccuracy() {
+        Random random = new Random(42);
+        long[] values = new long[100_000];
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        for (int i = 0; i < values.length; i++) {
+            // long tailed, like view counts
+            values[i] = (long) Math.exp(random.nextGaussian() * 2 + 12);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+        for (double q : new double[]{0, 0.1, 0.5, 0.9, 0.99, 0.999, 1}) {
+            long exact = values[(int) (q * (values.length - 1))];
+            assertEquals(exact, sketch.quantile(q), exact * 0.0101 + 1, "q=" + q);
+        }
+        assertEquals(values.length, sketch.count());
+    }
+
+    @Test
+    void testRemoveAndZeros() {
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        assertEquals(0, sketch.quantile(0.5));
+        sketch.add(0);
+        sketch.add(1000);
+        sketch.add(1_000_000);
+        assertEquals(1000, sketch.quantile(0.5), 10);
+
+        assertTrue(sketch.remove(1000));
+        assertFalse(sketch.remove(5000));
+        assertEquals(2, sketch.count());
+        assertEquals(0, sketch.quantile(0));
+        assertEquals(1_000_000, sketch.quantile(1), 10_000);
+
+        assertTrue(sketch.remove(0));
+        assertFalse(sketch.remove(0));
+        assertEquals(1_000_000, sketch.quantile(0), 10_000);
+    }
+
+    @Test
+    void testMergeEqualsSketchOfAllValues() {
+        QuantileSketch low = new QuantileSketch(0.01);
+        QuantileSketch high = new QuantileSketch(0.01);
+        QuantileSketch all = new QuantileSketch(0.01);
+        for (long v = 1; v <= 10_000; v++) {
+            (v % 2 == 0 ? low : high).add(v * v);
+            all.add(v * v);
+        }
+        low.merge(high);
+        assertEquals(all.count(), low.count());
+        for (double q : new double[]{0, 0.25, 0.5, 0.75, 1}) {
+            assertEquals(all.quantile(q), low.quantile(q));
+        }
+        assertThrows(IllegalArgumentException.class, () -> low.merge(new QuantileSketch(0.02)));
+        assertThrows(IllegalArgumentException.class, () -> low.quantile(1.5));
+    }
+}